@@ -4,31 +4,109 @@ import org.apache.catalina.Context;
 import org.apache.catalina.LifecycleException;
 import org.apache.catalina.Wrapper;
 import org.apache.catalina.startup.Tomcat;
+import org.apache.tomcat.util.descriptor.web.FilterDef;
+import org.apache.tomcat.util.descriptor.web.FilterMap;
+import org.apache.tomcat.util.threads.VirtualThreadExecutor;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.core.env.MapPropertySource;
 import org.springframework.web.context.support.AnnotationConfigWebApplicationContext;
 import org.springframework.web.servlet.DispatcherServlet;
+import ru.practicum.limit.ConcurrencyLimitFilter;
+import ru.practicum.metrics.MetricsFilter;
+
+import java.util.Locale;
+import java.util.Map;
 
 public class LaterApplication {
     private static final int PORT = 8080;
 
     public static void main(String[] args) throws LifecycleException {
+        // порт можно переопределить (-Dserver.port=8081), чтобы запустить рядом второй узел;
+        // -Dserver.threads=virtual обрабатывает запросы на виртуальных потоках;
+        // -Djfr.continuous=true включает непрерывную запись JFR со сбросом при нарушении SLO (ContinuousRecording)
+        start(Integer.getInteger("server.port", PORT),
+                ThreadMode.valueOf(System.getProperty("server.threads", "platform").toUpperCase(Locale.ROOT)));
+    }
+
+    static Server start(int port, ThreadMode threadMode) throws LifecycleException {
         Tomcat tomcat = new Tomcat();
 
         // connector — это компонент, который отвечает за «сеть»
-        tomcat.getConnector().setPort(PORT);
+        tomcat.getConnector().setPort(port);
+        if (threadMode == ThreadMode.VIRTUAL) {
+            // каждый запрос выполняется в своём виртуальном потоке: пока он ждёт JDBC или внешний HTTP,
+            // поток-носитель обслуживает другие запросы. Соединения с БД при этом ограничивает
+            // ConnectionLimitingDataSource, а долгих synchronized-секций вокруг ввода-вывода в коде нет —
+            // драйвер PostgreSQL с 42.6 тоже использует ReentrantLock. Закрепления можно отследить
+            // флагом -Djdk.tracePinnedThreads=short
+            tomcat.getConnector().getProtocolHandler().setExecutor(new VirtualThreadExecutor("later-http-"));
+        }
 
         Context tomcatContext = tomcat.addContext("", null);
 
         AnnotationConfigWebApplicationContext context = new AnnotationConfigWebApplicationContext();
         context.setServletContext(tomcatContext.getServletContext());
+        // режим потоков нужен и бинам: от него зависит, ограничивать ли соединения с БД (PersistenceConfig)
+        context.getEnvironment().getPropertySources().addFirst(new MapPropertySource("server",
+                Map.of("server.threads", threadMode.name().toLowerCase(Locale.ROOT))));
         context.scan("ru.practicum");
         context.refresh();
 
+        // замер задержек стоит перед DispatcherServlet и видит запрос целиком, включая асинхронную часть
+        FilterDef metricsFilter = new FilterDef();
+        metricsFilter.setFilterName("metrics");
+        metricsFilter.setFilter(context.getBean(MetricsFilter.class));
+        metricsFilter.setAsyncSupported("true");
+        tomcatContext.addFilterDef(metricsFilter);
+        FilterMap metricsMapping = new FilterMap();
+        metricsMapping.setFilterName("metrics");
+        metricsMapping.addURLPattern("/*");
+        tomcatContext.addFilterMap(metricsMapping);
+
+        // предел одновременных запросов — после замера, чтобы отклонённые 503 тоже были видны в метриках
+        FilterDef limitFilter = new FilterDef();
+        limitFilter.setFilterName("concurrencyLimit");
+        limitFilter.setFilter(context.getBean(ConcurrencyLimitFilter.class));
+        limitFilter.setAsyncSupported("true");
+        tomcatContext.addFilterDef(limitFilter);
+        FilterMap limitMapping = new FilterMap();
+        limitMapping.setFilterName("concurrencyLimit");
+        limitMapping.addURLPattern("/*");
+        tomcatContext.addFilterMap(limitMapping);
+
         DispatcherServlet dispatcherServlet = new DispatcherServlet(context);
 
         Wrapper dispatcherWrapper = Tomcat.addServlet(tomcatContext, "dispatcher", dispatcherServlet);
         dispatcherWrapper.addMapping("/");
         dispatcherWrapper.setLoadOnStartup(1);
+        // контроллеры медленных операций возвращают CompletableFuture и отпускают поток Tomcat
+        dispatcherWrapper.setAsyncSupported(true);
+
+        try {
+            tomcat.start();
+        } catch (LifecycleException e) {
+            context.close();
+            throw e;
+        }
+        return new Server(tomcat, context);
+    }
+
+    // запущенный узел: закрытие останавливает Tomcat, а затем контекст Spring с его пулами,
+    // фоновыми задачами и подпиской на шину инвалидации
+    record Server(Tomcat tomcat, ConfigurableApplicationContext context) implements AutoCloseable {
+        @Override
+        public void close() throws LifecycleException {
+            try {
+                tomcat.stop();
+                tomcat.destroy();
+            } finally {
+                context.close();
+            }
+        }
+    }
 
-        tomcat.start();
+    enum ThreadMode {
+        PLATFORM,
+        VIRTUAL
     }
 }
\ No newline at end of file
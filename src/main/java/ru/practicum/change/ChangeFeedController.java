@@ -0,0 +1,26 @@
+package ru.practicum.change;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import ru.practicum.change.dto.ChangeFeedDto;
+
+@RestController
+@RequestMapping("/items/changes")
+@RequiredArgsConstructor
+public class ChangeFeedController {
+    private final ChangeFeedService changeFeedService;
+
+    @GetMapping
+    public ChangeFeedDto getChanges(
+            @RequestHeader("X-Later-User-Id") long userId,
+            @RequestParam(name = "since", required = false) String since,
+            @RequestParam(name = "limit", defaultValue = "500") int limit
+    ) {
+        // возвращает изменения ссылок и заметок после курсора; nextCursor передаётся в следующий запрос
+        return changeFeedService.getChanges(userId, since, limit);
+    }
+}
@@ -0,0 +1,8 @@
+package ru.practicum.change;
+
+import ru.practicum.change.dto.ChangeFeedDto;
+
+public interface ChangeFeedService {
+
+    ChangeFeedDto getChanges(long userId, String since, int limit);
+}
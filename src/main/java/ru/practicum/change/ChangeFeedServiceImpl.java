@@ -0,0 +1,116 @@
+package ru.practicum.change;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.change.dto.ChangeDto;
+import ru.practicum.change.dto.ChangeFeedDto;
+import ru.practicum.common.BadRequestException;
+import ru.practicum.item.ItemService;
+import ru.practicum.item.dto.ItemDto;
+import ru.practicum.note.ItemNoteMapper;
+import ru.practicum.note.ItemNoteRepository;
+import ru.practicum.note.dto.ItemNoteDto;
+
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+@Service
+@RequiredArgsConstructor
+class ChangeFeedServiceImpl implements ChangeFeedService {
+    private static final int MAX_LIMIT = 1000;
+    private static final DateTimeFormatter dtFormatter = DateTimeFormatter
+            .ofPattern("yyyy.MM.dd HH:mm:ss")
+            .withZone(ZoneOffset.UTC);
+
+    private final ItemChangeRepository itemChangeRepository;
+    private final ItemService itemService;
+    private final ItemNoteRepository itemNoteRepository;
+
+    @Override
+    @Transactional(readOnly = true)
+    public ChangeFeedDto getChanges(long userId, String since, int limit) {
+        long[] cursor = parseCursor(since);
+        int pageSize = Math.min(Math.max(limit, 1), MAX_LIMIT);
+        List<ItemChange> page = itemChangeRepository.findSince(userId, cursor[0], cursor[1], pageSize);
+        if (page.isEmpty()) {
+            return ChangeFeedDto.of(List.of(), formatCursor(cursor[0], cursor[1]), false);
+        }
+
+        // внутри страницы клиенту достаточно последнего изменения каждой сущности
+        Map<String, ItemChange> latest = new LinkedHashMap<>();
+        for (ItemChange change : page) {
+            String key = change.getEntityType() + ":" + change.getEntityId();
+            latest.remove(key);
+            latest.put(key, change);
+        }
+
+        List<Long> itemIds = upsertedIds(latest, ItemChange.EntityType.ITEM);
+        List<Long> noteIds = upsertedIds(latest, ItemChange.EntityType.NOTE);
+        Map<Long, ItemDto> items = itemIds.isEmpty() ? Map.of() : itemService.getItemsByIds(userId, itemIds).stream()
+                .collect(Collectors.toMap(ItemDto::getId, Function.identity()));
+        Map<Long, ItemNoteDto> notes = noteIds.isEmpty() ? Map.of() : itemNoteRepository.findAllByIdInAndItemUserId(noteIds, userId).stream()
+                .map(ItemNoteMapper::mapToDto)
+                .collect(Collectors.toMap(ItemNoteDto::getId, Function.identity()));
+
+        List<ChangeDto> changes = new ArrayList<>(latest.size());
+        for (ItemChange change : latest.values()) {
+            ChangeDto.ChangeDtoBuilder dto = ChangeDto.builder()
+                    .type(change.getEntityType())
+                    .operation(change.getOperation())
+                    .id(change.getEntityId())
+                    .changedAt(dtFormatter.format(change.getChangedAt()));
+            if (change.getOperation() == ItemChange.Operation.UPSERT) {
+                // сущность могла быть удалена позже — её надгробие придёт в одной из следующих страниц
+                if (change.getEntityType() == ItemChange.EntityType.ITEM) {
+                    if (!items.containsKey(change.getEntityId())) {
+                        continue;
+                    }
+                    dto.item(items.get(change.getEntityId()));
+                } else {
+                    if (!notes.containsKey(change.getEntityId())) {
+                        continue;
+                    }
+                    dto.note(notes.get(change.getEntityId()));
+                }
+            }
+            changes.add(dto.build());
+        }
+
+        ItemChange last = page.getLast();
+        return ChangeFeedDto.of(changes, formatCursor(last.getTxId(), last.getId()), page.size() == pageSize);
+    }
+
+    private List<Long> upsertedIds(Map<String, ItemChange> changes, ItemChange.EntityType type) {
+        return changes.values().stream()
+                .filter(change -> change.getEntityType() == type)
+                .filter(change -> change.getOperation() == ItemChange.Operation.UPSERT)
+                .map(ItemChange::getEntityId)
+                .toList();
+    }
+
+    private long[] parseCursor(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return new long[]{0, 0};
+        }
+        String[] parts = cursor.split("\\.");
+        try {
+            if (parts.length != 2) {
+                throw new NumberFormatException(cursor);
+            }
+            return new long[]{Long.parseLong(parts[0]), Long.parseLong(parts[1])};
+        } catch (NumberFormatException e) {
+            throw new BadRequestException("errors.400.changes.cursor");
+        }
+    }
+
+    private String formatCursor(long txId, long id) {
+        return txId + "." + id;
+    }
+}
@@ -0,0 +1,59 @@
+package ru.practicum.change;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.ToString;
+
+import java.time.Instant;
+
+// Запись журнала изменений (transactional outbox): пишется в той же транзакции, что и само изменение.
+// Курсором служит пара (tx_id, id): см. ItemChangeRepository.findSince.
+@Getter
+@Setter
+@Entity
+@ToString
+@Table(name = "item_changes", schema = "public",
+        indexes = @Index(name = "ix_item_changes_user_cursor", columnList = "user_id, tx_id, id"))
+public class ItemChange {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "entity_type", nullable = false)
+    private EntityType entityType;
+
+    @Column(name = "entity_id", nullable = false)
+    private Long entityId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "operation", nullable = false)
+    private Operation operation;
+
+    @Column(name = "tx_id", nullable = false)
+    private Long txId;
+
+    @Column(name = "changed_at", nullable = false)
+    private Instant changedAt;
+
+    public enum EntityType {
+        ITEM, NOTE
+    }
+
+    public enum Operation {
+        UPSERT, DELETE
+    }
+}
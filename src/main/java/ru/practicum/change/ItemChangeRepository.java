@@ -0,0 +1,21 @@
+package ru.practicum.change;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+
+import java.util.List;
+
+public interface ItemChangeRepository extends JpaRepository<ItemChange, Long>, ItemChangeRepositoryCustom {
+
+    // Отдаём только записи транзакций старше самой старой из ещё выполняющихся (xmin снимка):
+    // все они уже завершены, а любая будущая запись получит tx_id не меньше xmin,
+    // поэтому при упорядочивании по (tx_id, id) курсор никогда не перескочит незакоммиченную запись.
+    @Query(value = "SELECT * FROM item_changes c " +
+                   "WHERE c.user_id = ?1 " +
+                   "  AND (c.tx_id, c.id) > (?2, ?3) " +
+                   "  AND c.tx_id < CAST(CAST(pg_snapshot_xmin(pg_current_snapshot()) AS text) AS bigint) " +
+                   "ORDER BY c.tx_id, c.id " +
+                   "LIMIT ?4",
+            nativeQuery = true)
+    List<ItemChange> findSince(long userId, long txId, long id, int limit);
+}
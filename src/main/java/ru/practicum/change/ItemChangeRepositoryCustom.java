@@ -0,0 +1,15 @@
+package ru.practicum.change;
+
+import java.util.Collection;
+
+public interface ItemChangeRepositoryCustom {
+
+    // записывает изменения только тех ссылок, которые принадлежат пользователю;
+    // удаления нужно записывать до самого удаления
+    void appendItemChanges(long userId, Collection<Long> itemIds, ItemChange.Operation operation);
+
+    // заметки удаляются каскадом вместе со ссылками, поэтому их надгробия пишутся отдельно
+    void appendNoteDeletesForItems(long userId, Collection<Long> itemIds);
+
+    void appendNoteChange(long userId, long noteId, ItemChange.Operation operation);
+}
@@ -0,0 +1,75 @@
+package ru.practicum.change;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.hibernate.Session;
+
+import java.sql.Array;
+import java.sql.PreparedStatement;
+import java.util.Collection;
+
+class ItemChangeRepositoryCustomImpl implements ItemChangeRepositoryCustom {
+    private static final String APPEND_ITEM_CHANGES = """
+            INSERT INTO item_changes (user_id, entity_type, entity_id, operation, tx_id, changed_at)
+            SELECT i.user_id, 'ITEM', i.id, ?, pg_current_xact_id()::text::bigint, now()
+            FROM items i
+            WHERE i.user_id = ? AND i.id = ANY(?)
+            """;
+
+    private static final String APPEND_NOTE_DELETES_FOR_ITEMS = """
+            INSERT INTO item_changes (user_id, entity_type, entity_id, operation, tx_id, changed_at)
+            SELECT i.user_id, 'NOTE', n.id, 'DELETE', pg_current_xact_id()::text::bigint, now()
+            FROM item_notes n
+            JOIN items i ON i.id = n.item_id
+            WHERE i.user_id = ? AND i.id = ANY(?)
+            """;
+
+    private static final String APPEND_NOTE_CHANGE = """
+            INSERT INTO item_changes (user_id, entity_type, entity_id, operation, tx_id, changed_at)
+            VALUES (?, 'NOTE', ?, ?, pg_current_xact_id()::text::bigint, now())
+            """;
+
+    @PersistenceContext
+    private EntityManager em;
+
+    @Override
+    public void appendItemChanges(long userId, Collection<Long> itemIds, ItemChange.Operation operation) {
+        em.unwrap(Session.class).doWork(connection -> {
+            Array ids = connection.createArrayOf("bigint", itemIds.toArray());
+            try (PreparedStatement ps = connection.prepareStatement(APPEND_ITEM_CHANGES)) {
+                ps.setString(1, operation.name());
+                ps.setLong(2, userId);
+                ps.setArray(3, ids);
+                ps.executeUpdate();
+            } finally {
+                ids.free();
+            }
+        });
+    }
+
+    @Override
+    public void appendNoteDeletesForItems(long userId, Collection<Long> itemIds) {
+        em.unwrap(Session.class).doWork(connection -> {
+            Array ids = connection.createArrayOf("bigint", itemIds.toArray());
+            try (PreparedStatement ps = connection.prepareStatement(APPEND_NOTE_DELETES_FOR_ITEMS)) {
+                ps.setLong(1, userId);
+                ps.setArray(2, ids);
+                ps.executeUpdate();
+            } finally {
+                ids.free();
+            }
+        });
+    }
+
+    @Override
+    public void appendNoteChange(long userId, long noteId, ItemChange.Operation operation) {
+        em.unwrap(Session.class).doWork(connection -> {
+            try (PreparedStatement ps = connection.prepareStatement(APPEND_NOTE_CHANGE)) {
+                ps.setLong(1, userId);
+                ps.setLong(2, noteId);
+                ps.setString(3, operation.name());
+                ps.executeUpdate();
+            }
+        });
+    }
+}
@@ -0,0 +1,21 @@
+package ru.practicum.change.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.Builder;
+import lombok.Getter;
+import ru.practicum.change.ItemChange;
+import ru.practicum.item.dto.ItemDto;
+import ru.practicum.note.dto.ItemNoteDto;
+
+@Getter
+@Builder
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class ChangeDto {
+    private final ItemChange.EntityType type;
+    private final ItemChange.Operation operation;
+    private final Long id;
+    private final String changedAt;
+    // заполнено только для UPSERT: текущее состояние сущности
+    private final ItemDto item;
+    private final ItemNoteDto note;
+}
@@ -0,0 +1,14 @@
+package ru.practicum.change.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.List;
+
+@Getter
+@AllArgsConstructor(staticName = "of")
+public class ChangeFeedDto {
+    private final List<ChangeDto> changes;
+    private final String nextCursor;
+    private final boolean hasMore;
+}
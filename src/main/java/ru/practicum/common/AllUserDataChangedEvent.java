@@ -0,0 +1,6 @@
+package ru.practicum.common;
+
+// Публикуется, когда узел мог пропустить изменения других узлов (например, после переподключения
+// шины инвалидации). Слушатели сбрасывают кэши всех пользователей.
+public record AllUserDataChangedEvent() {
+}
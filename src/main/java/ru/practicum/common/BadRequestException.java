@@ -0,0 +1,9 @@
+package ru.practicum.common;
+
+import org.springframework.http.HttpStatus;
+
+public class BadRequestException extends LaterCommonException {
+    public BadRequestException(String message) {
+        super(HttpStatus.BAD_REQUEST, message);
+    }
+}
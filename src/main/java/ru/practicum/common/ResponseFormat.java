@@ -0,0 +1,57 @@
+package ru.practicum.common;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.web.HttpMediaTypeNotAcceptableException;
+
+import java.io.UncheckedIOException;
+import java.util.Arrays;
+import java.util.List;
+
+// Представления ответов, которые сериализуются заранее (кэш GET /items). Остальные контроллеры
+// выбирают те же форматы через конвертеры Spring MVC, настройки ObjectMapper у них совпадают.
+// CBOR и Smile кодируют те же DTO, но быстрее и компактнее JSON: имена полей и числа пишутся в двоичном виде.
+public enum ResponseFormat {
+    JSON(MediaType.APPLICATION_JSON, Jackson2ObjectMapperBuilder.json().build()),
+    CBOR(MediaType.parseMediaType("application/cbor"), Jackson2ObjectMapperBuilder.cbor().build()),
+    SMILE(MediaType.parseMediaType("application/x-jackson-smile"), Jackson2ObjectMapperBuilder.smile().build());
+
+    private final MediaType mediaType;
+    private final ObjectMapper mapper;
+
+    ResponseFormat(MediaType mediaType, ObjectMapper mapper) {
+        this.mediaType = mediaType;
+        this.mapper = mapper;
+    }
+
+    public MediaType getMediaType() {
+        return mediaType;
+    }
+
+    public ObjectMapper getMapper() {
+        return mapper;
+    }
+
+    public byte[] write(Object value) {
+        try {
+            return mapper.writeValueAsBytes(value);
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // accepted — типы из Accept в порядке предпочтения клиента (ContentNegotiationManager);
+    // при */* или без заголовка выбирается JSON
+    public static ResponseFormat negotiate(List<MediaType> accepted) throws HttpMediaTypeNotAcceptableException {
+        for (MediaType type : accepted) {
+            for (ResponseFormat format : values()) {
+                if (type.isCompatibleWith(format.mediaType)) {
+                    return format;
+                }
+            }
+        }
+        throw new HttpMediaTypeNotAcceptableException(Arrays.stream(values()).map(ResponseFormat::getMediaType).toList());
+    }
+}
@@ -0,0 +1,12 @@
+package ru.practicum.common;
+
+// Публикуется при любом изменении данных пользователя (ссылок, тегов, заметок).
+// Слушатели обрабатывают его после коммита (@TransactionalEventListener) и сбрасывают свои кэши.
+// remote = true — изменение сделано на другом узле и пришло через шину инвалидации;
+// такое событие дальше не рассылается, а инкрементально поддерживаемые структуры сбрасываются целиком.
+public record UserDataChangedEvent(long userId, boolean remote) {
+
+    public UserDataChangedEvent(long userId) {
+        this(userId, false);
+    }
+}
@@ -0,0 +1,73 @@
+package ru.practicum.common;
+
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// Версия данных пользователя: увеличивается после коммита любого его изменения (UserDataChangedEvent).
+// Из версии и адреса запроса строится ETag списков, поэтому If-None-Match проверяется
+// до обращения к базе и сериализации.
+@Component
+public class UserDataVersions {
+    // версии хранятся по полосам: совпавшая полоса даёт лишний ответ 200, но не ложный 304
+    private static final int STRIPES = 16384;
+
+    // счётчики живут в памяти узла — после перезапуска ETag, выданные прежним процессом, не совпадут
+    private volatile long epoch = ThreadLocalRandom.current().nextLong();
+    private final AtomicLongArray versions = new AtomicLongArray(STRIPES);
+
+    public long getVersion(long userId) {
+        return versions.get(stripe(userId));
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onUserDataChanged(UserDataChangedEvent event) {
+        versions.incrementAndGet(stripe(event.userId()));
+    }
+
+    // узел мог пропустить изменения — новая эпоха делает недействительными все выданные ETag
+    @EventListener
+    public void onAllUserDataChanged(AllUserDataChangedEvent event) {
+        epoch = ThreadLocalRandom.current().nextLong();
+    }
+
+    // Версия читается до запроса данных: если изменение закоммитится во время чтения,
+    // ответ получит старую версию и следующий опрос просто вернёт 200.
+    // Возвращает true, если ответ 304 уже выставлен и тело формировать не нужно.
+    public boolean checkNotModified(long userId, ServletWebRequest webRequest) {
+        return webRequest.checkNotModified(etag(userId, webRequest.getRequest()));
+    }
+
+    String etag(long userId, HttpServletRequest request) {
+        long hash = fnv1a(request.getRequestURI());
+        hash = fnv1a(hash, request.getQueryString());
+        hash = fnv1a(hash, request.getHeader(HttpHeaders.ACCEPT));
+        return "\"" + Long.toHexString(epoch) + "-" + Long.toHexString(userId) + "-"
+                + Long.toHexString(getVersion(userId)) + "-" + Long.toHexString(hash) + "\"";
+    }
+
+    private static long fnv1a(String value) {
+        return fnv1a(0xcbf29ce484222325L, value);
+    }
+
+    private static long fnv1a(long hash, String value) {
+        if (value != null) {
+            for (byte b : value.getBytes(StandardCharsets.UTF_8)) {
+                hash = (hash ^ (b & 0xff)) * 0x100000001b3L;
+            }
+        }
+        // разделитель, чтобы "a" + "bc" и "ab" + "c" давали разные хэши
+        return (hash ^ 0xff) * 0x100000001b3L;
+    }
+
+    private static int stripe(long userId) {
+        return (int) Math.floorMod(userId, (long) STRIPES);
+    }
+}
@@ -3,11 +3,16 @@ package ru.practicum.common.advice;
 import lombok.RequiredArgsConstructor;
 import org.springframework.context.MessageSource;
 import org.springframework.context.i18n.LocaleContextHolder;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ProblemDetail;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
 import ru.practicum.common.LaterCommonException;
 
+import java.util.concurrent.RejectedExecutionException;
+
 @RestControllerAdvice
 @RequiredArgsConstructor
 public class GlobalExceptionHandler {
@@ -19,4 +24,13 @@ public class GlobalExceptionHandler {
         String localizedMessage = messageSource.getMessage(e.getMessage(), EMPTY_ARGS, e.getMessage(), LocaleContextHolder.getLocale());
         return ProblemDetail.forStatusAndDetail(e.getHttpStatus(), localizedMessage);
     }
+
+    // очередь медленных запросов заполнена — клиенту лучше повторить позже, чем ждать
+    @ExceptionHandler(RejectedExecutionException.class)
+    public ResponseEntity<ProblemDetail> handleRejectedExecutionException(RejectedExecutionException e) {
+        String localizedMessage = messageSource.getMessage("errors.503.busy", EMPTY_ARGS, LocaleContextHolder.getLocale());
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body(ProblemDetail.forStatusAndDetail(HttpStatus.SERVICE_UNAVAILABLE, localizedMessage));
+    }
 }
@@ -1,9 +1,38 @@
 package ru.practicum.config;
 
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.PropertySource;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
 
 @Configuration
+@EnableScheduling
 @PropertySource("classpath:/application.properties")
 public class AppConfig {
-}
\ No newline at end of file
+
+    // фоновые задачи (очередь получения метаданных, обновление, сверка счётчиков) не должны ждать друг друга
+    @Bean
+    public TaskScheduler taskScheduler(@Value("${scheduler.pool-size:4}") int poolSize) {
+        ThreadPoolTaskScheduler scheduler = new ThreadPoolTaskScheduler();
+        scheduler.setPoolSize(poolSize);
+        scheduler.setThreadNamePrefix("later-scheduler-");
+        return scheduler;
+    }
+
+    // медленные запросы (получение метаданных, массовые операции) выполняются здесь, а поток Tomcat
+    // сразу возвращается в пул. Очередь ограничена: когда она заполнена, запрос отклоняется с 503
+    @Bean
+    public ThreadPoolTaskExecutor requestExecutor(@Value("${async.pool-size:16}") int poolSize,
+                                                  @Value("${async.queue-capacity:200}") int queueCapacity) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(poolSize);
+        executor.setMaxPoolSize(poolSize);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("later-async-");
+        return executor;
+    }
+}
@@ -4,6 +4,7 @@ import jakarta.persistence.EntityManagerFactory;
 import lombok.RequiredArgsConstructor;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.DependsOn;
 import org.springframework.core.env.Environment;
 import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
 import org.springframework.jdbc.datasource.DriverManagerDataSource;
@@ -30,7 +31,26 @@ public class PersistenceConfig {
         dataSource.setUsername(environment.getRequiredProperty("jdbc.username"));
         dataSource.setPassword(environment.getRequiredProperty("jdbc.password"));
 
-        return dataSource;
+        // на пуле потоков Tomcat число одновременных соединений и так ограничено числом потоков, и предел
+        // включается только явно заданным jdbc.max-connections; на виртуальных потоках (server.threads=virtual,
+        // см. LaterApplication) других ограничений нет, поэтому там предел действует всегда
+        DataSource target = dataSource;
+        if ("virtual".equalsIgnoreCase(environment.getProperty("server.threads", "platform"))
+                || environment.containsProperty("jdbc.max-connections")) {
+            target = new ConnectionLimitingDataSource(dataSource,
+                    environment.getProperty("jdbc.max-connections", Integer.class, 20),
+                    environment.getProperty("jdbc.connection-timeout-ms", Long.class, 30000L));
+        }
+        // превышение бюджета запросов — предупреждение в лог и метрика; тесты подписываются на нарушения
+        return new StatementTrackingDataSource(target,
+                environment.getProperty("db.slow-query-ms", Long.class, 200L),
+                environment.getProperty("db.statement-budget", Integer.class, 50));
+    }
+
+    // миграции выполняются до того, как Hibernate проверит схему
+    @Bean(initMethod = "migrate")
+    SchemaMigrator schemaMigrator(DataSource dataSource) {
+        return new SchemaMigrator(dataSource);
     }
 
     private Properties hibernateProperties() {
@@ -40,11 +60,17 @@ public class PersistenceConfig {
         properties.put("hibernate.format_sql", true);
         properties.put("hibernate.dialect", environment.getProperty("hibernate.dialect"));
         properties.put("hibernate.hbm2ddl.auto", environment.getProperty("hibernate.hbm2ddl.auto", "validate"));
+        // размер порции строк, которую драйвер забирает за один round trip при чтении результата
+        properties.put("hibernate.jdbc.fetch_size", environment.getProperty("hibernate.jdbc.fetch_size", "100"));
+        // счётчики Hibernate выгружаются в /metrics; построчный отчёт о каждой сессии в лог не нужен
+        properties.put("hibernate.generate_statistics", environment.getProperty("hibernate.generate_statistics", "true"));
+        properties.put("hibernate.session.events.log", "false");
 
         return properties;
     }
 
     @Bean
+    @DependsOn("schemaMigrator")
     public LocalContainerEntityManagerFactoryBean entityManagerFactory(DataSource dataSource) {
         // связывает интерфейсы JPA и их реализацию внутри фреймворка
         final HibernateJpaVendorAdapter vendorAdapter = new HibernateJpaVendorAdapter();
@@ -0,0 +1,128 @@
+package ru.practicum.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+// Применяет SQL-миграции из classpath:db/migration (V<версия>__<описание>.sql) по возрастанию версии.
+// В продакшене Hibernate схему только проверяет (hbm2ddl.auto=validate), а update не добавляет
+// в существующие таблицы ни ограничений, ни каскадов — поэтому всё, на что опирается код
+// (уникальные ключи для ON CONFLICT, ON DELETE CASCADE, новые таблицы), создаётся здесь.
+// Каждая миграция выполняется в своей транзакции вместе с записью в schema_migrations;
+// узлы, стартующие одновременно, ждут друг друга на advisory-блокировке.
+@Slf4j
+class SchemaMigrator {
+    private static final String LOCATION = "classpath:db/migration/V*__*.sql";
+    private static final Pattern FILE_NAME = Pattern.compile("V(\\d+)__(\\w+)\\.sql");
+    // ключ блокировки общий для всех узлов приложения
+    private static final long LOCK_KEY = 0x4c61746572L;
+
+    private static final String CREATE_HISTORY = """
+            CREATE TABLE IF NOT EXISTS schema_migrations (
+                version     integer PRIMARY KEY,
+                description varchar(255) NOT NULL,
+                applied_at  timestamp(6) with time zone NOT NULL DEFAULT now()
+            )
+            """;
+
+    private final DataSource dataSource;
+
+    SchemaMigrator(DataSource dataSource) {
+        this.dataSource = dataSource;
+    }
+
+    void migrate() {
+        List<Migration> migrations = load();
+        try (Connection connection = dataSource.getConnection()) {
+            execute(connection, "SELECT pg_advisory_lock(" + LOCK_KEY + ")");
+            try {
+                execute(connection, CREATE_HISTORY);
+                Set<Integer> applied = appliedVersions(connection);
+                for (Migration migration : migrations) {
+                    if (!applied.contains(migration.version())) {
+                        apply(connection, migration);
+                    }
+                }
+            } finally {
+                execute(connection, "SELECT pg_advisory_unlock(" + LOCK_KEY + ")");
+            }
+        } catch (SQLException e) {
+            throw new IllegalStateException("Failed to migrate the database schema", e);
+        }
+    }
+
+    private static List<Migration> load() {
+        try {
+            List<Migration> migrations = new ArrayList<>();
+            for (Resource resource : new PathMatchingResourcePatternResolver().getResources(LOCATION)) {
+                Matcher matcher = FILE_NAME.matcher(resource.getFilename());
+                if (!matcher.matches()) {
+                    throw new IllegalStateException("Unexpected migration file name: " + resource.getFilename());
+                }
+                migrations.add(new Migration(Integer.parseInt(matcher.group(1)), matcher.group(2),
+                        resource.getContentAsString(StandardCharsets.UTF_8)));
+            }
+            migrations.sort(Comparator.comparingInt(Migration::version));
+            return migrations;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static Set<Integer> appliedVersions(Connection connection) throws SQLException {
+        Set<Integer> versions = new HashSet<>();
+        try (Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery("SELECT version FROM schema_migrations")) {
+            while (rs.next()) {
+                versions.add(rs.getInt(1));
+            }
+        }
+        return versions;
+    }
+
+    // драйвер PostgreSQL сам разбивает скрипт на команды и понимает $$-строки блоков DO
+    private static void apply(Connection connection, Migration migration) throws SQLException {
+        connection.setAutoCommit(false);
+        try (Statement statement = connection.createStatement();
+             PreparedStatement history = connection.prepareStatement(
+                     "INSERT INTO schema_migrations (version, description) VALUES (?, ?)")) {
+            statement.execute(migration.script());
+            history.setInt(1, migration.version());
+            history.setString(2, migration.description());
+            history.executeUpdate();
+            connection.commit();
+            log.info("Applied schema migration V{} {}", migration.version(), migration.description());
+        } catch (SQLException | RuntimeException e) {
+            connection.rollback();
+            throw e;
+        } finally {
+            connection.setAutoCommit(true);
+        }
+    }
+
+    private static void execute(Connection connection, String sql) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute(sql);
+        }
+    }
+
+    private record Migration(int version, String description, String script) {
+    }
+}
@@ -0,0 +1,29 @@
+package ru.practicum.config;
+
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+// Нормализованный текст запроса: литералы заменены на ?, списки IN (?, ?, ...) свёрнуты,
+// пробелы схлопнуты. Запросы, отличающиеся только значениями, получают один отпечаток,
+// поэтому по нему медленные запросы и N+1 группируются в логе.
+final class SqlFingerprint {
+    private static final Pattern STRING_LITERAL = Pattern.compile("'(?:[^']|'')*'");
+    private static final Pattern NUMBER_LITERAL = Pattern.compile("(?<![\\w.])-?\\d+(?:\\.\\d+)?\\b");
+    private static final Pattern PARAMETER_LIST = Pattern.compile("\\(\\s*\\?(?:\\s*,\\s*\\?)*\\s*\\)");
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+    private SqlFingerprint() {
+    }
+
+    static String of(String sql) {
+        String normalized = STRING_LITERAL.matcher(sql).replaceAll("?");
+        normalized = NUMBER_LITERAL.matcher(normalized).replaceAll("?");
+        normalized = PARAMETER_LIST.matcher(normalized).replaceAll("(?)");
+        return WHITESPACE.matcher(normalized).replaceAll(" ").trim().toLowerCase(Locale.ROOT);
+    }
+
+    // короткий идентификатор отпечатка, по которому удобно искать в логе
+    static String id(String fingerprint) {
+        return String.format("%08x", fingerprint.hashCode());
+    }
+}
@@ -0,0 +1,205 @@
+package ru.practicum.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+// Замеряет каждый выполненный JDBC-запрос — и запросы Hibernate, и прямые через doWork.
+// Запрос дольше slowQueryMs пишется в лог с отпечатком (SqlFingerprint) и временем.
+// Внутри области (openScope — её открывает внешний вызов сервиса) запросы считаются; если их больше
+// бюджета, область пишет предупреждение с самым частым запросом и сообщает о нарушении слушателям
+// (addBudgetListener — так тесты проверяют отсутствие N+1). Область закрывается уже после того, как вызов
+// завершился и транзакция зафиксирована, поэтому исключений не бросает: ответ вызова остаётся прежним.
+// Замена show_sql: лог только для того, что действительно важно.
+@Slf4j
+public class StatementTrackingDataSource extends DelegatingDataSource {
+    private static final ThreadLocal<Scope> CURRENT = new ThreadLocal<>();
+
+    private final long slowQueryNanos;
+    private final int statementBudget;
+    private final List<Consumer<String>> budgetListeners = new CopyOnWriteArrayList<>();
+
+    private final LongAdder statements = new LongAdder();
+    private final LongAdder statementNanos = new LongAdder();
+    private final LongAdder slowStatements = new LongAdder();
+    private final LongAdder exceededBudgets = new LongAdder();
+
+    StatementTrackingDataSource(DataSource targetDataSource, long slowQueryMs, int statementBudget) {
+        super(targetDataSource);
+        this.slowQueryNanos = TimeUnit.MILLISECONDS.toNanos(slowQueryMs);
+        this.statementBudget = statementBudget;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return tracking(obtainTargetDataSource().getConnection());
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return tracking(obtainTargetDataSource().getConnection(username, password));
+    }
+
+    // вложенные вызовы попадают в уже открытую область и закрывать её не должны
+    public Scope openScope(String name) {
+        if (CURRENT.get() != null) {
+            return null;
+        }
+        Scope scope = new Scope(name);
+        CURRENT.set(scope);
+        return scope;
+    }
+
+    public long getStatementCount() {
+        return statements.sum();
+    }
+
+    public double getStatementSeconds() {
+        return statementNanos.sum() / (double) TimeUnit.SECONDS.toNanos(1);
+    }
+
+    public long getSlowStatementCount() {
+        return slowStatements.sum();
+    }
+
+    public long getExceededBudgetCount() {
+        return exceededBudgets.sum();
+    }
+
+    // слушатель получает то же сообщение о превышении бюджета, что пишется в лог
+    public void addBudgetListener(Consumer<String> listener) {
+        budgetListeners.add(listener);
+    }
+
+    public void removeBudgetListener(Consumer<String> listener) {
+        budgetListeners.remove(listener);
+    }
+
+    private Connection tracking(Connection connection) {
+        return proxy(Connection.class, connection, (method, args) -> {
+            Object result = method.invoke(connection, args);
+            if (result instanceof CallableStatement statement) {
+                return tracking(CallableStatement.class, statement, (String) args[0]);
+            }
+            if (result instanceof PreparedStatement statement) {
+                return tracking(PreparedStatement.class, statement, (String) args[0]);
+            }
+            if (result instanceof Statement statement) {
+                return tracking(Statement.class, statement, null);
+            }
+            return result;
+        });
+    }
+
+    // у PreparedStatement текст известен при подготовке, у Statement приходит в execute*(sql)
+    private <T extends Statement> T tracking(Class<T> type, T statement, String preparedSql) {
+        return proxy(type, statement, (method, args) -> {
+            if (!method.getName().startsWith("execute")) {
+                return method.invoke(statement, args);
+            }
+            String sql = preparedSql != null ? preparedSql
+                    : args != null && args.length > 0 && args[0] instanceof String text ? text : "<batch>";
+            long start = System.nanoTime();
+            try {
+                return method.invoke(statement, args);
+            } finally {
+                record(sql, System.nanoTime() - start);
+            }
+        });
+    }
+
+    private void record(String sql, long nanos) {
+        statements.increment();
+        statementNanos.add(nanos);
+        if (nanos >= slowQueryNanos) {
+            slowStatements.increment();
+            String fingerprint = SqlFingerprint.of(sql);
+            log.warn("Slow query {} ms [{}]: {}", TimeUnit.NANOSECONDS.toMillis(nanos),
+                    SqlFingerprint.id(fingerprint), fingerprint);
+        }
+        Scope scope = CURRENT.get();
+        if (scope != null) {
+            scope.record(sql);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T proxy(Class<T> type, T target, Invocation invocation) {
+        return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, (proxy, method, args) -> {
+            if (method.getName().equals("unwrap") && args != null && args[0] instanceof Class<?> iface
+                    && iface.isInstance(target)) {
+                return target;
+            }
+            try {
+                return invocation.invoke(method, args);
+            } catch (InvocationTargetException e) {
+                throw e.getTargetException();
+            }
+        });
+    }
+
+    @FunctionalInterface
+    private interface Invocation {
+        Object invoke(Method method, Object[] args) throws Throwable;
+    }
+
+    public class Scope implements AutoCloseable {
+        private final String name;
+        // по сырому тексту: у Hibernate он одинаков для всех вызовов одного запроса
+        private final Map<String, Integer> counts = new HashMap<>();
+        private int total;
+
+        private Scope(String name) {
+            this.name = name;
+        }
+
+        public int getStatementCount() {
+            return total;
+        }
+
+        private void record(String sql) {
+            total++;
+            counts.merge(sql, 1, Integer::sum);
+        }
+
+        @Override
+        public void close() {
+            CURRENT.remove();
+            if (total <= statementBudget) {
+                return;
+            }
+            exceededBudgets.increment();
+            Map.Entry<String, Integer> top = counts.entrySet().stream()
+                    .max(Comparator.comparingInt(Map.Entry::getValue))
+                    .orElseThrow();
+            String fingerprint = SqlFingerprint.of(top.getKey());
+            String message = String.format("%s executed %d statements, budget is %d; most repeated (%d times) [%s]: %s",
+                    name, total, statementBudget, top.getValue(), SqlFingerprint.id(fingerprint), fingerprint);
+            log.warn(message);
+            for (Consumer<String> listener : budgetListeners) {
+                try {
+                    listener.accept(message);
+                } catch (RuntimeException e) {
+                    log.warn("Statement budget listener failed", e);
+                }
+            }
+        }
+    }
+}
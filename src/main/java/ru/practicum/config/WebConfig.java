@@ -1,9 +1,21 @@
 package ru.practicum.config;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
 import org.springframework.web.servlet.config.annotation.EnableWebMvc;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 
 @Configuration // помечает класс как java-config для контекста приложения
 @EnableWebMvc  // призывает импортировать дополнительную конфигурацию для веб-приложений
-public class WebConfig {
-}
\ No newline at end of file
+public class WebConfig implements WebMvcConfigurer {
+
+    @Value("${async.timeout-ms:30000}")
+    private long asyncTimeoutMs;
+
+    // асинхронный запрос, не завершившийся за это время, получает 503
+    @Override
+    public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+        configurer.setDefaultTimeout(asyncTimeoutMs);
+    }
+}
@@ -0,0 +1,187 @@
+package ru.practicum.invalidation;
+
+import lombok.extern.slf4j.Slf4j;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.jdbc.datasource.DataSourceUtils;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import ru.practicum.common.AllUserDataChangedEvent;
+import ru.practicum.common.UserDataChangedEvent;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.UUID;
+import java.util.regex.Pattern;
+
+// Шина инвалидации между узлами через PostgreSQL LISTEN/NOTIFY, без отдельной инфраструктуры.
+// Локальное изменение данных пользователя отправляется pg_notify в той же транзакции, поэтому
+// PostgreSQL доставит сообщение только после коммита, а при откате не доставит вовсе.
+// Приём идёт на отдельном соединении в собственном потоке; пришедшее сообщение публикуется
+// как UserDataChangedEvent с remote = true, и локальные кэши сбрасывают данные пользователя.
+// Пока соединение было потеряно, сообщения могли пропасть — после переподключения сбрасывается всё.
+@Slf4j
+@Component
+class PgInvalidationBus implements SmartLifecycle {
+    private static final Pattern CHANNEL = Pattern.compile("[a-z_][a-z0-9_]*");
+    private static final String USER_SCOPE = "u";
+
+    private final DataSource dataSource;
+    private final ApplicationEventPublisher eventPublisher;
+    private final String url;
+    private final String username;
+    private final String password;
+    private final boolean enabled;
+    private final String channel;
+    private final int pollTimeoutMs;
+    private final long reconnectDelayMs;
+    private final String nodeId = UUID.randomUUID().toString();
+
+    private volatile boolean running;
+    private volatile boolean listening;
+    private Thread listener;
+
+    PgInvalidationBus(DataSource dataSource,
+                      ApplicationEventPublisher eventPublisher,
+                      @Value("${jdbc.url}") String url,
+                      @Value("${jdbc.username}") String username,
+                      @Value("${jdbc.password}") String password,
+                      @Value("${invalidation.enabled:true}") boolean enabled,
+                      @Value("${invalidation.channel:later_invalidation}") String channel,
+                      @Value("${invalidation.poll-timeout-ms:500}") int pollTimeoutMs,
+                      @Value("${invalidation.reconnect-delay-ms:1000}") long reconnectDelayMs) {
+        if (!CHANNEL.matcher(channel).matches()) {
+            throw new IllegalArgumentException("Invalid invalidation channel name: " + channel);
+        }
+        this.dataSource = dataSource;
+        this.eventPublisher = eventPublisher;
+        this.url = url;
+        this.username = username;
+        this.password = password;
+        this.enabled = enabled;
+        this.channel = channel;
+        this.pollTimeoutMs = pollTimeoutMs;
+        this.reconnectDelayMs = reconnectDelayMs;
+    }
+
+    // BEFORE_COMMIT: pg_notify выполняется на соединении транзакции. Одинаковые сообщения
+    // одной транзакции PostgreSQL доставляет один раз. Без транзакции сообщение уходит сразу
+    @TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT, fallbackExecution = true)
+    public void onUserDataChanged(UserDataChangedEvent event) {
+        if (!enabled || event.remote()) {
+            return;
+        }
+        notify(nodeId + ":" + USER_SCOPE + ":" + event.userId());
+    }
+
+    boolean isListening() {
+        return listening;
+    }
+
+    @Override
+    public synchronized void start() {
+        if (!enabled || running) {
+            return;
+        }
+        running = true;
+        listener = new Thread(this::listen, "later-invalidation");
+        listener.setDaemon(true);
+        listener.start();
+    }
+
+    @Override
+    public synchronized void stop() {
+        running = false;
+        if (listener != null) {
+            listener.interrupt();
+            try {
+                listener.join(pollTimeoutMs + reconnectDelayMs);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            listener = null;
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    private void notify(String payload) {
+        Connection connection = DataSourceUtils.getConnection(dataSource);
+        try (PreparedStatement statement = connection.prepareStatement("select pg_notify(?, ?)")) {
+            statement.setString(1, channel);
+            statement.setString(2, payload);
+            statement.execute();
+        } catch (SQLException e) {
+            throw new IllegalStateException("Failed to publish invalidation message", e);
+        } finally {
+            DataSourceUtils.releaseConnection(connection, dataSource);
+        }
+    }
+
+    // соединение слушателя открывается мимо пула: оно держится всё время работы узла
+    // и не должно занимать разрешение ConnectionLimitingDataSource
+    private void listen() {
+        boolean missedMessages = false;
+        while (running) {
+            try (Connection connection = DriverManager.getConnection(url, username, password)) {
+                try (Statement statement = connection.createStatement()) {
+                    statement.execute("LISTEN " + channel);
+                }
+                listening = true;
+                if (missedMessages) {
+                    log.info("Invalidation listener reconnected, dropping all local caches");
+                    eventPublisher.publishEvent(new AllUserDataChangedEvent());
+                }
+                PGConnection pgConnection = connection.unwrap(PGConnection.class);
+                while (running) {
+                    PGNotification[] notifications = pgConnection.getNotifications(pollTimeoutMs);
+                    if (notifications != null) {
+                        for (PGNotification notification : notifications) {
+                            receive(notification.getParameter());
+                        }
+                    }
+                }
+            } catch (SQLException e) {
+                if (running) {
+                    log.warn("Invalidation listener lost its connection, reconnecting in {} ms", reconnectDelayMs, e);
+                }
+            } finally {
+                listening = false;
+            }
+            missedMessages = true;
+            if (running) {
+                try {
+                    Thread.sleep(reconnectDelayMs);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    private void receive(String payload) {
+        String[] parts = payload.split(":");
+        if (parts.length != 3 || parts[0].equals(nodeId)) {
+            return;
+        }
+        if (USER_SCOPE.equals(parts[1])) {
+            try {
+                eventPublisher.publishEvent(new UserDataChangedEvent(Long.parseLong(parts[2]), true));
+            } catch (RuntimeException e) {
+                log.warn("Failed to apply invalidation message {}", payload, e);
+            }
+        }
+    }
+}
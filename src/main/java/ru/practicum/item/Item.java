@@ -8,15 +8,16 @@ import jakarta.persistence.FetchType;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
 import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
 import lombok.Getter;
 import lombok.Setter;
 import lombok.ToString;
 import ru.practicum.user.User;
 
-import java.time.Instant;
 import java.util.HashSet;
 import java.util.Set;
 
@@ -25,7 +26,10 @@ import java.util.Set;
 @Setter
 @Entity
 @ToString
-@Table(name = "items", schema = "public")
+// ограничения и индексы в существующей базе создаются миграциями db/migration, а не hbm2ddl
+@Table(name = "items", schema = "public",
+        uniqueConstraints = @UniqueConstraint(name = "uq_items_user_resolved_url", columnNames = {"user_id", "resolved_url"}),
+        indexes = @Index(name = "ix_items_url", columnList = "url"))
 public class Item {
 
     @Id
@@ -43,25 +47,19 @@ public class Item {
     @Column(name = "resolved_url", length = 1500)
     private String resolvedUrl;
 
-    @Column(name = "mime_type")
-    private String mimeType;
-
-    @Column(name = "title", length = 1000)
-    private String title;
-
-    @Column(name = "has_image")
-    private Boolean hasImage;
-
-    @Column(name = "has_video")
-    private Boolean hasVideo;
-
-    @Column(name = "date_resolved")
-    private Instant dateResolved;
+    // метаданные страницы общие для всех ссылок с этим resolved_url; сама связь задаётся колонкой resolvedUrl.
+    // Ресурс сохраняется отдельно (ItemRepository.upsert), без каскада: его могут делить ссылки разных пользователей
+    @ToString.Exclude
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "resolved_url", referencedColumnName = "resolved_url", insertable = false, updatable = false)
+    private Resource resource;
 
     private Boolean unread;
 
+    // ON DELETE CASCADE для тегов задаётся миграцией: Hibernate не принимает @OnDelete на коллекции значений
     @ElementCollection(fetch = FetchType.LAZY)
-    @CollectionTable(name = "tags", joinColumns = @JoinColumn(name = "item_id"))
+    @CollectionTable(name = "tags", joinColumns = @JoinColumn(name = "item_id"),
+            uniqueConstraints = @UniqueConstraint(name = "uq_tags_item_name", columnNames = {"item_id", "name"}))
     @Column(name = "name")
     private Set<String> tags = new HashSet<>();
 
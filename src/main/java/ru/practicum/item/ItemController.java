@@ -1,6 +1,16 @@
 package ru.practicum.item;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.web.HttpMediaTypeNotAcceptableException;
+import org.springframework.web.accept.ContentNegotiationManager;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PatchMapping;
@@ -11,42 +21,113 @@ import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.ServletWebRequest;
+import ru.practicum.common.BadRequestException;
+import ru.practicum.common.ResponseFormat;
+import ru.practicum.common.UserDataVersions;
 import ru.practicum.item.dto.AddItemRequest;
+import ru.practicum.item.dto.BulkDeleteItemResult;
+import ru.practicum.item.dto.BulkModifyItemRequest;
+import ru.practicum.item.dto.BulkModifyItemResult;
 import ru.practicum.item.dto.GetItemRequest;
 import ru.practicum.item.dto.ItemDto;
+import ru.practicum.item.dto.ItemField;
 import ru.practicum.item.dto.ModifyItemRequest;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
 import java.util.List;
-import java.util.Set;
+import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
+import java.util.zip.GZIPOutputStream;
 
 @RestController
 @RequestMapping("/items")
 @RequiredArgsConstructor
 public class ItemController {
+    private static final String NDJSON = "application/x-ndjson";
+    // сбрасывать поток после каждой строки не нужно — буферизацией занимаются Tomcat и gzip
+    private static final ObjectMapper NDJSON_MAPPER = new ObjectMapper()
+            .disable(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+    // больше за один запрос не отдаётся: вся библиотека выгружается через /items/export
+    static final int MAX_PAGE_SIZE = 500;
+
     private final ItemService itemService;
+    // добавление ждёт сайт ссылки, массовые операции — блокировки и большие UPDATE; поток Tomcat
+    // их не ждёт. Переполненная очередь даёт 503, зависший запрос — 503 по таймауту async.timeout-ms
+    private final ThreadPoolTaskExecutor requestExecutor;
+    private final ItemListCache itemListCache;
+    private final UserDataVersions userDataVersions;
+    private final ContentNegotiationManager contentNegotiationManager;
 
     @GetMapping()
-    public List<ItemDto> get(
+    public ResponseEntity<byte[]> get(
             @RequestHeader("X-Later-User-Id") long userId,
             @RequestParam(name = "state", defaultValue = "unread") String state,
             @RequestParam(name = "contentType", defaultValue = "all") String contentType,
             @RequestParam(name = "sort", defaultValue = "newest") String sort,
             @RequestParam(name = "limit", defaultValue = "10") int limit,
-            @RequestParam(name = "tags", required = false) List<String> tags
-    ) {
-        return itemService.getItems(new GetItemRequest(
+            @RequestParam(name = "tags", required = false) List<String> tags,
+            @RequestParam(name = "fields", required = false) List<String> fields,
+            ServletWebRequest webRequest
+    ) throws HttpMediaTypeNotAcceptableException {
+        // If-None-Match с актуальной версией данных пользователя — 304 без запроса к базе
+        if (userDataVersions.checkNotModified(userId, webRequest)) {
+            return null;
+        }
+        // значения параметров принимаются в любом регистре: по умолчанию state=unread, а константы — UNREAD
+        GetItemRequest request = new GetItemRequest(
                 userId,
-                GetItemRequest.State.valueOf(state),
-                GetItemRequest.ContentType.valueOf(contentType),
-                GetItemRequest.Sort.valueOf(sort),
-                limit,
-                tags));
+                GetItemRequest.State.valueOf(state.toUpperCase(Locale.ROOT)),
+                GetItemRequest.ContentType.valueOf(contentType.toUpperCase(Locale.ROOT)),
+                GetItemRequest.Sort.valueOf(sort.toUpperCase(Locale.ROOT)),
+                pageSize(limit),
+                tags,
+                ItemField.of(fields));
+        // клиенты опрашивают список с одними и теми же параметрами — отдаём уже сериализованный ответ
+        // в формате из Accept: JSON, CBOR или Smile
+        ResponseFormat format = ResponseFormat.negotiate(contentNegotiationManager.resolveMediaTypes(webRequest));
+        byte[] body = itemListCache.get(request, format, () -> format.write(itemService.getItems(request)));
+        return ResponseEntity.ok()
+                .contentType(format.getMediaType())
+                .varyBy(HttpHeaders.ACCEPT)
+                .body(body);
+    }
+
+    @GetMapping(value = "/export", produces = NDJSON)
+    public void export(
+            @RequestHeader("X-Later-User-Id") long userId,
+            @RequestParam(name = "gzip", defaultValue = "false") boolean gzip,
+            HttpServletResponse response
+    ) throws IOException {
+        response.setContentType(NDJSON);
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        OutputStream out = response.getOutputStream();
+        if (gzip) {
+            response.setHeader(HttpHeaders.CONTENT_ENCODING, "gzip");
+            out = new GZIPOutputStream(out);
+        }
+
+        try (JsonGenerator generator = NDJSON_MAPPER.getFactory().createGenerator(out)) {
+            generator.setRootValueSeparator(null);
+            itemService.exportItems(userId, item -> {
+                try {
+                    NDJSON_MAPPER.writeValue(generator, item);
+                    generator.writeRaw('\n');
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        }
     }
 
     @PostMapping
-    public ItemDto add(@RequestHeader("X-Later-User-Id") long userId,
-                       @RequestBody AddItemRequest request) {
-        return itemService.addNewItem(userId, request);
+    public CompletableFuture<ItemDto> add(@RequestHeader("X-Later-User-Id") long userId,
+                                          @RequestBody AddItemRequest request) {
+        return CompletableFuture.supplyAsync(() -> itemService.addNewItem(userId, request), requestExecutor);
     }
 
     @DeleteMapping("/{itemId}")
@@ -55,12 +136,42 @@ public class ItemController {
         itemService.deleteItem(userId, itemId);
     }
 
+    @DeleteMapping
+    public CompletableFuture<BulkDeleteItemResult> deleteItems(
+            @RequestHeader("X-Later-User-Id") long userId,
+            @RequestParam(name = "ids", required = false) List<Long> ids,
+            @RequestParam(name = "state", required = false) String state,
+            @RequestParam(name = "contentType", required = false) String contentType,
+            @RequestParam(name = "tags", required = false) List<String> tags,
+            @RequestParam(name = "resolvedBefore", required = false)
+            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant resolvedBefore
+    ) {
+        // без явного фильтра удалять всё подряд нельзя — в этом случае сервис вернёт 400
+        BulkModifyItemRequest.Filter filter = state != null || contentType != null || tags != null || resolvedBefore != null
+                ? BulkModifyItemRequest.Filter.of(
+                        state == null ? GetItemRequest.State.ALL : GetItemRequest.State.valueOf(state.toUpperCase(Locale.ROOT)),
+                        contentType == null ? GetItemRequest.ContentType.ALL : GetItemRequest.ContentType.valueOf(contentType.toUpperCase(Locale.ROOT)),
+                        tags,
+                        resolvedBefore)
+                : null;
+        return CompletableFuture.supplyAsync(() -> itemService.deleteItems(userId, ids, filter), requestExecutor);
+    }
+
+    // tag=a&tag=b — ссылки с любым из тегов; q — выражение вида "java AND (spring OR hibernate) AND NOT draft"
     @GetMapping("/by-tags")
     public List<ItemDto> getFilteredItems(
             @RequestHeader("X-Later-User-Id") long userId,
-            @RequestParam("tag") String[] tag
+            @RequestParam(name = "tag", required = false) List<String> tag,
+            @RequestParam(name = "q", required = false) String q,
+            @RequestParam(name = "from", defaultValue = "0") int from,
+            @RequestParam(name = "size", defaultValue = "10") int size,
+            ServletWebRequest webRequest
     ) {
-        return itemService.getItems(userId, Set.of(tag));
+        if (userDataVersions.checkNotModified(userId, webRequest)) {
+            return null;
+        }
+        TagExpression expression = q != null ? TagExpression.parse(q) : TagExpression.anyOf(tag);
+        return itemService.getItems(userId, expression, from, pageSize(size));
     }
 
     @PatchMapping
@@ -70,4 +181,20 @@ public class ItemController {
     ) {
         itemService.edit(userId, request);
     }
-}
\ No newline at end of file
+
+    @PatchMapping("/bulk")
+    public CompletableFuture<BulkModifyItemResult> editItems(
+            @RequestHeader("X-Later-User-Id") long userId,
+            @RequestBody BulkModifyItemRequest request
+    ) {
+        return CompletableFuture.supplyAsync(() -> itemService.editAll(userId, request), requestExecutor);
+    }
+
+    // размер страницы больше MAX_PAGE_SIZE урезается, неположительный — ошибка клиента
+    private static int pageSize(int requested) {
+        if (requested < 1) {
+            throw new BadRequestException("errors.400.items.page.size");
+        }
+        return Math.min(requested, MAX_PAGE_SIZE);
+    }
+}
@@ -0,0 +1,61 @@
+package ru.practicum.item;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Embeddable;
+import jakarta.persistence.EmbeddedId;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+
+import java.io.Serializable;
+
+// Счётчики ссылок пользователя в разрезе типа содержимого и тегов.
+// Обновляются инкрементально при каждом изменении ссылок и периодически пересчитываются целиком.
+@Getter
+@Setter
+@Entity
+@ToString
+@Table(name = "item_counters", schema = "public",
+        indexes = @Index(name = "ix_item_counters_user_id", columnList = "user_id"))
+public class ItemCounter {
+
+    @EmbeddedId
+    private Key id;
+
+    @Column(name = "total_count", nullable = false)
+    private long totalCount;
+
+    @Column(name = "unread_count", nullable = false)
+    private long unreadCount;
+
+    public enum Dimension {
+        ALL, CONTENT_TYPE, TAG
+    }
+
+    @Getter
+    @Setter
+    @ToString
+    @Embeddable
+    @EqualsAndHashCode
+    @NoArgsConstructor
+    @AllArgsConstructor(staticName = "of")
+    public static class Key implements Serializable {
+        @Column(name = "user_id", nullable = false)
+        private Long userId;
+
+        @Enumerated(EnumType.STRING)
+        @Column(name = "dimension", nullable = false)
+        private Dimension dimension;
+
+        @Column(name = "name", nullable = false)
+        private String name;
+    }
+}
@@ -0,0 +1,20 @@
+package ru.practicum.item;
+
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.QueryHints;
+
+import java.util.List;
+
+public interface ItemCounterRepository extends JpaRepository<ItemCounter, ItemCounter.Key>, ItemCounterRepositoryCustom {
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"))
+    List<ItemCounter> findAllByIdUserId(Long userId);
+
+    // холодный путь подсказок тегов: частоты уже посчитаны в счётчиках, спецсимволы LIKE в префиксе экранируются
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"))
+    List<ItemCounter> findAllByIdUserIdAndIdDimensionAndIdNameStartingWithAndTotalCountGreaterThan(
+            Long userId, ItemCounter.Dimension dimension, String prefix, long totalCount, Pageable pageable);
+}
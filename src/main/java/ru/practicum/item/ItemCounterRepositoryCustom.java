@@ -0,0 +1,16 @@
+package ru.practicum.item;
+
+import java.util.Collection;
+
+public interface ItemCounterRepositoryCustom {
+
+    // сериализует изменения счётчиков одного пользователя до конца транзакции
+    void lockUser(long userId);
+
+    // прибавляет (sign = 1) или вычитает (sign = -1) вклад перечисленных ссылок пользователя в его счётчики
+    void applyDelta(long userId, Collection<Long> itemIds, int sign);
+
+    void applyDeltaByResolvedUrl(long userId, String resolvedUrl, int sign);
+
+    void reconcile(long userId);
+}
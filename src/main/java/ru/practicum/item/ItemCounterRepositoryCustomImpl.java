@@ -0,0 +1,123 @@
+package ru.practicum.item;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.hibernate.Session;
+import ru.practicum.item.dto.GetItemRequest;
+
+import java.sql.Array;
+import java.sql.PreparedStatement;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.stream.Collectors;
+
+class ItemCounterRepositoryCustomImpl implements ItemCounterRepositoryCustom {
+    // вклад каждой ссылки: одна строка ALL, одна строка типа содержимого и по строке на каждый тег;
+    // типы классифицируются теми же префиксами mime_type, что и фильтр списка GetItemRequest.ContentType
+    private static final String CONTRIBUTIONS = """
+            SELECT i.user_id, d.dimension, d.name,
+                   count(*) AS total_count,
+                   count(*) FILTER (WHERE i.unread) AS unread_count
+            FROM items i
+            LEFT JOIN resources r ON r.resolved_url = i.resolved_url
+            CROSS JOIN LATERAL (
+                SELECT CASE %s END AS content_type
+            ) ct
+            CROSS JOIN LATERAL (
+                SELECT 'ALL', ''
+                UNION ALL
+                SELECT 'CONTENT_TYPE', ct.content_type WHERE ct.content_type IS NOT NULL
+                UNION ALL
+                SELECT 'TAG', t.name FROM tags t WHERE t.item_id = i.id
+            ) AS d(dimension, name)
+            WHERE %%s
+            GROUP BY i.user_id, d.dimension, d.name
+            """.formatted(contentTypeCases());
+
+    private static final String APPLY_DELTA = """
+            INSERT INTO item_counters (user_id, dimension, name, total_count, unread_count)
+            SELECT c.user_id, c.dimension, c.name, ? * c.total_count, ? * c.unread_count
+            FROM (%s) c
+            ON CONFLICT (user_id, dimension, name) DO UPDATE
+            SET total_count = item_counters.total_count + EXCLUDED.total_count,
+                unread_count = item_counters.unread_count + EXCLUDED.unread_count
+            """;
+
+    private static final String APPLY_DELTA_BY_IDS =
+            APPLY_DELTA.formatted(CONTRIBUTIONS.formatted("i.user_id = ? AND i.id = ANY(?)"));
+
+    private static final String APPLY_DELTA_BY_RESOLVED_URL =
+            APPLY_DELTA.formatted(CONTRIBUTIONS.formatted("i.user_id = ? AND i.resolved_url = ?"));
+
+    private static final String DELETE_USER_COUNTERS = "DELETE FROM item_counters WHERE user_id = ?";
+
+    private static final String INSERT_USER_COUNTERS = """
+            INSERT INTO item_counters (user_id, dimension, name, total_count, unread_count)
+            %s
+            """.formatted(CONTRIBUTIONS.formatted("i.user_id = ?"));
+
+    private static final String LOCK_USER = "SELECT pg_advisory_xact_lock(?)";
+
+    @PersistenceContext
+    private EntityManager em;
+
+    private static String contentTypeCases() {
+        return Arrays.stream(GetItemRequest.ContentType.values())
+                .filter(contentType -> contentType.getMimeTypePrefix() != null)
+                .map(contentType -> "WHEN r.mime_type LIKE '%s%%%%' THEN '%s'"
+                        .formatted(contentType.getMimeTypePrefix(), contentType.name()))
+                .collect(Collectors.joining(" "));
+    }
+
+    @Override
+    public void lockUser(long userId) {
+        em.unwrap(Session.class).doWork(connection -> {
+            try (PreparedStatement ps = connection.prepareStatement(LOCK_USER)) {
+                ps.setLong(1, userId);
+                ps.execute();
+            }
+        });
+    }
+
+    @Override
+    public void applyDelta(long userId, Collection<Long> itemIds, int sign) {
+        em.unwrap(Session.class).doWork(connection -> {
+            Array ids = connection.createArrayOf("bigint", itemIds.toArray());
+            try (PreparedStatement ps = connection.prepareStatement(APPLY_DELTA_BY_IDS)) {
+                ps.setInt(1, sign);
+                ps.setInt(2, sign);
+                ps.setLong(3, userId);
+                ps.setArray(4, ids);
+                ps.executeUpdate();
+            } finally {
+                ids.free();
+            }
+        });
+    }
+
+    @Override
+    public void applyDeltaByResolvedUrl(long userId, String resolvedUrl, int sign) {
+        em.unwrap(Session.class).doWork(connection -> {
+            try (PreparedStatement ps = connection.prepareStatement(APPLY_DELTA_BY_RESOLVED_URL)) {
+                ps.setInt(1, sign);
+                ps.setInt(2, sign);
+                ps.setLong(3, userId);
+                ps.setString(4, resolvedUrl);
+                ps.executeUpdate();
+            }
+        });
+    }
+
+    @Override
+    public void reconcile(long userId) {
+        em.unwrap(Session.class).doWork(connection -> {
+            try (PreparedStatement delete = connection.prepareStatement(DELETE_USER_COUNTERS);
+                 PreparedStatement insert = connection.prepareStatement(INSERT_USER_COUNTERS)) {
+                delete.setLong(1, userId);
+                delete.executeUpdate();
+                insert.setLong(1, userId);
+                insert.executeUpdate();
+            }
+        });
+    }
+}
@@ -0,0 +1,156 @@
+package ru.practicum.item;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import ru.practicum.common.AllUserDataChangedEvent;
+import ru.practicum.common.ResponseFormat;
+import ru.practicum.common.UserDataChangedEvent;
+import ru.practicum.item.dto.GetItemRequest;
+import ru.practicum.item.dto.ItemField;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Supplier;
+
+// Кэш сериализованных ответов GET /items. Ключ — пользователь, формат и нормализованные параметры запроса.
+// Все записи пользователя сбрасываются после коммита любого его изменения (UserDataChangedEvent).
+// Общий объём ограничен max-bytes, вытесняются давно не читавшиеся записи.
+@Component
+public class ItemListCache {
+    // ответ, посчитанный во время записи, мог её не увидеть — такой ответ не кэшируется
+    private static final int STRIPES = 1024;
+
+    private final long maxBytes;
+    private final long maxEntryBytes;
+    private final LinkedHashMap<Key, byte[]> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private final Map<Long, Set<Key>> keysByUser = new HashMap<>();
+    private final AtomicLongArray generations = new AtomicLongArray(STRIPES);
+    private long bytes;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+    private final AtomicLong invalidations = new AtomicLong();
+
+    public ItemListCache(@Value("${items-cache.max-bytes:67108864}") long maxBytes,
+                         @Value("${items-cache.max-entry-bytes:1048576}") long maxEntryBytes) {
+        this.maxBytes = maxBytes;
+        this.maxEntryBytes = maxEntryBytes;
+    }
+
+    public byte[] get(GetItemRequest request, ResponseFormat format, Supplier<byte[]> loader) {
+        Key key = Key.of(request, format);
+        synchronized (this) {
+            byte[] cached = entries.get(key);
+            if (cached != null) {
+                hits.incrementAndGet();
+                return cached;
+            }
+        }
+
+        misses.incrementAndGet();
+        long generation = generations.get(stripe(key.userId()));
+        byte[] body = loader.get();
+        if (body.length <= maxEntryBytes) {
+            put(key, body, generation);
+        }
+        return body;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onUserDataChanged(UserDataChangedEvent event) {
+        invalidate(event.userId());
+    }
+
+    public synchronized void invalidate(long userId) {
+        generations.incrementAndGet(stripe(userId));
+        Set<Key> keys = keysByUser.remove(userId);
+        if (keys != null) {
+            for (Key key : keys) {
+                bytes -= entries.remove(key).length;
+            }
+            invalidations.incrementAndGet();
+        }
+    }
+
+    @EventListener
+    public synchronized void onAllUserDataChanged(AllUserDataChangedEvent event) {
+        for (int i = 0; i < STRIPES; i++) {
+            generations.incrementAndGet(i);
+        }
+        invalidations.addAndGet(keysByUser.size());
+        entries.clear();
+        keysByUser.clear();
+        bytes = 0;
+    }
+
+    public synchronized Metrics getMetrics() {
+        long total = hits.get() + misses.get();
+        return new Metrics(hits.get(), misses.get(), total == 0 ? 0 : (double) hits.get() / total,
+                evictions.get(), invalidations.get(), entries.size(), bytes);
+    }
+
+    private synchronized void put(Key key, byte[] body, long generation) {
+        if (generations.get(stripe(key.userId())) != generation) {
+            return;
+        }
+        byte[] previous = entries.put(key, body);
+        bytes += body.length - (previous == null ? 0 : previous.length);
+        keysByUser.computeIfAbsent(key.userId(), id -> new HashSet<>()).add(key);
+
+        Iterator<Map.Entry<Key, byte[]>> eldest = entries.entrySet().iterator();
+        while (bytes > maxBytes && eldest.hasNext()) {
+            Map.Entry<Key, byte[]> entry = eldest.next();
+            eldest.remove();
+            bytes -= entry.getValue().length;
+            Set<Key> userKeys = keysByUser.get(entry.getKey().userId());
+            userKeys.remove(entry.getKey());
+            if (userKeys.isEmpty()) {
+                keysByUser.remove(entry.getKey().userId());
+            }
+            evictions.incrementAndGet();
+        }
+    }
+
+    private static int stripe(long userId) {
+        return (int) Math.floorMod(userId, (long) STRIPES);
+    }
+
+    // порядок и повторы тегов на результат не влияют, поэтому в ключе они отсортированы
+    private record Key(long userId,
+                       ResponseFormat format,
+                       GetItemRequest.State state,
+                       GetItemRequest.ContentType contentType,
+                       GetItemRequest.Sort sort,
+                       int limit,
+                       List<String> tags,
+                       Set<ItemField> fields) {
+
+        static Key of(GetItemRequest request, ResponseFormat format) {
+            List<String> tags = request.getTags() == null
+                    ? List.of()
+                    : request.getTags().stream().distinct().sorted().toList();
+            Set<ItemField> fields = request.getFields() == null ? Set.of() : Set.copyOf(request.getFields());
+            return new Key(request.getUserId(), format, request.getState(), request.getContentType(), request.getSort(),
+                    request.getLimit(), tags, fields);
+        }
+    }
+
+    public record Metrics(long hits,
+                          long misses,
+                          double hitRatio,
+                          long evictions,
+                          long invalidations,
+                          int entries,
+                          long bytes) {
+    }
+}
@@ -1,15 +1,20 @@
 package ru.practicum.item;
 
+import com.querydsl.core.Tuple;
 import lombok.AccessLevel;
 import lombok.NoArgsConstructor;
+import ru.practicum.metrics.MappingEvent;
 import ru.practicum.item.dto.ItemDto;
+import ru.practicum.item.dto.ItemField;
 import ru.practicum.user.User;
 
+import java.time.Instant;
 import java.time.ZoneOffset;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 @NoArgsConstructor(access = AccessLevel.PRIVATE)
@@ -23,37 +28,98 @@ final class ItemMapper {
         item.setUser(user);
         item.setUrl(result.getNormalUrl());
         item.setResolvedUrl(result.getResolvedUrl());
-        item.setMimeType(result.getMimeType());
-        item.setTitle(result.getTitle());
-        item.setHasImage(result.isHasImage());
-        item.setHasVideo(result.isHasVideo());
-        item.setDateResolved(result.getDateResolved());
+        item.setResource(mapToResource(result));
         item.setTags(tags);
         item.setUnread(Boolean.TRUE);
         return item;
     }
 
+    public static Resource mapToResource(UrlMetaDataRetriever.UrlMetadata result) {
+        Resource resource = new Resource();
+        resource.setResolvedUrl(result.getResolvedUrl());
+        resource.setMimeType(result.getMimeType());
+        resource.setTitle(result.getTitle());
+        resource.setHasImage(result.isHasImage());
+        resource.setHasVideo(result.isHasVideo());
+        resource.setDateResolved(result.getDateResolved());
+        return resource;
+    }
+
+    // ресурс без флагов (перенесён миграцией из старых строк items) считается страницей без картинок и видео;
+    // вызывающий код сам решает, что делать со ссылкой без ресурса
+    public static UrlMetaDataRetriever.UrlMetadata mapToUrlMetadata(Resource resource, String normalUrl) {
+        return UrlMetaDataRetrieverImpl.UrlMetadataImpl.builder()
+                .normalUrl(normalUrl)
+                .resolvedUrl(resource.getResolvedUrl())
+                .mimeType(resource.getMimeType())
+                .title(resource.getTitle())
+                .hasImage(Boolean.TRUE.equals(resource.getHasImage()))
+                .hasVideo(Boolean.TRUE.equals(resource.getHasVideo()))
+                .dateResolved(resource.getDateResolved())
+                .build();
+    }
+
     public static ItemDto mapToItemDto(Item item) {
-        return ItemDto.builder()
+        ItemDto.ItemDtoBuilder builder = ItemDto.builder()
                 .id(item.getId())
-                .title(item.getTitle())
                 .normalUrl(item.getUrl())
                 .resolvedUrl(item.getResolvedUrl())
-                .hasImage(item.getHasImage())
-                .hasVideo(item.getHasVideo())
-                .mimeType(item.getMimeType())
                 .unread(item.getUnread())
-                .dateResolved(dtFormatter.format(item.getDateResolved()))
                 // Нужно скопировать все элементы в новую коллекцию - чтобы запустить механизм ленивой загрузки.
-                .tags(new HashSet<>(item.getTags()))
-                .build();
+                .tags(new HashSet<>(item.getTags()));
+        // ссылка без строки в resources отдаётся без метаданных
+        Resource resource = item.getResource();
+        if (resource != null) {
+            builder.title(resource.getTitle())
+                    .hasImage(resource.getHasImage())
+                    .hasVideo(resource.getHasVideo())
+                    .mimeType(resource.getMimeType())
+                    .dateResolved(resource.getDateResolved() == null ? null : dtFormatter.format(resource.getDateResolved()));
+        }
+        return builder.build();
+    }
+
+    // строка проекции из ItemRepositoryCustom.findProjected: заполняются только запрошенные поля
+    public static ItemDto mapToItemDto(Tuple row, Set<ItemField> fields, Map<Long, Set<String>> tags) {
+        ItemDto.ItemDtoBuilder builder = ItemDto.builder();
+        for (ItemField field : fields) {
+            switch (field) {
+                case ID -> builder.id(row.get(QItem.item.id));
+                case NORMAL_URL -> builder.normalUrl(row.get(QItem.item.url));
+                case RESOLVED_URL -> builder.resolvedUrl(row.get(QItem.item.resolvedUrl));
+                case MIME_TYPE -> builder.mimeType(row.get(QItem.item.resource.mimeType));
+                case TITLE -> builder.title(row.get(QItem.item.resource.title));
+                case HAS_IMAGE -> builder.hasImage(row.get(QItem.item.resource.hasImage));
+                case HAS_VIDEO -> builder.hasVideo(row.get(QItem.item.resource.hasVideo));
+                case UNREAD -> builder.unread(row.get(QItem.item.unread));
+                case DATE_RESOLVED -> {
+                    Instant dateResolved = row.get(QItem.item.resource.dateResolved);
+                    builder.dateResolved(dateResolved == null ? null : dtFormatter.format(dateResolved));
+                }
+                case TAGS -> builder.tags(tags.getOrDefault(row.get(QItem.item.id), Set.of()));
+            }
+        }
+        return builder.build();
+    }
+
+    public static List<ItemDto> mapToItemDto(List<Tuple> rows, Set<ItemField> fields, Map<Long, Set<String>> tags) {
+        MappingEvent event = MappingEvent.start("ItemMapper", "projection");
+        List<ItemDto> dtos = new ArrayList<>(rows.size());
+        for (Tuple row : rows) {
+            dtos.add(mapToItemDto(row, fields, tags));
+        }
+        event.end(dtos.size());
+        return dtos;
     }
 
+    // в событие попадает и догрузка ленивых тегов каждой ссылки
     public static List<ItemDto> mapToItemDto(Iterable<Item> items) {
+        MappingEvent event = MappingEvent.start("ItemMapper", "entity");
         List<ItemDto> dtos = new ArrayList<>();
         for (Item item : items) {
             dtos.add(mapToItemDto(item));
         }
+        event.end(dtos.size());
         return dtos;
     }
 }
\ No newline at end of file
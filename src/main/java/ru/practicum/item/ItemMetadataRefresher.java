@@ -0,0 +1,68 @@
+package ru.practicum.item;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+// Перепроверяет метаданные самых давно полученных адресов условными запросами.
+// Каждый адрес проверяется один раз для всех ссылок с ним; частота запросов ограничена бюджетом
+// item-refresh.requests-per-minute, сеть опрашивается вне транзакции.
+@Slf4j
+@Component
+class ItemMetadataRefresher {
+
+    private final ItemRefreshService itemRefreshService;
+    private final UrlMetaDataRetriever urlMetaDataRetriever;
+    private final boolean enabled;
+    private final int batchSize;
+    private final long pauseMs;
+
+    ItemMetadataRefresher(ItemRefreshService itemRefreshService,
+                          UrlMetaDataRetriever urlMetaDataRetriever,
+                          @Value("${item-refresh.enabled:true}") boolean enabled,
+                          @Value("${item-refresh.batch-size:100}") int batchSize,
+                          @Value("${item-refresh.requests-per-minute:60}") int requestsPerMinute) {
+        this.itemRefreshService = itemRefreshService;
+        this.urlMetaDataRetriever = urlMetaDataRetriever;
+        this.enabled = enabled;
+        this.batchSize = batchSize;
+        this.pauseMs = 60_000L / Math.max(requestsPerMinute, 1);
+    }
+
+    @Scheduled(fixedDelayString = "${item-refresh.delay-ms:600000}",
+            initialDelayString = "${item-refresh.delay-ms:600000}")
+    public void refresh() {
+        if (!enabled) {
+            return;
+        }
+        List<String> urls = itemRefreshService.findStaleUrls(batchSize);
+        for (String url : urls) {
+            if (!refresh(url)) {
+                return;
+            }
+        }
+    }
+
+    private boolean refresh(String resolvedUrl) {
+        try {
+            Resource resource = itemRefreshService.getResource(resolvedUrl);
+            UrlMetaDataRetriever.Revalidation revalidation = resource == null
+                    ? urlMetaDataRetriever.revalidate(resolvedUrl, null, null)
+                    : urlMetaDataRetriever.revalidate(resolvedUrl, resource.getEtag(), resource.getLastModified());
+            itemRefreshService.applyRevalidation(resolvedUrl, revalidation);
+        } catch (RuntimeException e) {
+            log.warn("Failed to refresh metadata of {}", resolvedUrl, e);
+            itemRefreshService.markChecked(resolvedUrl);
+        }
+        try {
+            Thread.sleep(pauseMs);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package ru.practicum.item;
+
+import java.util.List;
+
+public interface ItemRefreshService {
+
+    List<String> findStaleUrls(int limit);
+
+    Resource getResource(String resolvedUrl);
+
+    // сохраняет результат проверки; метаданные ссылок меняются, только если сервер вернул другие
+    void applyRevalidation(String resolvedUrl, UrlMetaDataRetriever.Revalidation revalidation);
+
+    // откладывает адрес, который не удалось проверить, до следующего круга
+    void markChecked(String resolvedUrl);
+}
@@ -0,0 +1,91 @@
+package ru.practicum.item;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.change.ItemChange;
+import ru.practicum.change.ItemChangeRepository;
+import ru.practicum.common.UserDataChangedEvent;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+@Service
+class ItemRefreshServiceImpl implements ItemRefreshService {
+
+    private final ResourceRepository resourceRepository;
+    private final ItemRepository itemRepository;
+    private final ItemCounterRepository itemCounterRepository;
+    private final ItemChangeRepository itemChangeRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final Duration maxAge;
+
+    ItemRefreshServiceImpl(ResourceRepository resourceRepository,
+                           ItemRepository itemRepository,
+                           ItemCounterRepository itemCounterRepository,
+                           ItemChangeRepository itemChangeRepository,
+                           ApplicationEventPublisher eventPublisher,
+                           @Value("${item-refresh.max-age-hours:720}") long maxAgeHours) {
+        this.resourceRepository = resourceRepository;
+        this.itemRepository = itemRepository;
+        this.itemCounterRepository = itemCounterRepository;
+        this.itemChangeRepository = itemChangeRepository;
+        this.eventPublisher = eventPublisher;
+        this.maxAge = Duration.ofHours(maxAgeHours);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<String> findStaleUrls(int limit) {
+        Instant threshold = Instant.now().minus(maxAge);
+        return resourceRepository.findStaleResolvedUrls(threshold, threshold, limit);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Resource getResource(String resolvedUrl) {
+        return resourceRepository.findById(resolvedUrl).orElse(null);
+    }
+
+    @Override
+    @Transactional
+    public void applyRevalidation(String resolvedUrl, UrlMetaDataRetriever.Revalidation revalidation) {
+        Instant now = Instant.now();
+        resourceRepository.updateValidators(resolvedUrl, revalidation.getEtag(), revalidation.getLastModified(), now);
+        if (revalidation.getMetadata() == null) {
+            return;
+        }
+
+        // смена типа содержимого переносит ссылки между счётчиками типов: вклад ссылок на этот адрес снимается
+        // до обновления и возвращается после, под той же блокировкой пользователя, что и в add/edit/delete
+        List<Long> userIds = isMimeTypeChanged(resolvedUrl, revalidation.getMetadata())
+                ? itemRepository.findUserIdsByResolvedUrl(resolvedUrl)
+                : List.of();
+        userIds.forEach(userId -> {
+            itemCounterRepository.lockUser(userId);
+            itemCounterRepository.applyDeltaByResolvedUrl(userId, resolvedUrl, -1);
+        });
+        Map<Long, List<Long>> updated = resourceRepository.refreshMetadata(resolvedUrl, revalidation.getMetadata());
+        userIds.forEach(userId -> itemCounterRepository.applyDeltaByResolvedUrl(userId, resolvedUrl, 1));
+        updated.forEach((userId, itemIds) -> {
+            itemChangeRepository.appendItemChanges(userId, itemIds, ItemChange.Operation.UPSERT);
+            eventPublisher.publishEvent(new UserDataChangedEvent(userId));
+        });
+    }
+
+    private boolean isMimeTypeChanged(String resolvedUrl, UrlMetaDataRetriever.UrlMetadata metadata) {
+        return resourceRepository.findById(resolvedUrl)
+                .map(resource -> !Objects.equals(resource.getMimeType(), metadata.getMimeType()))
+                .orElse(false);
+    }
+
+    @Override
+    @Transactional
+    public void markChecked(String resolvedUrl) {
+        resourceRepository.updateValidators(resolvedUrl, null, null, Instant.now());
+    }
+}
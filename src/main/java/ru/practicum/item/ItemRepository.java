@@ -1,17 +1,62 @@
 package ru.practicum.item;
 
+import com.querydsl.core.types.Predicate;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.querydsl.QuerydslPredicateExecutor;
-import ru.practicum.user.User;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
-public interface ItemRepository extends JpaRepository<Item, Long>, QuerydslPredicateExecutor<Item> {
+public interface ItemRepository extends JpaRepository<Item, Long>, QuerydslPredicateExecutor<Item>, ItemRepositoryCustom {
 
+    // списки только сериализуются в DTO, поэтому грузим их без снимков состояния и dirty checking;
+    // метаданные общего ресурса подтягиваются тем же запросом
+    @EntityGraph(attributePaths = "resource")
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"))
+    @Override
+    Page<Item> findAll(Predicate predicate, Pageable pageable);
+
+    @EntityGraph(attributePaths = "resource")
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"))
+    @Override
+    Iterable<Item> findAll(Predicate predicate);
+
+    @EntityGraph(attributePaths = "resource")
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"))
     List<Item> findByUserId(Long userId);
 
-    void deleteItemByUserIdAndId(Long userId, Long itemId);
+    // теги и заметки удаляются каскадом на уровне БД (ON DELETE CASCADE), сущности не загружаются
+    @Modifying
+    @Query("delete from Item i where i.user.id = ?1 and i.id = ?2")
+    int deleteItemByUserIdAndId(Long userId, Long itemId);
+
+    @Modifying
+    @Query("delete from Item i where i.user.id = ?1 and i.id in ?2")
+    int deleteAllByUserIdAndIdIn(Long userId, Collection<Long> itemIds);
+
+    // ссылка уже сохранена пользователем — её метаданные можно взять без обращения к сайту
+    @EntityGraph(attributePaths = "resource")
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"))
+    Optional<Item> findFirstByUserIdAndUrl(Long userId, String url);
+
+    // для построения фильтра Блума ItemUrlFilter; страница ограничивает, сколько url читается за раз
+    @Query("select i.url from Item i where i.user.id = ?1")
+    List<String> findUrlsByUserId(Long userId, Pageable pageable);
+
+    // владельцы ссылок на общий ресурс, по возрастанию id — в этом порядке берутся их блокировки
+    @Query("select distinct i.user.id from Item i where i.resolvedUrl = ?1 order by i.user.id")
+    List<Long> findUserIdsByResolvedUrl(String resolvedUrl);
 
-    Optional<Item> findByUserAndResolvedUrl(User user, String resolvedUrl);
+    // для построения индекса тегов ItemTagIndex: пары (id, тег), ссылки без тегов дают null
+    @Query("select i.id, t from Item i left join i.tags t where i.user.id = ?1 order by i.id")
+    List<Object[]> findIdsAndTagsByUserId(Long userId);
 }
\ No newline at end of file
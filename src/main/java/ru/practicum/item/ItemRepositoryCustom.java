@@ -0,0 +1,40 @@
+package ru.practicum.item;
+
+import com.querydsl.core.Tuple;
+import com.querydsl.core.types.Expression;
+import com.querydsl.core.types.Predicate;
+import org.springframework.data.domain.Pageable;
+import ru.practicum.item.dto.ItemExportDto;
+import ru.practicum.user.User;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+
+public interface ItemRepositoryCustom {
+
+    // вставляет ссылку или дополняет тегами уже сохранённую с тем же resolved_url;
+    // опирается на уникальный индекс (user_id, resolved_url), поэтому безопасен при конкурентных запросах
+    Item upsert(User user, UrlMetaDataRetriever.UrlMetadata metadata, Set<String> tags);
+
+    // построчно отдаёт все ссылки пользователя вместе с тегами и заметками, не накапливая их в памяти
+    void exportByUserId(long userId, Consumer<ItemExportDto> consumer);
+
+    List<Long> findIds(Predicate predicate);
+
+    // выбирает только указанные колонки, без загрузки сущностей
+    List<Tuple> findProjected(Predicate predicate, Pageable pageable, List<Expression<?>> columns);
+
+    Map<Long, Set<String>> findTagsByItemIds(Collection<Long> itemIds);
+
+    // массовые операции ниже ограничены владельцем и выполняются одним запросом на весь набор id
+
+    int updateUnread(long userId, Collection<Long> itemIds, boolean unread);
+
+    int addTags(long userId, Collection<Long> itemIds, Set<String> tags);
+
+    int removeTagsExcept(long userId, Collection<Long> itemIds, Set<String> keptTags);
+
+}
@@ -0,0 +1,298 @@
+package ru.practicum.item;
+
+import com.querydsl.core.Tuple;
+import com.querydsl.core.types.Expression;
+import com.querydsl.core.types.Predicate;
+import com.querydsl.core.types.dsl.Expressions;
+import com.querydsl.core.types.dsl.PathBuilder;
+import com.querydsl.core.types.dsl.StringPath;
+import com.querydsl.jpa.impl.JPAQuery;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.hibernate.Session;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.support.Querydsl;
+import ru.practicum.item.dto.ItemExportDto;
+import ru.practicum.user.User;
+
+import java.sql.Array;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+
+class ItemRepositoryCustomImpl implements ItemRepositoryCustom {
+    // более старые метаданные (например, взятые из того же ресурса) не перезаписывают сохранённые
+    private static final String UPSERT_RESOURCE = """
+            INSERT INTO resources (resolved_url, mime_type, title, has_image, has_video, date_resolved)
+            VALUES (?, ?, ?, ?, ?, ?)
+            ON CONFLICT (resolved_url) DO UPDATE
+            SET mime_type = EXCLUDED.mime_type, title = EXCLUDED.title, has_image = EXCLUDED.has_image,
+                has_video = EXCLUDED.has_video, date_resolved = EXCLUDED.date_resolved
+            WHERE resources.date_resolved < EXCLUDED.date_resolved
+            """;
+
+    // пустой DO UPDATE нужен, чтобы RETURNING вернул и уже существующую строку
+    private static final String UPSERT_ITEM = """
+            INSERT INTO items (user_id, url, resolved_url, unread)
+            VALUES (?, ?, ?, TRUE)
+            ON CONFLICT (user_id, resolved_url) DO UPDATE SET resolved_url = EXCLUDED.resolved_url
+            RETURNING id, url, resolved_url, unread, (xmax = 0) AS inserted
+            """;
+
+    // основной SELECT видит снимок до вставки, поэтому возвращает только ранее сохранённые теги
+    private static final String MERGE_TAGS = """
+            WITH added AS (
+                INSERT INTO tags (item_id, name)
+                SELECT ?, unnest(?::text[])
+                ON CONFLICT (item_id, name) DO NOTHING
+            )
+            SELECT name FROM tags WHERE item_id = ?
+            """;
+
+    private static final String UPDATE_UNREAD = """
+            UPDATE items SET unread = ?
+            WHERE user_id = ? AND id = ANY(?) AND unread IS DISTINCT FROM ?
+            """;
+
+    private static final String ADD_TAGS = """
+            INSERT INTO tags (item_id, name)
+            SELECT i.id, t.name
+            FROM items i CROSS JOIN unnest(?::text[]) AS t(name)
+            WHERE i.user_id = ? AND i.id = ANY(?)
+            ON CONFLICT (item_id, name) DO NOTHING
+            """;
+
+    private static final String REMOVE_TAGS_EXCEPT = """
+            DELETE FROM tags t
+            USING items i
+            WHERE t.item_id = i.id AND i.user_id = ? AND i.id = ANY(?) AND NOT (t.name = ANY(?))
+            """;
+
+    private static final String EXPORT_ITEMS = """
+            SELECT i.id, i.url, i.resolved_url, i.unread, r.mime_type, r.title, r.has_image, r.has_video, r.date_resolved,
+                   ARRAY(SELECT t.name FROM tags t WHERE t.item_id = i.id) AS tags,
+                   ARRAY(SELECT n.id FROM item_notes n WHERE n.item_id = i.id ORDER BY n.id) AS note_ids,
+                   ARRAY(SELECT n.text FROM item_notes n WHERE n.item_id = i.id ORDER BY n.id) AS note_texts
+            FROM items i
+            LEFT JOIN resources r ON r.resolved_url = i.resolved_url
+            WHERE i.user_id = ?
+            ORDER BY i.id
+            """;
+
+    // драйвер PostgreSQL читает результат серверным курсором порциями этого размера (только внутри транзакции)
+    private static final int EXPORT_FETCH_SIZE = 500;
+
+    @PersistenceContext
+    private EntityManager em;
+
+    @Override
+    public Item upsert(User user, UrlMetaDataRetriever.UrlMetadata metadata, Set<String> tags) {
+        Set<String> requestedTags = tags == null ? Set.of() : tags;
+        return em.unwrap(Session.class).doReturningWork(connection -> {
+            Item item = new Item();
+            item.setUser(user);
+            item.setResource(ItemMapper.mapToResource(metadata));
+            upsertResource(connection, metadata);
+            boolean inserted = upsertItem(connection, user, metadata, item);
+
+            Set<String> mergedTags = new HashSet<>(requestedTags);
+            if (!inserted || !requestedTags.isEmpty()) {
+                mergedTags.addAll(mergeTags(connection, item.getId(), requestedTags));
+            }
+            item.setTags(mergedTags);
+            return item;
+        });
+    }
+
+    private void upsertResource(Connection connection, UrlMetaDataRetriever.UrlMetadata metadata) throws SQLException {
+        try (PreparedStatement ps = connection.prepareStatement(UPSERT_RESOURCE)) {
+            ps.setString(1, metadata.getResolvedUrl());
+            ps.setString(2, metadata.getMimeType());
+            ps.setString(3, metadata.getTitle());
+            ps.setBoolean(4, metadata.isHasImage());
+            ps.setBoolean(5, metadata.isHasVideo());
+            ps.setObject(6, OffsetDateTime.ofInstant(metadata.getDateResolved(), ZoneOffset.UTC));
+            ps.executeUpdate();
+        }
+    }
+
+    private boolean upsertItem(Connection connection,
+                               User user,
+                               UrlMetaDataRetriever.UrlMetadata metadata,
+                               Item item) throws SQLException {
+        try (PreparedStatement ps = connection.prepareStatement(UPSERT_ITEM)) {
+            ps.setLong(1, user.getId());
+            ps.setString(2, metadata.getNormalUrl());
+            ps.setString(3, metadata.getResolvedUrl());
+            try (ResultSet rs = ps.executeQuery()) {
+                rs.next();
+                readItemColumns(rs, item);
+                return rs.getBoolean("inserted");
+            }
+        }
+    }
+
+    private static void readItemColumns(ResultSet rs, Item item) throws SQLException {
+        item.setId(rs.getLong("id"));
+        item.setUrl(rs.getString("url"));
+        item.setResolvedUrl(rs.getString("resolved_url"));
+        item.setUnread(rs.getBoolean("unread"));
+    }
+
+    private Set<String> mergeTags(Connection connection, long itemId, Set<String> tags) throws SQLException {
+        Array tagArray = connection.createArrayOf("text", tags.toArray());
+        try (PreparedStatement ps = connection.prepareStatement(MERGE_TAGS)) {
+            ps.setLong(1, itemId);
+            ps.setArray(2, tagArray);
+            ps.setLong(3, itemId);
+            Set<String> existing = new HashSet<>();
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    existing.add(rs.getString("name"));
+                }
+            }
+            return existing;
+        } finally {
+            tagArray.free();
+        }
+    }
+
+    @Override
+    public void exportByUserId(long userId, Consumer<ItemExportDto> consumer) {
+        em.unwrap(Session.class).doWork(connection -> {
+            try (PreparedStatement ps = connection.prepareStatement(EXPORT_ITEMS,
+                    ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+                ps.setFetchSize(EXPORT_FETCH_SIZE);
+                ps.setLong(1, userId);
+                try (ResultSet rs = ps.executeQuery()) {
+                    while (rs.next()) {
+                        consumer.accept(readExportRow(rs));
+                    }
+                }
+            }
+        });
+    }
+
+    private static ItemExportDto readExportRow(ResultSet rs) throws SQLException {
+        Item item = new Item();
+        readItemColumns(rs, item);
+        Resource resource = new Resource();
+        resource.setResolvedUrl(item.getResolvedUrl());
+        resource.setMimeType(rs.getString("mime_type"));
+        resource.setTitle(rs.getString("title"));
+        resource.setHasImage(rs.getObject("has_image", Boolean.class));
+        resource.setHasVideo(rs.getObject("has_video", Boolean.class));
+        OffsetDateTime dateResolved = rs.getObject("date_resolved", OffsetDateTime.class);
+        resource.setDateResolved(dateResolved == null ? null : dateResolved.toInstant());
+        item.setResource(resource);
+        item.setTags(Set.of((String[]) rs.getArray("tags").getArray()));
+
+        Long[] noteIds = (Long[]) rs.getArray("note_ids").getArray();
+        String[] noteTexts = (String[]) rs.getArray("note_texts").getArray();
+        List<ItemExportDto.Note> notes = new ArrayList<>(noteIds.length);
+        for (int i = 0; i < noteIds.length; i++) {
+            notes.add(ItemExportDto.Note.of(noteIds[i], noteTexts[i]));
+        }
+        return ItemExportDto.of(ItemMapper.mapToItemDto(item), notes);
+    }
+
+    @Override
+    public List<Long> findIds(Predicate predicate) {
+        return new JPAQuery<Long>(em)
+                .select(QItem.item.id)
+                .from(QItem.item)
+                .where(predicate)
+                .fetch();
+    }
+
+    @Override
+    public List<Tuple> findProjected(Predicate predicate, Pageable pageable, List<Expression<?>> columns) {
+        JPAQuery<Tuple> query = new JPAQuery<Tuple>(em)
+                .select(columns.toArray(Expression[]::new))
+                .from(QItem.item)
+                // пути item.resource.* в колонках, фильтре и сортировке переиспользуют это соединение:
+                // неявное соединение было бы внутренним и теряло бы ссылки без ресурса
+                .leftJoin(QItem.item.resource)
+                .where(predicate);
+        // сортировка из Pageable задана путями сущности (resource.dateResolved), их переводит Querydsl из Spring Data
+        Querydsl querydsl = new Querydsl(em, new PathBuilder<>(Item.class, QItem.item.getMetadata()));
+        return querydsl.applyPagination(pageable, query).fetch();
+    }
+
+    @Override
+    public Map<Long, Set<String>> findTagsByItemIds(Collection<Long> itemIds) {
+        QItem item = QItem.item;
+        StringPath tag = Expressions.stringPath("tag");
+        Map<Long, Set<String>> tags = new HashMap<>();
+        for (Tuple row : new JPAQuery<Tuple>(em)
+                .select(item.id, tag)
+                .from(item)
+                .join(item.tags, tag)
+                .where(item.id.in(itemIds))
+                .fetch()) {
+            tags.computeIfAbsent(row.get(item.id), id -> new HashSet<>()).add(row.get(tag));
+        }
+        return tags;
+    }
+
+    @Override
+    public int updateUnread(long userId, Collection<Long> itemIds, boolean unread) {
+        return em.unwrap(Session.class).doReturningWork(connection -> {
+            Array ids = connection.createArrayOf("bigint", itemIds.toArray());
+            try (PreparedStatement ps = connection.prepareStatement(UPDATE_UNREAD)) {
+                ps.setBoolean(1, unread);
+                ps.setLong(2, userId);
+                ps.setArray(3, ids);
+                ps.setBoolean(4, unread);
+                return ps.executeUpdate();
+            } finally {
+                ids.free();
+            }
+        });
+    }
+
+    @Override
+    public int addTags(long userId, Collection<Long> itemIds, Set<String> tags) {
+        return em.unwrap(Session.class).doReturningWork(connection -> {
+            Array names = connection.createArrayOf("text", tags.toArray());
+            Array ids = connection.createArrayOf("bigint", itemIds.toArray());
+            try (PreparedStatement ps = connection.prepareStatement(ADD_TAGS)) {
+                ps.setArray(1, names);
+                ps.setLong(2, userId);
+                ps.setArray(3, ids);
+                return ps.executeUpdate();
+            } finally {
+                ids.free();
+                names.free();
+            }
+        });
+    }
+
+    @Override
+    public int removeTagsExcept(long userId, Collection<Long> itemIds, Set<String> keptTags) {
+        return em.unwrap(Session.class).doReturningWork(connection -> {
+            Array ids = connection.createArrayOf("bigint", itemIds.toArray());
+            Array names = connection.createArrayOf("text", keptTags.toArray());
+            try (PreparedStatement ps = connection.prepareStatement(REMOVE_TAGS_EXCEPT)) {
+                ps.setLong(1, userId);
+                ps.setArray(2, ids);
+                ps.setArray(3, names);
+                return ps.executeUpdate();
+            } finally {
+                names.free();
+                ids.free();
+            }
+        });
+    }
+}
@@ -1,22 +1,38 @@
 package ru.practicum.item;
 
 import ru.practicum.item.dto.AddItemRequest;
+import ru.practicum.item.dto.BulkDeleteItemResult;
+import ru.practicum.item.dto.BulkModifyItemRequest;
+import ru.practicum.item.dto.BulkModifyItemResult;
 import ru.practicum.item.dto.GetItemRequest;
+import ru.practicum.item.dto.ItemExportDto;
 import ru.practicum.item.dto.ItemDto;
 import ru.practicum.item.dto.ModifyItemRequest;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Set;
+import java.util.function.Consumer;
 
 public interface ItemService {
 
     ItemDto addNewItem(Long userId, AddItemRequest request);
 
+    ItemDto addResolvedItem(long userId, UrlMetaDataRetriever.UrlMetadata urlMetadata, Set<String> tags);
+
     void deleteItem(long userId, long itemId);
 
+    BulkDeleteItemResult deleteItems(long userId, List<Long> itemIds, BulkModifyItemRequest.Filter filter);
+
     List<ItemDto> getItems(GetItemRequest userId);
 
-    List<ItemDto> getItems(long userId, Set<String> tags);
+    List<ItemDto> getItems(long userId, TagExpression tags, int from, int size);
+
+    List<ItemDto> getItemsByIds(long userId, Collection<Long> itemIds);
+
+    void exportItems(long userId, Consumer<ItemExportDto> consumer);
 
     void edit(long userId, ModifyItemRequest request);
+
+    BulkModifyItemResult editAll(long userId, BulkModifyItemRequest request);
 }
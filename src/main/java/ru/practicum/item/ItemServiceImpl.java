@@ -1,68 +1,168 @@
 package ru.practicum.item;
 
+import com.querydsl.core.Tuple;
+import com.querydsl.core.types.Expression;
 import com.querydsl.core.types.dsl.BooleanExpression;
 import com.querydsl.core.types.dsl.Expressions;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Sort;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.change.ItemChange;
+import ru.practicum.change.ItemChangeRepository;
 import ru.practicum.common.AccessException;
+import ru.practicum.common.BadRequestException;
 import ru.practicum.common.NotFoundException;
+import ru.practicum.common.UserDataChangedEvent;
 import ru.practicum.item.dto.AddItemRequest;
+import ru.practicum.item.dto.BulkDeleteItemResult;
+import ru.practicum.item.dto.BulkModifyItemRequest;
+import ru.practicum.item.dto.BulkModifyItemResult;
 import ru.practicum.item.dto.GetItemRequest;
+import ru.practicum.item.dto.ItemExportDto;
 import ru.practicum.item.dto.ItemDto;
+import ru.practicum.item.dto.ItemField;
 import ru.practicum.item.dto.ModifyItemRequest;
 import ru.practicum.user.User;
 import ru.practicum.user.UserRepository;
 
+import java.time.Duration;
+import java.time.Instant;
 import java.util.ArrayList;
-import java.util.HashSet;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
-import java.util.stream.StreamSupport;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 @RequiredArgsConstructor
 public class ItemServiceImpl implements ItemService {
+    private static final int ID_BATCH_SIZE = 1000;
 
     private final ItemRepository itemRepository;
+    private final ItemCounterRepository itemCounterRepository;
+    private final ItemChangeRepository itemChangeRepository;
     private final UserRepository userRepository;
     private final UrlMetaDataRetriever urlMetaDataRetriever;
-    private final ItemMapper itemMapper;
+    private final UrlCanonicalizer urlCanonicalizer;
+    private final ResourceRepository resourceRepository;
+    private final ItemUrlFilter itemUrlFilter;
+    private final ItemTagIndex itemTagIndex;
+    private final ApplicationEventPublisher eventPublisher;
+
+    // сколько часов метаданные общего ресурса считаются свежими и переиспользуются без запроса к сайту
+    @Value("${resources.fresh-hours:24}")
+    private long resourceFreshHours;
 
     @Override
     @Transactional
     public ItemDto addNewItem(Long userId, AddItemRequest request) {
         User user = userRepository.findById(userId)
                 .orElseThrow(() -> new NotFoundException("errors.404.users"));
-        UrlMetaDataRetriever.UrlMetadata urlMetadata = urlMetaDataRetriever.retrieve(request.getUrl());
-
-        final Item item;
-        Optional<Item> maybeExistingItem = itemRepository.findByUserAndResolvedUrl(user, urlMetadata.getResolvedUrl());
+        String url = urlCanonicalizer.canonicalize(request.getUrl());
+        UrlMetaDataRetriever.UrlMetadata urlMetadata = findSavedUrlMetadata(userId, url)
+                .orElseGet(() -> resolveUrlMetadata(url));
+        return saveResolvedItem(user, urlMetadata, request.getTags());
+    }
 
-        if (maybeExistingItem.isEmpty()) {
-            item = itemRepository.save(ItemMapper.mapToNewItem(urlMetadata, user, request.getTags()));
-        } else {
-            item = maybeExistingItem.get();
-            if (request.getTags() != null && !request.getTags().isEmpty()) {
-                item.setTags(new HashSet<>(item.getTags()));
-                item.getTags().addAll(request.getTags());
-                itemRepository.save(item);
-            }
+    // большинство добавляемых ссылок новые: фильтр Блума отвечает «точно нет» без запроса в БД;
+    // устаревшие метаданные уже сохранённой ссылки не переиспользуются, а запрашиваются заново
+    private Optional<UrlMetaDataRetriever.UrlMetadata> findSavedUrlMetadata(long userId, String url) {
+        if (!itemUrlFilter.mightContain(userId, url)) {
+            return Optional.empty();
         }
+        Optional<Item> saved = itemRepository.findFirstByUserIdAndUrl(userId, url);
+        itemUrlFilter.recordLookup(saved.isPresent());
+        Instant freshAfter = freshAfter();
+        return saved.map(Item::getResource)
+                .filter(resource -> isFresh(resource, freshAfter))
+                .map(resource -> ItemMapper.mapToUrlMetadata(resource, url));
+    }
+
+    private UrlMetaDataRetriever.UrlMetadata resolveUrlMetadata(String url) {
+        return resourceRepository.findFresh(url, freshAfter())
+                .map(resource -> ItemMapper.mapToUrlMetadata(resource, url))
+                .orElseGet(() -> urlMetaDataRetriever.retrieve(url));
+    }
+
+    private Instant freshAfter() {
+        return Instant.now().minus(Duration.ofHours(resourceFreshHours));
+    }
+
+    // то же условие, что и в ResourceRepository.findFresh: ресурс получен или подтверждён после freshAfter
+    private static boolean isFresh(Resource resource, Instant freshAfter) {
+        return Stream.of(resource.getDateResolved(), resource.getCheckedAt())
+                .filter(Objects::nonNull)
+                .anyMatch(instant -> instant.isAfter(freshAfter));
+    }
+
+    @Override
+    @Transactional
+    public ItemDto addResolvedItem(long userId, UrlMetaDataRetriever.UrlMetadata urlMetadata, Set<String> tags) {
+        User user = userRepository.findById(userId)
+                .orElseThrow(() -> new NotFoundException("errors.404.users"));
+        return saveResolvedItem(user, urlMetadata, tags);
+    }
 
+    private ItemDto saveResolvedItem(User user, UrlMetaDataRetriever.UrlMetadata urlMetadata, Set<String> tags) {
+        long userId = user.getId();
+        // счётчики обновляются как разница вклада ссылки до и после изменения
+        itemCounterRepository.lockUser(userId);
+        itemCounterRepository.applyDeltaByResolvedUrl(userId, urlMetadata.getResolvedUrl(), -1);
+        Item item = itemRepository.upsert(user, urlMetadata, tags);
+        itemUrlFilter.add(userId, urlMetadata.getNormalUrl());
+        itemTagIndex.onItemSaved(userId, item.getId(), item.getTags());
+        itemCounterRepository.applyDelta(userId, List.of(item.getId()), 1);
+        itemChangeRepository.appendItemChanges(userId, List.of(item.getId()), ItemChange.Operation.UPSERT);
+        eventPublisher.publishEvent(new UserDataChangedEvent(userId));
         return ItemMapper.mapToItemDto(item);
     }
 
     @Override
+    @Transactional
     public void deleteItem(long userId, long itemId) {
-        itemRepository.deleteItemByUserIdAndId(userId, itemId);
+        itemCounterRepository.lockUser(userId);
+        itemCounterRepository.applyDelta(userId, List.of(itemId), -1);
+        itemChangeRepository.appendNoteDeletesForItems(userId, List.of(itemId));
+        itemChangeRepository.appendItemChanges(userId, List.of(itemId), ItemChange.Operation.DELETE);
+        itemUrlFilter.remove(userId, itemRepository.deleteItemByUserIdAndId(userId, itemId));
+        itemTagIndex.onItemsDeleted(userId, List.of(itemId));
+        eventPublisher.publishEvent(new UserDataChangedEvent(userId));
+    }
+
+    @Override
+    @Transactional
+    public BulkDeleteItemResult deleteItems(long userId, List<Long> itemIds, BulkModifyItemRequest.Filter filter) {
+        List<Long> targetIds = itemIds != null && !itemIds.isEmpty()
+                ? itemIds
+                : itemRepository.findIds(makeBulkExpression(userId, null, filter));
+        if (targetIds.isEmpty()) {
+            return BulkDeleteItemResult.of(0);
+        }
+
+        itemCounterRepository.lockUser(userId);
+        itemCounterRepository.applyDelta(userId, targetIds, -1);
+        itemChangeRepository.appendNoteDeletesForItems(userId, targetIds);
+        itemChangeRepository.appendItemChanges(userId, targetIds, ItemChange.Operation.DELETE);
+        int deleted = itemRepository.deleteAllByUserIdAndIdIn(userId, targetIds);
+        itemUrlFilter.remove(userId, deleted);
+        itemTagIndex.onItemsDeleted(userId, targetIds);
+        eventPublisher.publishEvent(new UserDataChangedEvent(userId));
+        return BulkDeleteItemResult.of(deleted);
     }
 
     @Override
+    @Transactional(readOnly = true)
     public List<ItemDto> getItems(GetItemRequest request) {
         Sort sort = request.getSort().get();
         PageRequest pageRequest = PageRequest.of(0, request.getLimit(), sort);
@@ -73,19 +173,66 @@ public class ItemServiceImpl implements ItemService {
         conditions.add(makeOwnerExpression(request));
         conditions.add(makeTagsExpression(request));
 
-        Iterable<Item> items = itemRepository.findAll(makeSingleExpression(conditions), pageRequest);
-        return StreamSupport.stream(items.spliterator(), false)
-                .map(ItemMapper::mapToItemDto)
+        Set<ItemField> fields = request.getFields();
+        if (fields != null && !fields.isEmpty()) {
+            return getProjectedItems(makeSingleExpression(conditions), pageRequest, fields);
+        }
+
+        return ItemMapper.mapToItemDto(itemRepository.findAll(makeSingleExpression(conditions), pageRequest));
+    }
+
+    // выбираются только запрошенные колонки; теги — отдельным запросом и только если их запросили
+    private List<ItemDto> getProjectedItems(BooleanExpression predicate, PageRequest pageRequest, Set<ItemField> fields) {
+        List<Expression<?>> columns = new ArrayList<>();
+        // id нужен, чтобы сопоставить ссылкам их теги
+        columns.add(QItem.item.id);
+        fields.stream()
+                .map(ItemField::getExpression)
+                .filter(expression -> expression != null && expression != QItem.item.id)
+                .forEach(columns::add);
+
+        List<Tuple> rows = itemRepository.findProjected(predicate, pageRequest, columns);
+        Map<Long, Set<String>> tags = fields.contains(ItemField.TAGS) && !rows.isEmpty()
+                ? itemRepository.findTagsByItemIds(rows.stream().map(row -> row.get(QItem.item.id)).toList())
+                : Map.of();
+        return ItemMapper.mapToItemDto(rows, fields, tags);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<ItemDto> getItems(long userId, TagExpression tags, int from, int size) {
+        // выражение вычисляется по индексу в памяти, из БД загружается только итоговая страница
+        List<Long> itemIds = itemTagIndex.findIds(userId, tags, from, size);
+        if (itemIds.isEmpty()) {
+            return List.of();
+        }
+
+        Map<Long, ItemDto> itemsById = getItemsByIds(userId, itemIds).stream()
+                .collect(Collectors.toMap(ItemDto::getId, Function.identity()));
+        return itemIds.stream()
+                .map(itemsById::get)
+                .filter(Objects::nonNull)
                 .toList();
     }
 
     @Override
     @Transactional(readOnly = true)
-    public List<ItemDto> getItems(long userId, Set<String> tags) {
+    public List<ItemDto> getItemsByIds(long userId, Collection<Long> itemIds) {
+        // каждый id в IN — отдельный параметр, а PostgreSQL принимает не больше 32767 параметров на запрос
         BooleanExpression byUserId = QItem.item.user.id.eq(userId);
-        BooleanExpression byAnyTag = QItem.item.tags.any().in(tags);
-        Iterable<Item> items = itemRepository.findAll(byUserId.and(byAnyTag));
-        return ItemMapper.mapToItemDto(items);
+        List<Long> ids = List.copyOf(itemIds);
+        List<ItemDto> items = new ArrayList<>(ids.size());
+        for (int start = 0; start < ids.size(); start += ID_BATCH_SIZE) {
+            List<Long> batch = ids.subList(start, Math.min(start + ID_BATCH_SIZE, ids.size()));
+            items.addAll(ItemMapper.mapToItemDto(itemRepository.findAll(byUserId.and(QItem.item.id.in(batch)))));
+        }
+        return items;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public void exportItems(long userId, Consumer<ItemExportDto> consumer) {
+        itemRepository.exportByUserId(userId, consumer);
     }
 
     @Override
@@ -97,6 +244,10 @@ public class ItemServiceImpl implements ItemService {
             throw new AccessException(HttpStatus.FORBIDDEN, "errors.403.items");
         }
 
+        List<Long> itemIds = List.of(item.getId());
+        itemCounterRepository.lockUser(userId);
+        itemCounterRepository.applyDelta(userId, itemIds, -1);
+
         if (request.getUnread() != null) {
             item.setUnread(request.getUnread());
         }
@@ -107,7 +258,68 @@ public class ItemServiceImpl implements ItemService {
             item.getTags().addAll(request.getTags());
         }
 
-        itemRepository.save(item);
+        itemRepository.saveAndFlush(item);
+        itemTagIndex.onItemSaved(userId, item.getId(), item.getTags());
+        itemCounterRepository.applyDelta(userId, itemIds, 1);
+        itemChangeRepository.appendItemChanges(userId, itemIds, ItemChange.Operation.UPSERT);
+        eventPublisher.publishEvent(new UserDataChangedEvent(userId));
+    }
+
+    @Override
+    @Transactional
+    public BulkModifyItemResult editAll(long userId, BulkModifyItemRequest request) {
+        List<Long> itemIds = itemRepository.findIds(makeBulkExpression(userId, request.getIds(), request.getFilter()));
+        if (itemIds.isEmpty()) {
+            return BulkModifyItemResult.of(0, 0, 0, 0);
+        }
+
+        itemCounterRepository.lockUser(userId);
+        itemCounterRepository.applyDelta(userId, itemIds, -1);
+
+        int updatedItems = 0;
+        if (request.getUnread() != null) {
+            updatedItems = itemRepository.updateUnread(userId, itemIds, request.getUnread());
+        }
+
+        Set<String> tags = Optional.ofNullable(request.getTags()).orElse(Set.of());
+        int removedTags = 0;
+        if (Boolean.TRUE.equals(request.getReplaceTags())) {
+            removedTags = itemRepository.removeTagsExcept(userId, itemIds, tags);
+            itemTagIndex.onTagsRetained(userId, itemIds, tags);
+        }
+        int addedTags = 0;
+        if (!tags.isEmpty()) {
+            addedTags = itemRepository.addTags(userId, itemIds, tags);
+            itemTagIndex.onTagsAdded(userId, itemIds, tags);
+        }
+        itemCounterRepository.applyDelta(userId, itemIds, 1);
+        itemChangeRepository.appendItemChanges(userId, itemIds, ItemChange.Operation.UPSERT);
+        eventPublisher.publishEvent(new UserDataChangedEvent(userId));
+
+        return BulkModifyItemResult.of(itemIds.size(), updatedItems, addedTags, removedTags);
+    }
+
+    private BooleanExpression makeBulkExpression(long userId, List<Long> itemIds, BulkModifyItemRequest.Filter filter) {
+        BooleanExpression byOwner = QItem.item.user.id.eq(userId);
+        if (itemIds != null && !itemIds.isEmpty()) {
+            return byOwner.and(QItem.item.id.in(itemIds));
+        }
+        if (filter == null) {
+            throw new BadRequestException("errors.400.items.bulk.target");
+        }
+
+        List<BooleanExpression> conditions = new ArrayList<>();
+        conditions.add(byOwner);
+        conditions.add(filter.getState().get());
+        conditions.add(filter.getContentType().get());
+        conditions.add(Optional.ofNullable(filter.getTags())
+                .filter(tags -> !tags.isEmpty())
+                .map(tags -> QItem.item.tags.any().in(tags))
+                .orElse(null));
+        conditions.add(Optional.ofNullable(filter.getResolvedBefore())
+                .map(QItem.item.resource.dateResolved::before)
+                .orElse(null));
+        return makeSingleExpression(conditions);
     }
 
     private BooleanExpression makeSingleExpression(List<BooleanExpression> conditions) {
@@ -0,0 +1,20 @@
+package ru.practicum.item;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import ru.practicum.item.dto.ItemStatsDto;
+
+@RestController
+@RequestMapping("/items/stats")
+@RequiredArgsConstructor
+public class ItemStatsController {
+    private final ItemStatsService itemStatsService;
+
+    @GetMapping
+    public ItemStatsDto getStats(@RequestHeader("X-Later-User-Id") long userId) {
+        return itemStatsService.getStats(userId);
+    }
+}
@@ -0,0 +1,30 @@
+package ru.practicum.item;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import ru.practicum.user.UserRepository;
+
+// Периодически пересчитывает счётчики с нуля, исправляя возможный дрейф и удаляя обнулившиеся строки.
+// Каждый пользователь пересчитывается в своей короткой транзакции.
+@Slf4j
+@Component
+@RequiredArgsConstructor
+class ItemStatsReconciler {
+
+    private final ItemStatsService itemStatsService;
+    private final UserRepository userRepository;
+
+    @Scheduled(fixedDelayString = "${item-stats.reconcile-delay-ms:3600000}",
+            initialDelayString = "${item-stats.reconcile-delay-ms:3600000}")
+    public void reconcileAll() {
+        for (Long userId : userRepository.findAllIds()) {
+            try {
+                itemStatsService.reconcile(userId);
+            } catch (RuntimeException e) {
+                log.warn("Failed to reconcile item counters of user {}", userId, e);
+            }
+        }
+    }
+}
@@ -0,0 +1,10 @@
+package ru.practicum.item;
+
+import ru.practicum.item.dto.ItemStatsDto;
+
+public interface ItemStatsService {
+
+    ItemStatsDto getStats(long userId);
+
+    void reconcile(long userId);
+}
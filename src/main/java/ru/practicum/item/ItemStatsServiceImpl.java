@@ -0,0 +1,51 @@
+package ru.practicum.item;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.item.dto.ItemStatsDto;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+
+@Service
+@RequiredArgsConstructor
+class ItemStatsServiceImpl implements ItemStatsService {
+
+    private final ItemCounterRepository itemCounterRepository;
+
+    @Override
+    @Transactional(readOnly = true)
+    public ItemStatsDto getStats(long userId) {
+        ItemStatsDto.Count all = ItemStatsDto.Count.of(0, 0);
+        Map<String, ItemStatsDto.Count> contentTypes = new TreeMap<>();
+        Map<String, ItemStatsDto.Count> tags = new TreeMap<>();
+
+        for (ItemCounter counter : itemCounterRepository.findAllByIdUserId(userId)) {
+            // обнулившиеся счётчики удаляются только при пересчёте, клиенту их не показываем
+            if (counter.getTotalCount() <= 0) {
+                continue;
+            }
+            ItemStatsDto.Count count = ItemStatsDto.Count.of(counter.getTotalCount(), counter.getUnreadCount());
+            switch (counter.getId().getDimension()) {
+                case ALL -> all = count;
+                case CONTENT_TYPE -> contentTypes.put(counter.getId().getName().toLowerCase(Locale.ROOT), count);
+                case TAG -> tags.put(counter.getId().getName(), count);
+            }
+        }
+
+        return ItemStatsDto.builder()
+                .all(all)
+                .contentTypes(contentTypes)
+                .tags(tags)
+                .build();
+    }
+
+    @Override
+    @Transactional
+    public void reconcile(long userId) {
+        itemCounterRepository.lockUser(userId);
+        itemCounterRepository.reconcile(userId);
+    }
+}
@@ -0,0 +1,214 @@
+package ru.practicum.item;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.practicum.common.AllUserDataChangedEvent;
+import ru.practicum.common.UserDataChangedEvent;
+import ru.practicum.item.dto.TagSuggestionDto;
+
+import java.lang.ref.SoftReference;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// Битовые индексы тегов в памяти, по одному на пользователя. Индекс строится при первом запросе,
+// изменения ссылок применяются к нему после коммита. Индексы держатся через SoftReference,
+// поэтому при нехватке памяти GC выбрасывает их раньше, чем случится OutOfMemoryError;
+// сверху число индексов ограничено LRU.
+@Component
+public class ItemTagIndex {
+    // запись, закоммиченная во время построения индекса, могла в него не попасть;
+    // такие записи отмечаются в штампах (по полосам от userId), и построенный индекс тогда не кэшируется
+    private static final int STRIPES = 1024;
+
+    private final ItemRepository itemRepository;
+    private final int maxUsers;
+    private final Map<Long, SoftReference<TagBitmapIndex>> indexes;
+    private final AtomicLongArray writeStamps = new AtomicLongArray(STRIPES);
+
+    public ItemTagIndex(ItemRepository itemRepository,
+                        @Value("${item-tag-index.max-users:10000}") int maxUsers) {
+        this.itemRepository = itemRepository;
+        this.maxUsers = maxUsers;
+        this.indexes = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, SoftReference<TagBitmapIndex>> eldest) {
+                return size() > ItemTagIndex.this.maxUsers;
+            }
+        };
+    }
+
+    public List<Long> findIds(long userId, TagExpression expression, int from, int limit) {
+        return getOrLoad(userId).find(expression, from, limit);
+    }
+
+    // отвечает только из уже построенного индекса, БД не трогает
+    public Optional<List<TagSuggestionDto>> suggestTags(long userId, String prefix, int limit) {
+        return Optional.ofNullable(get(userId)).map(index -> index.suggest(prefix, limit));
+    }
+
+    public void warmUp(long userId) {
+        getOrLoad(userId);
+    }
+
+    public void onItemSaved(long userId, long itemId, Set<String> tags) {
+        Set<String> snapshot = Set.copyOf(tags);
+        afterCommit(userId, index -> index.put(itemId, snapshot));
+    }
+
+    public void onTagsAdded(long userId, Collection<Long> itemIds, Set<String> tags) {
+        List<Long> ids = List.copyOf(itemIds);
+        Set<String> snapshot = Set.copyOf(tags);
+        afterCommit(userId, index -> {
+            index.addTags(ids, snapshot);
+            return true;
+        });
+    }
+
+    public void onTagsRetained(long userId, Collection<Long> itemIds, Set<String> keptTags) {
+        List<Long> ids = List.copyOf(itemIds);
+        Set<String> snapshot = Set.copyOf(keptTags);
+        afterCommit(userId, index -> {
+            index.retainTags(ids, snapshot);
+            return true;
+        });
+    }
+
+    public void onItemsDeleted(long userId, Collection<Long> itemIds) {
+        List<Long> ids = List.copyOf(itemIds);
+        afterCommit(userId, index -> {
+            index.remove(ids);
+            return !index.isFragmented();
+        });
+    }
+
+    // изменения с других узлов инкрементально не применить — индекс пользователя строится заново
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onUserDataChanged(UserDataChangedEvent event) {
+        if (event.remote()) {
+            synchronized (indexes) {
+                writeStamps.incrementAndGet(stripe(event.userId()));
+                indexes.remove(event.userId());
+            }
+        }
+    }
+
+    @EventListener
+    public void onAllUserDataChanged(AllUserDataChangedEvent event) {
+        synchronized (indexes) {
+            for (int i = 0; i < STRIPES; i++) {
+                writeStamps.incrementAndGet(i);
+            }
+            indexes.clear();
+        }
+    }
+
+    public long memoryBytes() {
+        synchronized (indexes) {
+            return indexes.values().stream()
+                    .map(SoftReference::get)
+                    .filter(index -> index != null)
+                    .mapToLong(TagBitmapIndex::sizeInBytes)
+                    .sum();
+        }
+    }
+
+    private TagBitmapIndex getOrLoad(long userId) {
+        TagBitmapIndex index = get(userId);
+        if (index != null) {
+            return index;
+        }
+
+        long stamp = writeStamps.get(stripe(userId));
+        index = load(userId);
+        // внутри пишущей транзакции видны её незакоммиченные изменения — такой индекс кэшировать нельзя
+        boolean committedView = !TransactionSynchronizationManager.isActualTransactionActive()
+                || TransactionSynchronizationManager.isCurrentTransactionReadOnly();
+        synchronized (indexes) {
+            if (committedView && writeStamps.get(stripe(userId)) == stamp) {
+                indexes.put(userId, new SoftReference<>(index));
+            }
+        }
+        return index;
+    }
+
+    private TagBitmapIndex load(long userId) {
+        TagBitmapIndex index = new TagBitmapIndex();
+        Long currentId = null;
+        Set<String> currentTags = new HashSet<>();
+        // строки отсортированы по id, поэтому порядковые номера выдаются по возрастанию
+        for (Object[] row : itemRepository.findIdsAndTagsByUserId(userId)) {
+            Long itemId = (Long) row[0];
+            if (!itemId.equals(currentId)) {
+                if (currentId != null) {
+                    index.put(currentId, currentTags);
+                }
+                currentId = itemId;
+                currentTags = new HashSet<>();
+            }
+            if (row[1] != null) {
+                currentTags.add((String) row[1]);
+            }
+        }
+        if (currentId != null) {
+            index.put(currentId, currentTags);
+        }
+        return index;
+    }
+
+    private TagBitmapIndex get(long userId) {
+        synchronized (indexes) {
+            SoftReference<TagBitmapIndex> reference = indexes.get(userId);
+            TagBitmapIndex index = reference == null ? null : reference.get();
+            if (reference != null && index == null) {
+                indexes.remove(userId);
+            }
+            return index;
+        }
+    }
+
+    // update возвращает false, если индекс больше нельзя поддерживать инкрементально — тогда он выбрасывается
+    private void afterCommit(long userId, IndexUpdate update) {
+        Runnable apply = () -> {
+            TagBitmapIndex index;
+            synchronized (indexes) {
+                writeStamps.incrementAndGet(stripe(userId));
+                index = get(userId);
+            }
+            if (index != null && !update.apply(index)) {
+                synchronized (indexes) {
+                    indexes.remove(userId);
+                }
+            }
+        };
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    apply.run();
+                }
+            });
+        } else {
+            apply.run();
+        }
+    }
+
+    private static int stripe(long userId) {
+        return (int) Math.floorMod(userId, (long) STRIPES);
+    }
+
+    @FunctionalInterface
+    private interface IndexUpdate {
+        boolean apply(TagBitmapIndex index);
+    }
+}
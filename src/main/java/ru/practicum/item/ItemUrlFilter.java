@@ -0,0 +1,221 @@
+package ru.practicum.item;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.practicum.common.AllUserDataChangedEvent;
+import ru.practicum.common.UserDataChangedEvent;
+
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// Фильтры Блума над url сохранённых ссылок, по одному на пользователя. Ответ «точно нет» позволяет
+// не спрашивать БД, есть ли у пользователя такая ссылка. Фильтр строится в фоне: пока его нет,
+// ответ «возможно есть», и проверка идёт в БД как раньше. Добавленные ссылки попадают в фильтр после коммита.
+// Фильтр локален для узла: изменения с других узлов приходят через шину инвалидации и сбрасывают фильтр
+// пользователя. Если ссылка с другого узла всё же не попала в фильтр, выполняется обычный путь с upsert,
+// что по-прежнему корректно.
+// Память ограничена числом фильтров (LRU) и размером одного фильтра: для пользователей, у которых ссылок
+// больше max-items-per-user, фильтр не строится.
+@Component
+public class ItemUrlFilter {
+    // ссылка, закоммиченная во время построения фильтра, могла в него не попасть;
+    // такие записи отмечаются в штампах (по полосам от userId), и построенный фильтр тогда не кэшируется
+    private static final int STRIPES = 1024;
+    // отметка пользователя, для которого фильтр не строится: ответ для него всегда «возможно есть»
+    private static final UrlBloomFilter OVERSIZED = new UrlBloomFilter(1, 0.5);
+
+    private final ItemRepository itemRepository;
+    private final TaskScheduler taskScheduler;
+    private final int maxUsers;
+    private final int minCapacity;
+    private final int maxItemsPerUser;
+    private final double falsePositiveRate;
+    private final Map<Long, UrlBloomFilter> filters;
+    private final AtomicLongArray writeStamps = new AtomicLongArray(STRIPES);
+    private final Set<Long> loading = ConcurrentHashMap.newKeySet();
+
+    private final AtomicLong definitelyAbsent = new AtomicLong();
+    private final AtomicLong confirmedPresent = new AtomicLong();
+    private final AtomicLong falsePositives = new AtomicLong();
+    private final AtomicLong loads = new AtomicLong();
+
+    public ItemUrlFilter(ItemRepository itemRepository,
+                         TaskScheduler taskScheduler,
+                         @Value("${item-url-filter.max-users:10000}") int maxUsers,
+                         @Value("${item-url-filter.expected-items:1000}") int minCapacity,
+                         @Value("${item-url-filter.max-items-per-user:20000}") int maxItemsPerUser,
+                         @Value("${item-url-filter.false-positive-rate:0.01}") double falsePositiveRate) {
+        this.itemRepository = itemRepository;
+        this.taskScheduler = taskScheduler;
+        this.maxUsers = maxUsers;
+        this.minCapacity = minCapacity;
+        this.maxItemsPerUser = maxItemsPerUser;
+        this.falsePositiveRate = falsePositiveRate;
+        this.filters = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, UrlBloomFilter> eldest) {
+                return size() > ItemUrlFilter.this.maxUsers;
+            }
+        };
+    }
+
+    public boolean mightContain(long userId, String url) {
+        UrlBloomFilter filter = get(userId);
+        if (filter == null) {
+            scheduleLoad(userId);
+            return true;
+        }
+        boolean result = filter == OVERSIZED || filter.mightContain(url);
+        if (!result) {
+            definitelyAbsent.incrementAndGet();
+        }
+        return result;
+    }
+
+    // результат проверки в БД после ответа «возможно есть» — из них считается доля ложных срабатываний
+    public void recordLookup(boolean found) {
+        (found ? confirmedPresent : falsePositives).incrementAndGet();
+    }
+
+    // url попадает в фильтр после коммита: до него ссылку не видят ни другие запросы, ни фоновая загрузка
+    public void add(long userId, String url) {
+        afterCommit(() -> {
+            UrlBloomFilter filter;
+            synchronized (filters) {
+                writeStamps.incrementAndGet(stripe(userId));
+                filter = filters.get(userId);
+            }
+            if (filter != null && filter != OVERSIZED) {
+                filter.put(url);
+                evictIfSaturated(userId, filter);
+            }
+        });
+    }
+
+    public void remove(long userId, int count) {
+        UrlBloomFilter filter = get(userId);
+        if (filter != null && filter != OVERSIZED) {
+            for (int i = 0; i < count; i++) {
+                filter.markRemoved();
+            }
+            evictIfSaturated(userId, filter);
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onUserDataChanged(UserDataChangedEvent event) {
+        if (event.remote()) {
+            synchronized (filters) {
+                writeStamps.incrementAndGet(stripe(event.userId()));
+                filters.remove(event.userId());
+            }
+        }
+    }
+
+    @EventListener
+    public void onAllUserDataChanged(AllUserDataChangedEvent event) {
+        synchronized (filters) {
+            for (int i = 0; i < STRIPES; i++) {
+                writeStamps.incrementAndGet(i);
+            }
+            filters.clear();
+        }
+    }
+
+    public Metrics getMetrics() {
+        long positives = confirmedPresent.get() + falsePositives.get();
+        long bytes;
+        int size;
+        synchronized (filters) {
+            size = filters.size();
+            bytes = filters.values().stream().mapToLong(UrlBloomFilter::sizeInBytes).sum();
+        }
+        return new Metrics(definitelyAbsent.get(), confirmedPresent.get(), falsePositives.get(),
+                positives == 0 ? 0 : (double) falsePositives.get() / positives, loads.get(), size, bytes);
+    }
+
+    private UrlBloomFilter get(long userId) {
+        synchronized (filters) {
+            return filters.get(userId);
+        }
+    }
+
+    // построение не должно держать запрос и его транзакцию: фильтр загружается в пуле планировщика
+    private void scheduleLoad(long userId) {
+        if (loading.add(userId)) {
+            taskScheduler.schedule(() -> {
+                try {
+                    load(userId);
+                } finally {
+                    loading.remove(userId);
+                }
+            }, Instant.now());
+        }
+    }
+
+    void load(long userId) {
+        long stamp = writeStamps.get(stripe(userId));
+        // читается на одну ссылку больше предела — так видно, что пользователь в фильтр не помещается
+        List<String> urls = itemRepository.findUrlsByUserId(userId, PageRequest.of(0, maxItemsPerUser + 1));
+        UrlBloomFilter filter = OVERSIZED;
+        if (urls.size() <= maxItemsPerUser) {
+            filter = new UrlBloomFilter(Math.max(minCapacity, Math.min(urls.size() * 2, maxItemsPerUser)),
+                    falsePositiveRate);
+            for (String url : urls) {
+                filter.put(url);
+            }
+        }
+        loads.incrementAndGet();
+        synchronized (filters) {
+            if (writeStamps.get(stripe(userId)) == stamp) {
+                filters.putIfAbsent(userId, filter);
+            }
+        }
+    }
+
+    private void evictIfSaturated(long userId, UrlBloomFilter filter) {
+        if (filter.isSaturated()) {
+            synchronized (filters) {
+                filters.remove(userId, filter);
+            }
+        }
+    }
+
+    private static void afterCommit(Runnable apply) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    apply.run();
+                }
+            });
+        } else {
+            apply.run();
+        }
+    }
+
+    private static int stripe(long userId) {
+        return (int) Math.floorMod(userId, (long) STRIPES);
+    }
+
+    public record Metrics(long definitelyAbsent,
+                          long confirmedPresent,
+                          long falsePositives,
+                          double falsePositiveRate,
+                          long loads,
+                          int cachedUsers,
+                          long memoryBytes) {
+    }
+}
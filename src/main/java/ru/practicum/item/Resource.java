@@ -0,0 +1,63 @@
+package ru.practicum.item;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.ToString;
+
+import java.time.Instant;
+
+// Метаданные страницы, общие для всех пользователей, сохранивших ссылку с этим resolved_url,
+// и HTTP-валидаторы (ETag / Last-Modified) для её фоновой перепроверки.
+@Getter
+@Setter
+@Entity
+@ToString
+@Table(name = "resources", schema = "public",
+        indexes = @Index(name = "ix_resources_date_resolved", columnList = "date_resolved"))
+public class Resource {
+
+    @Id
+    @Column(name = "resolved_url", length = 1500)
+    private String resolvedUrl;
+
+    @Column(name = "mime_type")
+    private String mimeType;
+
+    @Column(name = "title", length = 1000)
+    private String title;
+
+    @Column(name = "has_image")
+    private Boolean hasImage;
+
+    @Column(name = "has_video")
+    private Boolean hasVideo;
+
+    @Column(name = "date_resolved")
+    private Instant dateResolved;
+
+    @Column(name = "etag", length = 500)
+    private String etag;
+
+    @Column(name = "last_modified")
+    private Instant lastModified;
+
+    @Column(name = "checked_at")
+    private Instant checkedAt;
+
+    @Override
+    public int hashCode() {
+        return getClass().hashCode();
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) return true;
+        if (!(obj instanceof Resource)) return false;
+        return resolvedUrl != null && resolvedUrl.equals(((Resource) obj).getResolvedUrl());
+    }
+}
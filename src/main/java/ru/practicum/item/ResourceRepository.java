@@ -0,0 +1,31 @@
+package ru.practicum.item;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+
+import java.time.Instant;
+import java.util.Optional;
+
+public interface ResourceRepository extends JpaRepository<Resource, String>, ResourceRepositoryCustom {
+
+    // адрес мог быть сохранён кем-то как уже разрешённый или как исходный url другой ссылки;
+    // ресурс свежий, если его получили или подтвердили условным запросом после freshAfter
+    @Query(value = "SELECT r.* FROM resources r " +
+                   "WHERE GREATEST(r.date_resolved, COALESCE(r.checked_at, r.date_resolved)) > ?2 " +
+                   "  AND (r.resolved_url = ?1 " +
+                   "       OR r.resolved_url IN (SELECT i.resolved_url FROM items i WHERE i.url = ?1)) " +
+                   "LIMIT 1",
+            nativeQuery = true)
+    Optional<Resource> findFresh(String url, Instant freshAfter);
+
+    // отсутствующий в ответе валидатор не затирает сохранённый ранее
+    @Modifying
+    @Query(value = "UPDATE resources SET " +
+                   "etag = COALESCE(?2, etag), " +
+                   "last_modified = COALESCE(?3, last_modified), " +
+                   "checked_at = ?4 " +
+                   "WHERE resolved_url = ?1",
+            nativeQuery = true)
+    void updateValidators(String resolvedUrl, String etag, Instant lastModified, Instant checkedAt);
+}
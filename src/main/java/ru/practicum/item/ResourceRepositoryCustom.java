@@ -0,0 +1,16 @@
+package ru.practicum.item;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+
+public interface ResourceRepositoryCustom {
+
+    // адреса, полученные раньше resolvedBefore и не проверявшиеся после checkedBefore, начиная с самых старых;
+    // ресурсы, на которые не ссылается ни одна ссылка, пропускаются
+    List<String> findStaleResolvedUrls(Instant resolvedBefore, Instant checkedBefore, int limit);
+
+    // обновляет метаданные ресурса, только если они действительно изменились;
+    // возвращает id ссылок на него, сгруппированные по владельцу (пусто, если ничего не поменялось)
+    Map<Long, List<Long>> refreshMetadata(String resolvedUrl, UrlMetaDataRetriever.UrlMetadata metadata);
+}
@@ -0,0 +1,88 @@
+package ru.practicum.item;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.hibernate.Session;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+class ResourceRepositoryCustomImpl implements ResourceRepositoryCustom {
+    // checked_at не даёт снова и снова выбирать адреса, которые не менялись (304)
+    private static final String FIND_STALE_RESOLVED_URLS = """
+            SELECT r.resolved_url
+            FROM resources r
+            WHERE r.date_resolved < ? AND (r.checked_at IS NULL OR r.checked_at < ?)
+              AND EXISTS (SELECT 1 FROM items i WHERE i.resolved_url = r.resolved_url)
+            ORDER BY r.date_resolved
+            LIMIT ?
+            """;
+
+    private static final String REFRESH_METADATA = """
+            WITH updated AS (
+                UPDATE resources
+                SET mime_type = ?, title = ?, has_image = ?, has_video = ?, date_resolved = ?
+                WHERE resolved_url = ?
+                  AND (mime_type IS DISTINCT FROM ? OR title IS DISTINCT FROM ?
+                       OR has_image IS DISTINCT FROM ? OR has_video IS DISTINCT FROM ?)
+                RETURNING resolved_url
+            )
+            SELECT i.id, i.user_id
+            FROM items i
+            JOIN updated u ON u.resolved_url = i.resolved_url
+            """;
+
+    @PersistenceContext
+    private EntityManager em;
+
+    @Override
+    public List<String> findStaleResolvedUrls(Instant resolvedBefore, Instant checkedBefore, int limit) {
+        return em.unwrap(Session.class).doReturningWork(connection -> {
+            try (PreparedStatement ps = connection.prepareStatement(FIND_STALE_RESOLVED_URLS)) {
+                ps.setObject(1, OffsetDateTime.ofInstant(resolvedBefore, ZoneOffset.UTC));
+                ps.setObject(2, OffsetDateTime.ofInstant(checkedBefore, ZoneOffset.UTC));
+                ps.setInt(3, limit);
+                List<String> urls = new ArrayList<>();
+                try (ResultSet rs = ps.executeQuery()) {
+                    while (rs.next()) {
+                        urls.add(rs.getString(1));
+                    }
+                }
+                return urls;
+            }
+        });
+    }
+
+    @Override
+    public Map<Long, List<Long>> refreshMetadata(String resolvedUrl, UrlMetaDataRetriever.UrlMetadata metadata) {
+        return em.unwrap(Session.class).doReturningWork(connection -> {
+            try (PreparedStatement ps = connection.prepareStatement(REFRESH_METADATA)) {
+                ps.setString(1, metadata.getMimeType());
+                ps.setString(2, metadata.getTitle());
+                ps.setBoolean(3, metadata.isHasImage());
+                ps.setBoolean(4, metadata.isHasVideo());
+                ps.setObject(5, OffsetDateTime.ofInstant(metadata.getDateResolved(), ZoneOffset.UTC));
+                ps.setString(6, resolvedUrl);
+                ps.setString(7, metadata.getMimeType());
+                ps.setString(8, metadata.getTitle());
+                ps.setBoolean(9, metadata.isHasImage());
+                ps.setBoolean(10, metadata.isHasVideo());
+                Map<Long, List<Long>> updated = new HashMap<>();
+                try (ResultSet rs = ps.executeQuery()) {
+                    while (rs.next()) {
+                        updated.computeIfAbsent(rs.getLong("user_id"), userId -> new ArrayList<>())
+                                .add(rs.getLong("id"));
+                    }
+                }
+                return updated;
+            }
+        });
+    }
+}
@@ -0,0 +1,140 @@
+package ru.practicum.item;
+
+import ru.practicum.item.dto.TagSuggestionDto;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+
+// Индекс тегов одного пользователя. id ссылок глобальные и разреженные, поэтому каждой ссылке
+// выдаётся плотный порядковый номер, а теги хранятся как BitSet над этими номерами —
+// на тег уходит бит на каждую ссылку пользователя независимо от величины id.
+// Номера выдаются по возрастанию id; ссылка с меньшим id, чем последняя известная,
+// сломала бы порядок — тогда индекс сообщает, что его нужно пересобрать.
+// Теги отсортированы, поэтому те же битовые карты служат и префиксным индексом для подсказок.
+final class TagBitmapIndex {
+    private static final BitSet EMPTY = new BitSet();
+
+    private long[] ids = new long[16];
+    private int size;
+    private final BitSet alive = new BitSet();
+    private final NavigableMap<String, BitSet> tags = new TreeMap<>();
+
+    // возвращает false, если ссылку нельзя добавить без перенумерации
+    synchronized boolean put(long itemId, Set<String> itemTags) {
+        int ordinal = ordinalOf(itemId);
+        if (ordinal < 0) {
+            if (size > 0 && itemId < ids[size - 1]) {
+                return false;
+            }
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+            }
+            ordinal = size++;
+            ids[ordinal] = itemId;
+        }
+        alive.set(ordinal);
+        for (BitSet bits : tags.values()) {
+            bits.clear(ordinal);
+        }
+        for (String tag : itemTags) {
+            tags.computeIfAbsent(tag, t -> new BitSet()).set(ordinal);
+        }
+        return true;
+    }
+
+    synchronized void addTags(Collection<Long> itemIds, Set<String> addedTags) {
+        for (long itemId : itemIds) {
+            int ordinal = ordinalOf(itemId);
+            if (ordinal >= 0) {
+                for (String tag : addedTags) {
+                    tags.computeIfAbsent(tag, t -> new BitSet()).set(ordinal);
+                }
+            }
+        }
+    }
+
+    synchronized void retainTags(Collection<Long> itemIds, Set<String> keptTags) {
+        for (long itemId : itemIds) {
+            int ordinal = ordinalOf(itemId);
+            if (ordinal >= 0) {
+                tags.forEach((tag, bits) -> {
+                    if (!keptTags.contains(tag)) {
+                        bits.clear(ordinal);
+                    }
+                });
+            }
+        }
+    }
+
+    synchronized void remove(Collection<Long> itemIds) {
+        for (long itemId : itemIds) {
+            int ordinal = ordinalOf(itemId);
+            if (ordinal >= 0) {
+                alive.clear(ordinal);
+                for (BitSet bits : tags.values()) {
+                    bits.clear(ordinal);
+                }
+            }
+        }
+    }
+
+    // номера удалённых ссылок не переиспользуются; когда их становится больше половины, индекс проще пересобрать
+    synchronized boolean isFragmented() {
+        return size > 64 && alive.cardinality() < size / 2;
+    }
+
+    // id ссылок, подходящих под выражение, от новых к старым
+    synchronized List<Long> find(TagExpression expression, int from, int limit) {
+        BitSet matched = expression.evaluate(tag -> tags.getOrDefault(tag, EMPTY), alive);
+        matched.and(alive);
+
+        List<Long> result = new ArrayList<>();
+        int skipped = 0;
+        for (int ordinal = matched.previousSetBit(size - 1);
+             ordinal >= 0 && result.size() < limit;
+             ordinal = matched.previousSetBit(ordinal - 1)) {
+            if (skipped++ >= from) {
+                result.add(ids[ordinal]);
+            }
+        }
+        return result;
+    }
+
+    // самые частые теги с заданным префиксом; частота — число живых ссылок с тегом
+    synchronized List<TagSuggestionDto> suggest(String prefix, int limit) {
+        NavigableMap<String, BitSet> matched = prefix.isEmpty()
+                ? tags
+                : tags.subMap(prefix, true, prefix + Character.MAX_VALUE, false);
+        List<TagSuggestionDto> result = new ArrayList<>();
+        for (Map.Entry<String, BitSet> entry : matched.entrySet()) {
+            int count = entry.getValue().cardinality();
+            if (count > 0) {
+                result.add(TagSuggestionDto.of(entry.getKey(), count));
+            }
+        }
+        result.sort(Comparator.comparingLong(TagSuggestionDto::getCount).reversed()
+                .thenComparing(TagSuggestionDto::getName));
+        return result.size() > limit ? List.copyOf(result.subList(0, limit)) : result;
+    }
+
+    synchronized long sizeInBytes() {
+        long bytes = ids.length * 8L + alive.size() / 8;
+        for (Map.Entry<String, BitSet> entry : tags.entrySet()) {
+            bytes += entry.getKey().length() * 2L + entry.getValue().size() / 8;
+        }
+        return bytes;
+    }
+
+    private int ordinalOf(long itemId) {
+        int ordinal = Arrays.binarySearch(ids, 0, size, itemId);
+        return ordinal >= 0 ? ordinal : -1;
+    }
+}
@@ -0,0 +1,26 @@
+package ru.practicum.item;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import ru.practicum.item.dto.TagSuggestionDto;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/tags")
+@RequiredArgsConstructor
+public class TagController {
+    private final TagSuggestionService tagSuggestionService;
+
+    @GetMapping
+    public List<TagSuggestionDto> suggest(@RequestHeader("X-Later-User-Id") long userId,
+                                          @RequestParam(name = "prefix", defaultValue = "") String prefix,
+                                          @RequestParam(name = "limit", defaultValue = "10") int limit) {
+        // возвращает самые используемые теги пользователя, начинающиеся с prefix
+        return tagSuggestionService.suggest(userId, prefix, limit);
+    }
+}
@@ -0,0 +1,173 @@
+package ru.practicum.item;
+
+import ru.practicum.common.BadRequestException;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+import java.util.function.Function;
+
+// Логическое выражение над тегами: java AND (spring OR hibernate) AND NOT draft.
+// Соседние теги без оператора объединяются через AND, теги с пробелами берутся в кавычки.
+// Приоритет операторов: NOT, затем AND, затем OR.
+public sealed interface TagExpression {
+
+    // вычисляет множество порядковых номеров ссылок; all — все ссылки пользователя, нужен для NOT
+    BitSet evaluate(Function<String, BitSet> tagBits, BitSet all);
+
+    static TagExpression anyOf(Collection<String> tags) {
+        if (tags == null || tags.isEmpty()) {
+            throw new BadRequestException("errors.400.items.tags.expression");
+        }
+        return new Or(tags.stream().<TagExpression>map(Tag::new).toList());
+    }
+
+    static TagExpression parse(String expression) {
+        Parser parser = new Parser(tokenize(expression));
+        TagExpression result = parser.parseOr();
+        if (parser.hasNext()) {
+            throw new BadRequestException("errors.400.items.tags.expression");
+        }
+        return result;
+    }
+
+    record Tag(String name) implements TagExpression {
+        @Override
+        public BitSet evaluate(Function<String, BitSet> tagBits, BitSet all) {
+            return (BitSet) tagBits.apply(name).clone();
+        }
+    }
+
+    record Not(TagExpression operand) implements TagExpression {
+        @Override
+        public BitSet evaluate(Function<String, BitSet> tagBits, BitSet all) {
+            BitSet result = (BitSet) all.clone();
+            result.andNot(operand.evaluate(tagBits, all));
+            return result;
+        }
+    }
+
+    record And(List<TagExpression> operands) implements TagExpression {
+        @Override
+        public BitSet evaluate(Function<String, BitSet> tagBits, BitSet all) {
+            BitSet result = null;
+            for (TagExpression operand : operands) {
+                BitSet bits = operand.evaluate(tagBits, all);
+                if (result == null) {
+                    result = bits;
+                } else {
+                    result.and(bits);
+                }
+                if (result.isEmpty()) {
+                    break;
+                }
+            }
+            return result;
+        }
+    }
+
+    record Or(List<TagExpression> operands) implements TagExpression {
+        @Override
+        public BitSet evaluate(Function<String, BitSet> tagBits, BitSet all) {
+            BitSet result = new BitSet();
+            for (TagExpression operand : operands) {
+                result.or(operand.evaluate(tagBits, all));
+            }
+            return result;
+        }
+    }
+
+    private static List<String> tokenize(String expression) {
+        if (expression == null || expression.isBlank()) {
+            throw new BadRequestException("errors.400.items.tags.expression");
+        }
+
+        List<String> tokens = new ArrayList<>();
+        int i = 0;
+        while (i < expression.length()) {
+            char c = expression.charAt(i);
+            if (Character.isWhitespace(c)) {
+                i++;
+            } else if (c == '(' || c == ')') {
+                tokens.add(String.valueOf(c));
+                i++;
+            } else if (c == '"') {
+                int end = expression.indexOf('"', i + 1);
+                if (end < 0) {
+                    throw new BadRequestException("errors.400.items.tags.expression");
+                }
+                // кавычки сохраняем, чтобы тег "and" не приняли за оператор
+                tokens.add(expression.substring(i, end + 1));
+                i = end + 1;
+            } else {
+                int start = i;
+                while (i < expression.length() && !Character.isWhitespace(expression.charAt(i))
+                        && "()\"".indexOf(expression.charAt(i)) < 0) {
+                    i++;
+                }
+                tokens.add(expression.substring(start, i));
+            }
+        }
+        return tokens;
+    }
+
+    final class Parser {
+        private final List<String> tokens;
+        private int position;
+
+        private Parser(List<String> tokens) {
+            this.tokens = tokens;
+        }
+
+        private boolean hasNext() {
+            return position < tokens.size();
+        }
+
+        private boolean nextIs(String keyword) {
+            return hasNext() && tokens.get(position).toUpperCase(Locale.ROOT).equals(keyword);
+        }
+
+        private TagExpression parseOr() {
+            List<TagExpression> operands = new ArrayList<>(List.of(parseAnd()));
+            while (nextIs("OR")) {
+                position++;
+                operands.add(parseAnd());
+            }
+            return operands.size() == 1 ? operands.getFirst() : new Or(operands);
+        }
+
+        private TagExpression parseAnd() {
+            List<TagExpression> operands = new ArrayList<>(List.of(parseNot()));
+            while (hasNext() && !nextIs("OR") && !nextIs(")")) {
+                if (nextIs("AND")) {
+                    position++;
+                }
+                operands.add(parseNot());
+            }
+            return operands.size() == 1 ? operands.getFirst() : new And(operands);
+        }
+
+        private TagExpression parseNot() {
+            if (nextIs("NOT")) {
+                position++;
+                return new Not(parseNot());
+            }
+            if (nextIs("(")) {
+                position++;
+                TagExpression inner = parseOr();
+                if (!nextIs(")")) {
+                    throw new BadRequestException("errors.400.items.tags.expression");
+                }
+                position++;
+                return inner;
+            }
+            if (!hasNext() || nextIs(")") || nextIs("AND") || nextIs("OR")) {
+                throw new BadRequestException("errors.400.items.tags.expression");
+            }
+            String token = tokens.get(position++);
+            return new Tag(token.startsWith("\"") ? token.substring(1, token.length() - 1) : token);
+        }
+    }
+}
@@ -0,0 +1,10 @@
+package ru.practicum.item;
+
+import ru.practicum.item.dto.TagSuggestionDto;
+
+import java.util.List;
+
+public interface TagSuggestionService {
+
+    List<TagSuggestionDto> suggest(long userId, String prefix, int limit);
+}
@@ -0,0 +1,54 @@
+package ru.practicum.item;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.item.dto.TagSuggestionDto;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+@Service
+@RequiredArgsConstructor
+class TagSuggestionServiceImpl implements TagSuggestionService {
+    private static final int MAX_LIMIT = 100;
+
+    private final ItemTagIndex itemTagIndex;
+    private final ItemCounterRepository itemCounterRepository;
+    private final TaskScheduler taskScheduler;
+    private final Set<Long> warmingUp = ConcurrentHashMap.newKeySet();
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<TagSuggestionDto> suggest(long userId, String prefix, int limit) {
+        String normalizedPrefix = prefix == null ? "" : prefix;
+        int normalizedLimit = Math.clamp(limit, 1, MAX_LIMIT);
+        return itemTagIndex.suggestTags(userId, normalizedPrefix, normalizedLimit)
+                .orElseGet(() -> suggestFromCounters(userId, normalizedPrefix, normalizedLimit));
+    }
+
+    // холодный путь: первый запрос обслуживается из счётчиков, а индекс строится в фоне —
+    // следующие нажатия клавиш уже попадут в память
+    private List<TagSuggestionDto> suggestFromCounters(long userId, String prefix, int limit) {
+        if (warmingUp.add(userId)) {
+            taskScheduler.schedule(() -> {
+                try {
+                    itemTagIndex.warmUp(userId);
+                } finally {
+                    warmingUp.remove(userId);
+                }
+            }, Instant.now());
+        }
+
+        PageRequest page = PageRequest.of(0, limit, Sort.by(Sort.Order.desc("totalCount"), Sort.Order.asc("id.name")));
+        return itemCounterRepository.findAllByIdUserIdAndIdDimensionAndIdNameStartingWithAndTotalCountGreaterThan(
+                        userId, ItemCounter.Dimension.TAG, prefix, 0, page).stream()
+                .map(counter -> TagSuggestionDto.of(counter.getId().getName(), counter.getTotalCount()))
+                .toList();
+    }
+}
@@ -0,0 +1,97 @@
+package ru.practicum.item;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// Фильтр Блума над строками фиксированного размера. Потокобезопасен: биты ставятся через CAS.
+// Позиции считаются двойным хешированием (Kirsch–Mitzenmacher) от 64-битного FNV-1a.
+final class UrlBloomFilter {
+    private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private final AtomicLongArray words;
+    private final long bitCount;
+    private final int hashCount;
+    private final int capacity;
+    private final AtomicInteger insertions = new AtomicInteger();
+    private final AtomicInteger removals = new AtomicInteger();
+
+    UrlBloomFilter(int capacity, double falsePositiveRate) {
+        this.capacity = Math.max(capacity, 1);
+        long bits = (long) Math.ceil(-this.capacity * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+        this.words = new AtomicLongArray((int) ((bits + 63) / 64));
+        this.bitCount = words.length() * 64L;
+        this.hashCount = Math.max(1, (int) Math.round((double) bitCount / this.capacity * Math.log(2)));
+    }
+
+    void put(String value) {
+        long hash = hash(value);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        for (int i = 1; i <= hashCount; i++) {
+            setBit(index(h1 + i * h2));
+        }
+        insertions.incrementAndGet();
+    }
+
+    boolean mightContain(String value) {
+        long hash = hash(value);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        for (int i = 1; i <= hashCount; i++) {
+            long bit = index(h1 + i * h2);
+            if ((words.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // удалить значение из фильтра Блума нельзя — только учитываем, сколько в нём «мёртвых» элементов
+    void markRemoved() {
+        removals.incrementAndGet();
+    }
+
+    // переполненный или заметно устаревший фильтр даёт слишком много ложных срабатываний — его пора пересобрать
+    boolean isSaturated() {
+        int live = insertions.get();
+        return live > capacity || removals.get() > live / 4 + 16;
+    }
+
+    long sizeInBytes() {
+        return bitCount / 8;
+    }
+
+    private long index(int combinedHash) {
+        // отрицательные значения переворачиваем, чтобы индекс был в [0, bitCount)
+        return ((combinedHash < 0 ? ~combinedHash : combinedHash) & 0xffffffffL) % bitCount;
+    }
+
+    private void setBit(long bit) {
+        int word = (int) (bit >>> 6);
+        long mask = 1L << bit;
+        long current;
+        do {
+            current = words.get(word);
+            if ((current & mask) != 0) {
+                return;
+            }
+        } while (!words.compareAndSet(word, current, current | mask));
+    }
+
+    private static long hash(String value) {
+        long hash = FNV_OFFSET;
+        for (byte b : value.getBytes(StandardCharsets.UTF_8)) {
+            hash ^= b & 0xff;
+            hash *= FNV_PRIME;
+        }
+        // финальное перемешивание (splitmix64), чтобы обе половины хеша были независимыми
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+}
@@ -0,0 +1,135 @@
+package ru.practicum.item;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import ru.practicum.common.ItemRetrieverException;
+
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+// Приводит адрес к каноническому виду до запроса к сайту, чтобы одна и та же страница,
+// сохранённая с разными метками и в разной записи, давала один ресурс и одну ссылку.
+@Component
+public class UrlCanonicalizer {
+    private static final Pattern PERCENT_ESCAPE = Pattern.compile("%[0-9a-fA-F]{2}");
+
+    private final Set<String> trackingParams;
+    private final List<String> trackingPrefixes;
+
+    // параметр с «*» на конце задаёт префикс: utm_* отбрасывает utm_source, utm_medium и т.д.
+    public UrlCanonicalizer(@Value("${url-canonicalizer.tracking-params:utm_*,fbclid,gclid,yclid,mc_cid,mc_eid,_openstat}")
+                            String trackingParams) {
+        Set<String> exact = new HashSet<>();
+        List<String> prefixes = new ArrayList<>();
+        for (String param : trackingParams.split(",")) {
+            String name = param.trim().toLowerCase(Locale.ROOT);
+            if (name.isEmpty()) {
+                continue;
+            }
+            if (name.endsWith("*")) {
+                prefixes.add(name.substring(0, name.length() - 1));
+            } else {
+                exact.add(name);
+            }
+        }
+        this.trackingParams = Set.copyOf(exact);
+        this.trackingPrefixes = List.copyOf(prefixes);
+    }
+
+    public String canonicalize(String url) {
+        final URI uri;
+        try {
+            uri = new URI(url.trim()).normalize();
+        } catch (URISyntaxException | NullPointerException e) {
+            throw new ItemRetrieverException("The URL is malformed: " + url, e);
+        }
+        if (uri.getScheme() == null || uri.getRawAuthority() == null) {
+            throw new ItemRetrieverException("The URL is malformed: " + url);
+        }
+
+        String scheme = uri.getScheme().toLowerCase(Locale.ROOT);
+        StringBuilder result = new StringBuilder(url.length())
+                .append(scheme)
+                .append("://");
+        if (uri.getRawUserInfo() != null) {
+            result.append(uri.getRawUserInfo()).append('@');
+        }
+        if (uri.getHost() == null) {
+            // нестандартный authority (например, «_» в имени хоста) оставляем как есть, меняя только регистр
+            result.append(uri.getRawAuthority().toLowerCase(Locale.ROOT));
+        } else {
+            result.append(stripTrailingDot(uri.getHost().toLowerCase(Locale.ROOT)));
+            if (uri.getPort() != -1 && uri.getPort() != defaultPort(scheme)) {
+                result.append(':').append(uri.getPort());
+            }
+        }
+
+        String path = uri.getRawPath();
+        result.append(path == null || path.isEmpty() ? "/" : upperCaseEscapes(path));
+
+        String query = canonicalQuery(uri.getRawQuery());
+        if (!query.isEmpty()) {
+            result.append('?').append(query);
+        }
+        // фрагмент (#...) браузер на сервер не отправляет, поэтому отбрасываем его
+        return result.toString();
+    }
+
+    private String canonicalQuery(String rawQuery) {
+        if (rawQuery == null || rawQuery.isEmpty()) {
+            return "";
+        }
+        // сортировка устойчивая: порядок повторяющихся параметров (a=1&a=2) сохраняется
+        return Arrays.stream(rawQuery.split("&"))
+                .filter(param -> !param.isEmpty())
+                .map(this::upperCaseEscapes)
+                .filter(param -> !isTracking(name(param)))
+                .sorted(Comparator.comparing(UrlCanonicalizer::name))
+                .collect(Collectors.joining("&"));
+    }
+
+    private boolean isTracking(String name) {
+        String lowerCaseName = name.toLowerCase(Locale.ROOT);
+        if (trackingParams.contains(lowerCaseName)) {
+            return true;
+        }
+        for (String prefix : trackingPrefixes) {
+            if (lowerCaseName.startsWith(prefix)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String name(String param) {
+        int eq = param.indexOf('=');
+        return eq == -1 ? param : param.substring(0, eq);
+    }
+
+    private String upperCaseEscapes(String value) {
+        Matcher matcher = PERCENT_ESCAPE.matcher(value);
+        return matcher.replaceAll(match -> match.group().toUpperCase(Locale.ROOT));
+    }
+
+    private static String stripTrailingDot(String host) {
+        return host.endsWith(".") ? host.substring(0, host.length() - 1) : host;
+    }
+
+    private static int defaultPort(String scheme) {
+        return switch (scheme) {
+            case "http" -> 80;
+            case "https" -> 443;
+            default -> -1;
+        };
+    }
+}
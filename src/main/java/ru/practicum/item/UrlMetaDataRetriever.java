@@ -5,6 +5,19 @@ import java.time.Instant;
 public interface UrlMetaDataRetriever {
     UrlMetadata retrieve(String urlString);
 
+    // Повторная проверка уже полученного адреса условным запросом (If-None-Match / If-Modified-Since).
+    // Валидаторы могут быть null — тогда запрос безусловный.
+    Revalidation revalidate(String resolvedUrl, String etag, Instant lastModified);
+
+    interface Revalidation {
+        // null, если сервер ответил 304 Not Modified
+        UrlMetadata getMetadata();
+
+        String getEtag();
+
+        Instant getLastModified();
+    }
+
     interface UrlMetadata {
         String getNormalUrl();
 
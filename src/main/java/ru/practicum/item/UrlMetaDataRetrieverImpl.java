@@ -11,6 +11,7 @@ import org.springframework.http.MediaType;
 import org.springframework.stereotype.Service;
 import org.springframework.util.MimeType;
 import ru.practicum.common.ItemRetrieverException;
+import ru.practicum.metrics.UrlFetchEvent;
 
 import java.io.File;
 import java.io.IOException;
@@ -21,6 +22,10 @@ import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
 import java.time.Duration;
 import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
 
 @Service
 public class UrlMetaDataRetrieverImpl implements UrlMetaDataRetriever {
@@ -68,6 +73,46 @@ public class UrlMetaDataRetrieverImpl implements UrlMetaDataRetriever {
                 .build();
     }
 
+    @Override
+    public Revalidation revalidate(String resolvedUrl, String etag, Instant lastModified) {
+        final URI uri;
+        try {
+            uri = new URI(resolvedUrl);
+        } catch (URISyntaxException e) {
+            throw new ItemRetrieverException("The URL is malformed: " + resolvedUrl, e);
+        }
+
+        HttpRequest.Builder request = HttpRequest.newBuilder()
+                .uri(uri)
+                .method("HEAD", HttpRequest.BodyPublishers.noBody());
+        if (etag != null) {
+            request.header(HttpHeaders.IF_NONE_MATCH, etag);
+        }
+        if (lastModified != null) {
+            request.header(HttpHeaders.IF_MODIFIED_SINCE,
+                    DateTimeFormatter.RFC_1123_DATE_TIME.format(lastModified.atOffset(ZoneOffset.UTC)));
+        }
+        HttpResponse<Void> resp = send(request.build(), HttpResponse.BodyHandlers.discarding());
+
+        // сервер может не прислать валидаторы в ответе 304 — тогда оставляем прежние
+        String newEtag = resp.headers().firstValue(HttpHeaders.ETAG).orElse(etag);
+        Instant newLastModified = resp.headers().firstValue(HttpHeaders.LAST_MODIFIED)
+                .map(this::parseHttpDate)
+                .orElse(lastModified);
+        if (resp.statusCode() == HttpStatus.NOT_MODIFIED.value()) {
+            return new RevalidationImpl(null, newEtag, newLastModified);
+        }
+        return new RevalidationImpl(retrieve(resolvedUrl), newEtag, newLastModified);
+    }
+
+    private Instant parseHttpDate(String value) {
+        try {
+            return ZonedDateTime.parse(value, DateTimeFormatter.RFC_1123_DATE_TIME).toInstant();
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+
     private <T> HttpResponse<T> connect(URI url,
                                         String method,
                                         HttpResponse.BodyHandler<T> responseBodyHandler) {
@@ -75,18 +120,28 @@ public class UrlMetaDataRetrieverImpl implements UrlMetaDataRetriever {
                 .uri(url)
                 .method(method, HttpRequest.BodyPublishers.noBody())
                 .build();
+        return send(request, responseBodyHandler);
+    }
+
+    private <T> HttpResponse<T> send(HttpRequest request, HttpResponse.BodyHandler<T> responseBodyHandler) {
+        URI url = request.uri();
 
-        //делаем запрос к данному url
+        //делаем запрос к данному url, каждый обмен пишется событием JFR
         final HttpResponse<T> response;
+        UrlFetchEvent event = UrlFetchEvent.start(request.method(), url.toString());
+        boolean succeeded = false;
 
         try {
             response = client.send(request, responseBodyHandler);
+            succeeded = true;
         } catch (IOException e) {
             throw new ItemRetrieverException("Cannot retrieve data from the URL: " + url, e);
         } catch (InterruptedException e) {
             Thread.currentThread().interrupt();
             throw new RuntimeException("Cannot get the metadata for url: " + url
                                        + " because the thread was interrupted.", e);
+        } finally {
+            event.end(succeeded);
         }
 
         HttpStatus httpStatus = HttpStatus.resolve(response.statusCode());
@@ -143,6 +198,13 @@ public class UrlMetaDataRetrieverImpl implements UrlMetaDataRetriever {
                 .build();
     }
 
+    @lombok.Value
+    public static class RevalidationImpl implements Revalidation {
+        UrlMetadata metadata;
+        String etag;
+        Instant lastModified;
+    }
+
     @lombok.Value
     @Builder(toBuilder = true)
     public static class UrlMetadataImpl implements UrlMetadata {
@@ -0,0 +1,38 @@
+package ru.practicum.item.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Set;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor(staticName = "of")
+public class BulkModifyItemRequest {
+    // ссылки выбираются либо явным списком id, либо фильтром в духе GET /items
+    private List<Long> ids;
+
+    private Filter filter;
+
+    private Boolean unread;
+
+    private Set<String> tags;
+
+    private Boolean replaceTags;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor(staticName = "of")
+    public static class Filter {
+        private GetItemRequest.State state = GetItemRequest.State.ALL;
+
+        private GetItemRequest.ContentType contentType = GetItemRequest.ContentType.ALL;
+
+        private List<String> tags;
+
+        private Instant resolvedBefore;
+    }
+}
@@ -0,0 +1,18 @@
+package ru.practicum.item.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor(staticName = "of")
+public class BulkModifyItemResult {
+    private int matchedItems;
+
+    private int updatedItems;
+
+    private int addedTags;
+
+    private int removedTags;
+}
@@ -10,6 +10,7 @@ import ru.practicum.item.dto.condition.SortCondition;
 import ru.practicum.item.dto.condition.StateCondition;
 
 import java.util.List;
+import java.util.Set;
 
 @Getter
 @AllArgsConstructor
@@ -20,16 +21,29 @@ public class GetItemRequest {
     private final Sort sort;
     private final int limit;
     private final List<String> tags;
+    // запрошенные клиентом поля ItemDto; пустой набор — все поля
+    private final Set<ItemField> fields;
 
+    public GetItemRequest(long userId, State state, ContentType contentType, Sort sort, int limit, List<String> tags) {
+        this(userId, state, contentType, sort, limit, tags, Set.of());
+    }
+
+    // тип содержимого определяется по началу mime_type ресурса (UrlMetaDataRetriever сохраняет тип без подтипа);
+    // по этому же префиксу ссылки раскладываются по счётчикам ItemCounter
     @Getter
-    @RequiredArgsConstructor
     public enum ContentType implements ContentTypeCondition {
         ALL(null),
-        ARTICLE(QItem.item.mimeType.startsWith("text")),
-        IMAGE(QItem.item.mimeType.startsWith("img")),
-        VIDEO(QItem.item.mimeType.startsWith("video"));
+        ARTICLE("text"),
+        IMAGE("image"),
+        VIDEO("video");
+        private final String mimeTypePrefix;
         private final BooleanExpression expr;
 
+        ContentType(String mimeTypePrefix) {
+            this.mimeTypePrefix = mimeTypePrefix;
+            this.expr = mimeTypePrefix == null ? null : QItem.item.resource.mimeType.startsWith(mimeTypePrefix);
+        }
+
         @Override
         public BooleanExpression get() {
             return expr;
@@ -54,9 +68,9 @@ public class GetItemRequest {
     @RequiredArgsConstructor
     public enum Sort implements SortCondition {
 
-        NEWEST(org.springframework.data.domain.Sort.by("dateResolved").descending()),
-        OLDEST(org.springframework.data.domain.Sort.by("dateResolved").ascending()),
-        TITLE(org.springframework.data.domain.Sort.by("title"));
+        NEWEST(org.springframework.data.domain.Sort.by("resource.dateResolved").descending()),
+        OLDEST(org.springframework.data.domain.Sort.by("resource.dateResolved").ascending()),
+        TITLE(org.springframework.data.domain.Sort.by("resource.title"));
         private final org.springframework.data.domain.Sort sort;
 
         @Override
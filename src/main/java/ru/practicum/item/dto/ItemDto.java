@@ -1,12 +1,15 @@
 package ru.practicum.item.dto;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import lombok.Builder;
 import lombok.Getter;
 
 import java.util.Set;
 
+// при fields= незапрошенные поля остаются null и не попадают в ответ
 @Getter
 @Builder(toBuilder = true)
+@JsonInclude(JsonInclude.Include.NON_NULL)
 public class ItemDto {
     private final Long id;
     private final String normalUrl;
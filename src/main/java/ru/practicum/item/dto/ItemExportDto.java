@@ -0,0 +1,23 @@
+package ru.practicum.item.dto;
+
+import com.fasterxml.jackson.annotation.JsonUnwrapped;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.List;
+
+@Getter
+@AllArgsConstructor(staticName = "of")
+public class ItemExportDto {
+    @JsonUnwrapped
+    private final ItemDto item;
+
+    private final List<Note> notes;
+
+    @Getter
+    @AllArgsConstructor(staticName = "of")
+    public static class Note {
+        private final Long id;
+        private final String text;
+    }
+}
@@ -0,0 +1,52 @@
+package ru.practicum.item.dto;
+
+import com.querydsl.core.types.Expression;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import ru.practicum.common.BadRequestException;
+import ru.practicum.item.QItem;
+
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.Set;
+
+// Поля ItemDto, которые клиент может запросить через fields=; имена совпадают с именами в JSON.
+// Теги хранятся в отдельной таблице и загружаются отдельным запросом, поэтому выражения у них нет.
+@Getter
+@RequiredArgsConstructor
+public enum ItemField {
+    ID("id", QItem.item.id),
+    NORMAL_URL("normalUrl", QItem.item.url),
+    RESOLVED_URL("resolvedUrl", QItem.item.resolvedUrl),
+    MIME_TYPE("mimeType", QItem.item.resource.mimeType),
+    TITLE("title", QItem.item.resource.title),
+    HAS_IMAGE("hasImage", QItem.item.resource.hasImage),
+    HAS_VIDEO("hasVideo", QItem.item.resource.hasVideo),
+    UNREAD("unread", QItem.item.unread),
+    DATE_RESOLVED("dateResolved", QItem.item.resource.dateResolved),
+    TAGS("tags", null);
+
+    private final String jsonName;
+    private final Expression<?> expression;
+
+    // пустой набор означает «все поля»
+    public static Set<ItemField> of(Collection<String> names) {
+        Set<ItemField> fields = EnumSet.noneOf(ItemField.class);
+        if (names == null) {
+            return fields;
+        }
+        for (String name : names) {
+            fields.add(byJsonName(name.trim()));
+        }
+        return fields;
+    }
+
+    private static ItemField byJsonName(String name) {
+        for (ItemField field : values()) {
+            if (field.jsonName.equals(name)) {
+                return field;
+            }
+        }
+        throw new BadRequestException("errors.400.fields");
+    }
+}
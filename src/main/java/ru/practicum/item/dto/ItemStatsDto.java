@@ -0,0 +1,22 @@
+package ru.practicum.item.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+
+import java.util.Map;
+
+@Getter
+@Builder
+public class ItemStatsDto {
+    private final Count all;
+    private final Map<String, Count> contentTypes;
+    private final Map<String, Count> tags;
+
+    @Getter
+    @AllArgsConstructor(staticName = "of")
+    public static class Count {
+        private final long total;
+        private final long unread;
+    }
+}
@@ -0,0 +1,11 @@
+package ru.practicum.item.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+@Getter
+@AllArgsConstructor(staticName = "of")
+public class TagSuggestionDto {
+    private final String name;
+    private final long count;
+}
@@ -0,0 +1,137 @@
+package ru.practicum.limit;
+
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.Filter;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletRequest;
+import jakarta.servlet.ServletResponse;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.MessageSource;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ProblemDetail;
+import org.springframework.stereotype.Component;
+import ru.practicum.common.ResponseFormat;
+
+import java.io.IOException;
+import java.net.URI;
+
+// Сбрасывает нагрузку до DispatcherServlet: когда БД замедляется, запросы сверх адаптивного предела
+// (ConcurrencyLimiter) сразу получают 503 с Retry-After вместо того, чтобы копиться в очереди Tomcat.
+// Чтение и запись ограничиваются отдельно: дорогие записи (POST /items ходит за метаданными ссылки
+// во внешний сервис) не должны вытеснять чтение, и наоборот.
+// Регистрируется в Tomcat из LaterApplication после MetricsFilter, поэтому отклонённые запросы тоже попадают в метрики.
+@Component
+public class ConcurrencyLimitFilter implements Filter {
+    private static final Object[] EMPTY_ARGS = new Object[0];
+
+    private final boolean enabled;
+    private final ConcurrencyLimiter reads;
+    private final ConcurrencyLimiter writes;
+    private final MessageSource messageSource;
+
+    public ConcurrencyLimitFilter(@Value("${concurrency-limit.enabled:true}") boolean enabled,
+                                  @Value("${concurrency-limit.min:2}") int minLimit,
+                                  @Value("${concurrency-limit.read.initial:50}") int readInitialLimit,
+                                  @Value("${concurrency-limit.read.max:500}") int readMaxLimit,
+                                  @Value("${concurrency-limit.write.initial:10}") int writeInitialLimit,
+                                  @Value("${concurrency-limit.write.max:100}") int writeMaxLimit,
+                                  MessageSource messageSource) {
+        this.enabled = enabled;
+        this.reads = new ConcurrencyLimiter(readInitialLimit, minLimit, readMaxLimit);
+        this.writes = new ConcurrencyLimiter(writeInitialLimit, minLimit, writeMaxLimit);
+        this.messageSource = messageSource;
+    }
+
+    public Metrics getMetrics(Budget budget) {
+        ConcurrencyLimiter limiter = budget == Budget.READ ? reads : writes;
+        return new Metrics(limiter.getLimit(), limiter.getInFlight(), limiter.getRejected(), limiter.getDropped());
+    }
+
+    @Override
+    public void doFilter(ServletRequest servletRequest, ServletResponse servletResponse, FilterChain chain)
+            throws IOException, ServletException {
+        HttpServletRequest request = (HttpServletRequest) servletRequest;
+        HttpServletResponse response = (HttpServletResponse) servletResponse;
+        if (!enabled) {
+            chain.doFilter(request, response);
+            return;
+        }
+
+        ConcurrencyLimiter limiter = Budget.of(request.getMethod()) == Budget.READ ? reads : writes;
+        ConcurrencyLimiter.Permit permit = limiter.tryAcquire();
+        if (permit == null) {
+            reject(request, response);
+            return;
+        }
+
+        boolean failed = true;
+        try {
+            chain.doFilter(request, response);
+            failed = false;
+        } finally {
+            if (!failed && request.isAsyncStarted()) {
+                // запрос занимает место в пределе, пока не завершится асинхронная часть
+                request.getAsyncContext().addListener(new AsyncListener() {
+                    @Override
+                    public void onComplete(AsyncEvent event) {
+                        limiter.release(permit, isServerError(response.getStatus()));
+                    }
+
+                    @Override
+                    public void onTimeout(AsyncEvent event) {
+                    }
+
+                    @Override
+                    public void onError(AsyncEvent event) {
+                    }
+
+                    @Override
+                    public void onStartAsync(AsyncEvent event) {
+                    }
+                });
+            } else {
+                limiter.release(permit, failed || isServerError(response.getStatus()));
+            }
+        }
+    }
+
+    // тот же ответ, что и при переполненной очереди медленных запросов (GlobalExceptionHandler)
+    private void reject(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        String localizedMessage = messageSource.getMessage("errors.503.busy", EMPTY_ARGS, request.getLocale());
+        ProblemDetail problemDetail = ProblemDetail.forStatusAndDetail(HttpStatus.SERVICE_UNAVAILABLE, localizedMessage);
+        problemDetail.setInstance(URI.create(request.getRequestURI()));
+        byte[] body = ResponseFormat.JSON.write(problemDetail);
+
+        response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, "1");
+        response.setContentType(MediaType.APPLICATION_PROBLEM_JSON_VALUE);
+        response.setContentLength(body.length);
+        response.getOutputStream().write(body);
+    }
+
+    private static boolean isServerError(int status) {
+        return status >= HttpStatus.INTERNAL_SERVER_ERROR.value();
+    }
+
+    public enum Budget {
+        READ,
+        WRITE;
+
+        static Budget of(String method) {
+            HttpMethod httpMethod = HttpMethod.valueOf(method);
+            return httpMethod == HttpMethod.GET || httpMethod == HttpMethod.HEAD || httpMethod == HttpMethod.OPTIONS
+                    ? READ
+                    : WRITE;
+        }
+    }
+
+    public record Metrics(int limit, int inFlight, long rejected, long dropped) {
+    }
+}
@@ -0,0 +1,110 @@
+package ru.practicum.limit;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+// Адаптивный предел одновременных запросов (градиентный, по образцу Gradient2 из Netflix concurrency-limits).
+// Короткое среднее задержки сравнивается с долгим — базовой задержкой без очереди. Пока они близки,
+// к пределу добавляется запас sqrt(limit) и он растёт; когда короткое среднее уходит вверх (запросы
+// ждут БД или внешний сервер), предел уменьшается пропорционально градиенту, но не больше чем вдвое за шаг.
+// Ответ 5xx — признак перегрузки ниже по цепочке, он уменьшает предел мультипликативно (как в AIMD).
+final class ConcurrencyLimiter {
+    private static final int SHORT_WINDOW = 10;
+    private static final int LONG_WINDOW = 600;
+    // короткое среднее может превышать базовое в полтора раза, прежде чем предел начнёт снижаться
+    private static final double RTT_TOLERANCE = 1.5;
+    private static final double SMOOTHING = 0.2;
+    private static final double BACKOFF_RATIO = 0.9;
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+
+    private volatile int limit;
+    // состояние градиента меняется только под блокировкой this
+    private double estimatedLimit;
+    private double shortRtt;
+    private double longRtt;
+    private long samples;
+
+    ConcurrencyLimiter(int initialLimit, int minLimit, int maxLimit) {
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.estimatedLimit = Math.max(minLimit, Math.min(maxLimit, initialLimit));
+        this.limit = (int) estimatedLimit;
+    }
+
+    // null — предел исчерпан, запрос нужно отклонить, не ставя в очередь
+    Permit tryAcquire() {
+        int current;
+        do {
+            current = inFlight.get();
+            if (current >= limit) {
+                rejected.increment();
+                return null;
+            }
+        } while (!inFlight.compareAndSet(current, current + 1));
+        return new Permit(System.nanoTime(), current + 1);
+    }
+
+    void release(Permit permit, boolean failed) {
+        inFlight.decrementAndGet();
+        if (failed) {
+            dropped.increment();
+        }
+        onSample(System.nanoTime() - permit.start(), permit.inFlight(), failed);
+    }
+
+    int getLimit() {
+        return limit;
+    }
+
+    int getInFlight() {
+        return inFlight.get();
+    }
+
+    long getRejected() {
+        return rejected.sum();
+    }
+
+    long getDropped() {
+        return dropped.sum();
+    }
+
+    synchronized void onSample(long rttNanos, int inFlightAtStart, boolean failed) {
+        if (failed) {
+            estimatedLimit = Math.max(minLimit, estimatedLimit * BACKOFF_RATIO);
+            limit = (int) estimatedLimit;
+            return;
+        }
+
+        samples++;
+        // первые замеры — простое среднее, иначе начальное значение надолго определит базовую задержку
+        shortRtt = average(shortRtt, rttNanos, Math.min(samples, SHORT_WINDOW));
+        longRtt = average(longRtt, rttNanos, Math.min(samples, LONG_WINDOW));
+        if (longRtt > 2 * shortRtt) {
+            // задержка заметно упала (например, прогрелись кэши) — базовая догоняет быстрее
+            longRtt *= 0.95;
+        }
+
+        // мало запросов — задержка ничего не говорит о том, выдержит ли узел больший предел
+        if (inFlightAtStart < estimatedLimit / 2 || shortRtt <= 0) {
+            return;
+        }
+
+        double gradient = Math.max(0.5, Math.min(1.0, RTT_TOLERANCE * longRtt / shortRtt));
+        double next = estimatedLimit * gradient + Math.sqrt(estimatedLimit);
+        next = estimatedLimit * (1 - SMOOTHING) + next * SMOOTHING;
+        estimatedLimit = Math.max(minLimit, Math.min(maxLimit, next));
+        limit = (int) estimatedLimit;
+    }
+
+    private static double average(double average, long sample, long window) {
+        return average + (sample - average) / window;
+    }
+
+    record Permit(long start, int inFlight) {
+    }
+}
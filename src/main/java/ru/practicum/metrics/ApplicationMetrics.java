@@ -0,0 +1,210 @@
+package ru.practicum.metrics;
+
+import com.sun.management.OperatingSystemMXBean;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+import org.springframework.stereotype.Component;
+import ru.practicum.config.ConnectionLimitingDataSource;
+import ru.practicum.config.StatementTrackingDataSource;
+import ru.practicum.item.ItemListCache;
+import ru.practicum.item.ItemTagIndex;
+import ru.practicum.item.ItemUrlFilter;
+import ru.practicum.limit.ConcurrencyLimitFilter;
+
+import javax.sql.DataSource;
+import java.lang.management.ClassLoadingMXBean;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.ThreadMXBean;
+import java.sql.SQLException;
+import java.util.Locale;
+
+// Датчики JVM, пулов потоков и соединений, пределов нагрузки, запросов к БД и внутренних кэшей. Значения читаются только при выгрузке /metrics.
+@Component
+public class ApplicationMetrics {
+
+    public ApplicationMetrics(MetricsRegistry metricsRegistry,
+                              DataSource dataSource,
+                              EntityManagerFactory entityManagerFactory,
+                              ThreadPoolTaskExecutor requestExecutor,
+                              TaskScheduler taskScheduler,
+                              ItemListCache itemListCache,
+                              ItemUrlFilter itemUrlFilter,
+                              ItemTagIndex itemTagIndex,
+                              ConcurrencyLimitFilter concurrencyLimitFilter) {
+        registerJvm(metricsRegistry);
+        registerPools(metricsRegistry, dataSource, requestExecutor, taskScheduler);
+        registerConcurrencyLimits(metricsRegistry, concurrencyLimitFilter);
+        registerDatabase(metricsRegistry, dataSource, entityManagerFactory);
+        registerCaches(metricsRegistry, itemListCache, itemUrlFilter, itemTagIndex);
+    }
+
+    private static void registerJvm(MetricsRegistry registry) {
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        registry.gauge("jvm_memory_used_bytes", "Used JVM memory", () -> memory.getHeapMemoryUsage().getUsed(),
+                "area", "heap");
+        registry.gauge("jvm_memory_used_bytes", "Used JVM memory", () -> memory.getNonHeapMemoryUsage().getUsed(),
+                "area", "nonheap");
+        registry.gauge("jvm_memory_committed_bytes", "Committed JVM memory",
+                () -> memory.getHeapMemoryUsage().getCommitted(), "area", "heap");
+        registry.gauge("jvm_memory_committed_bytes", "Committed JVM memory",
+                () -> memory.getNonHeapMemoryUsage().getCommitted(), "area", "nonheap");
+        registry.gauge("jvm_memory_max_bytes", "Max JVM heap", () -> memory.getHeapMemoryUsage().getMax(),
+                "area", "heap");
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            registry.gauge("jvm_memory_pool_used_bytes", "Used memory by JVM memory pool",
+                    () -> pool.getUsage().getUsed(), "pool", pool.getName());
+        }
+
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            registry.counter("jvm_gc_collections_total", "GC collections", gc::getCollectionCount,
+                    "gc", gc.getName());
+            registry.counter("jvm_gc_collection_seconds_total", "Time spent in GC",
+                    () -> gc.getCollectionTime() / 1000.0, "gc", gc.getName());
+        }
+
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        registry.gauge("jvm_threads_live", "Live platform threads", threads::getThreadCount);
+        registry.gauge("jvm_threads_daemon", "Daemon platform threads", threads::getDaemonThreadCount);
+        registry.gauge("jvm_threads_peak", "Peak platform threads", threads::getPeakThreadCount);
+
+        ClassLoadingMXBean classes = ManagementFactory.getClassLoadingMXBean();
+        registry.gauge("jvm_classes_loaded", "Loaded classes", classes::getLoadedClassCount);
+
+        OperatingSystemMXBean os = ManagementFactory.getPlatformMXBean(OperatingSystemMXBean.class);
+        registry.counter("process_cpu_seconds_total", "Process CPU time",
+                () -> os.getProcessCpuTime() / 1_000_000_000.0);
+        registry.gauge("process_cpu_usage", "Recent process CPU load, 0..1", os::getProcessCpuLoad);
+        registry.gauge("process_uptime_seconds", "JVM uptime",
+                () -> ManagementFactory.getRuntimeMXBean().getUptime() / 1000.0);
+    }
+
+    private static void registerPools(MetricsRegistry registry,
+                                      DataSource dataSource,
+                                      ThreadPoolTaskExecutor requestExecutor,
+                                      TaskScheduler taskScheduler) {
+        registry.gauge("later_executor_active_threads", "Threads running tasks", requestExecutor::getActiveCount,
+                "pool", "request");
+        registry.gauge("later_executor_pool_size", "Threads in pool", requestExecutor::getPoolSize,
+                "pool", "request");
+        registry.gauge("later_executor_queued_tasks", "Tasks waiting in queue", requestExecutor::getQueueSize,
+                "pool", "request");
+        if (taskScheduler instanceof ThreadPoolTaskScheduler scheduler) {
+            registry.gauge("later_executor_active_threads", "Threads running tasks", scheduler::getActiveCount,
+                    "pool", "scheduler");
+            registry.gauge("later_executor_pool_size", "Threads in pool", scheduler::getPoolSize,
+                    "pool", "scheduler");
+        }
+
+        ConnectionLimitingDataSource connections = unwrap(dataSource, ConnectionLimitingDataSource.class);
+        if (connections != null) {
+            registry.gauge("later_db_connections_active", "Open database connections",
+                    connections::getActiveConnections);
+            registry.gauge("later_db_connections_max", "Database connection limit", connections::getMaxConnections);
+            registry.gauge("later_db_connections_pending", "Threads waiting for a database connection",
+                    connections::getPendingConnections);
+        }
+    }
+
+    private static void registerConcurrencyLimits(MetricsRegistry registry, ConcurrencyLimitFilter filter) {
+        for (ConcurrencyLimitFilter.Budget budget : ConcurrencyLimitFilter.Budget.values()) {
+            String label = budget.name().toLowerCase(Locale.ROOT);
+            registry.gauge("later_concurrency_limit", "Adaptive limit of concurrent requests",
+                    () -> filter.getMetrics(budget).limit(), "budget", label);
+            registry.gauge("later_concurrency_in_flight", "Requests holding a concurrency permit",
+                    () -> filter.getMetrics(budget).inFlight(), "budget", label);
+            registry.counter("later_concurrency_rejected_total", "Requests shed with 503 over the limit",
+                    () -> filter.getMetrics(budget).rejected(), "budget", label);
+            registry.counter("later_concurrency_dropped_total", "Admitted requests that ended with 5xx",
+                    () -> filter.getMetrics(budget).dropped(), "budget", label);
+        }
+    }
+
+    private static void registerDatabase(MetricsRegistry registry,
+                                         DataSource dataSource,
+                                         EntityManagerFactory entityManagerFactory) {
+        StatementTrackingDataSource tracker = unwrap(dataSource, StatementTrackingDataSource.class);
+        if (tracker != null) {
+            registry.counter("later_db_statements_total", "Executed JDBC statements", tracker::getStatementCount);
+            registry.counter("later_db_statement_seconds_total", "Time spent executing JDBC statements",
+                    tracker::getStatementSeconds);
+            registry.counter("later_db_slow_statements_total", "Statements slower than db.slow-query-ms",
+                    tracker::getSlowStatementCount);
+            registry.counter("later_db_statement_budget_exceeded_total", "Service calls over db.statement-budget",
+                    tracker::getExceededBudgetCount);
+        }
+
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        if (!statistics.isStatisticsEnabled()) {
+            return;
+        }
+        registry.counter("hibernate_sessions_opened_total", "Hibernate sessions opened",
+                statistics::getSessionOpenCount);
+        registry.counter("hibernate_transactions_total", "Hibernate transactions", statistics::getTransactionCount);
+        registry.counter("hibernate_statements_prepared_total", "Statements prepared by Hibernate",
+                statistics::getPrepareStatementCount);
+        registry.counter("hibernate_queries_executed_total", "HQL/SQL queries executed",
+                statistics::getQueryExecutionCount);
+        registry.gauge("hibernate_query_execution_max_seconds", "Slowest query since start",
+                () -> statistics.getQueryExecutionMaxTime() / 1000.0);
+        registry.counter("hibernate_entities_loaded_total", "Entities loaded", statistics::getEntityLoadCount);
+        // fetch — отдельная загрузка ленивой связи; быстрый рост относительно load — признак N+1
+        registry.counter("hibernate_entities_fetched_total", "Entities fetched lazily", statistics::getEntityFetchCount);
+        registry.counter("hibernate_collections_loaded_total", "Collections loaded",
+                statistics::getCollectionLoadCount);
+        registry.counter("hibernate_collections_fetched_total", "Collections fetched lazily",
+                statistics::getCollectionFetchCount);
+        registry.counter("hibernate_entities_inserted_total", "Entities inserted", statistics::getEntityInsertCount);
+        registry.counter("hibernate_entities_updated_total", "Entities updated", statistics::getEntityUpdateCount);
+        registry.counter("hibernate_entities_deleted_total", "Entities deleted", statistics::getEntityDeleteCount);
+        registry.counter("hibernate_flushes_total", "Session flushes", statistics::getFlushCount);
+        registry.counter("hibernate_optimistic_failures_total", "Optimistic lock failures",
+                statistics::getOptimisticFailureCount);
+    }
+
+    private static <T> T unwrap(DataSource dataSource, Class<T> type) {
+        try {
+            return dataSource.isWrapperFor(type) ? dataSource.unwrap(type) : null;
+        } catch (SQLException e) {
+            return null;
+        }
+    }
+
+    private static void registerCaches(MetricsRegistry registry,
+                                       ItemListCache itemListCache,
+                                       ItemUrlFilter itemUrlFilter,
+                                       ItemTagIndex itemTagIndex) {
+        registry.counter("later_items_cache_hits_total", "GET /items response cache hits",
+                () -> itemListCache.getMetrics().hits());
+        registry.counter("later_items_cache_misses_total", "GET /items response cache misses",
+                () -> itemListCache.getMetrics().misses());
+        registry.counter("later_items_cache_evictions_total", "GET /items response cache evictions",
+                () -> itemListCache.getMetrics().evictions());
+        registry.counter("later_items_cache_invalidations_total", "GET /items per-user cache invalidations",
+                () -> itemListCache.getMetrics().invalidations());
+        registry.gauge("later_items_cache_entries", "GET /items cached responses",
+                () -> itemListCache.getMetrics().entries());
+        registry.gauge("later_items_cache_bytes", "GET /items cached response bytes",
+                () -> itemListCache.getMetrics().bytes());
+
+        registry.counter("later_url_filter_definitely_absent_total", "Saved-URL lookups skipped by Bloom filter",
+                () -> itemUrlFilter.getMetrics().definitelyAbsent());
+        registry.counter("later_url_filter_false_positives_total", "Bloom filter false positives",
+                () -> itemUrlFilter.getMetrics().falsePositives());
+        registry.counter("later_url_filter_confirmed_total", "Bloom filter positives confirmed by the database",
+                () -> itemUrlFilter.getMetrics().confirmedPresent());
+        registry.counter("later_url_filter_loads_total", "Bloom filters built from the database",
+                () -> itemUrlFilter.getMetrics().loads());
+        registry.gauge("later_url_filter_users", "Users with a cached Bloom filter",
+                () -> itemUrlFilter.getMetrics().cachedUsers());
+        registry.gauge("later_url_filter_bytes", "Bloom filter memory", () -> itemUrlFilter.getMetrics().memoryBytes());
+
+        registry.gauge("later_tag_index_bytes", "Tag bitmap index memory", itemTagIndex::memoryBytes);
+    }
+}
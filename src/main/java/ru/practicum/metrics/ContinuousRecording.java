@@ -0,0 +1,140 @@
+package ru.practicum.metrics;
+
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.text.ParseException;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+// Непрерывная запись JFR в кольцевой буфер (-Djfr.continuous=true). Когда запрос превышает SLO
+// по задержке (jfr.slo-ms), буфер за последние jfr.max-age-minutes сбрасывается в файл — так
+// эпизодическое замедление можно разобрать уже после того, как оно прошло. Сбросы идут не чаще
+// раза в jfr.dump-cooldown-s, в каталоге хранятся последние jfr.max-dumps файлов.
+@Slf4j
+@Component
+public class ContinuousRecording implements SmartLifecycle {
+    private static final DateTimeFormatter FILE_TIME = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss")
+            .withZone(ZoneOffset.UTC);
+
+    private final boolean enabled;
+    private final String settings;
+    private final Duration maxAge;
+    private final long maxSizeBytes;
+    private final long sloNanos;
+    private final long cooldownNanos;
+    private final int maxDumps;
+    private final Path dumpDirectory;
+    private final TaskScheduler taskScheduler;
+    private final AtomicLong lastDump = new AtomicLong();
+
+    private volatile Recording recording;
+
+    public ContinuousRecording(@Value("${jfr.continuous:false}") boolean enabled,
+                               @Value("${jfr.settings:default}") String settings,
+                               @Value("${jfr.max-age-minutes:10}") long maxAgeMinutes,
+                               @Value("${jfr.max-size-mb:100}") long maxSizeMb,
+                               @Value("${jfr.slo-ms:1000}") long sloMs,
+                               @Value("${jfr.dump-cooldown-s:300}") long cooldownSeconds,
+                               @Value("${jfr.max-dumps:10}") int maxDumps,
+                               @Value("${jfr.dump-dir:${java.io.tmpdir}/later-jfr}") String dumpDirectory,
+                               TaskScheduler taskScheduler) {
+        this.enabled = enabled;
+        this.settings = settings;
+        this.maxAge = Duration.ofMinutes(maxAgeMinutes);
+        this.maxSizeBytes = maxSizeMb * 1024 * 1024;
+        this.sloNanos = TimeUnit.MILLISECONDS.toNanos(sloMs);
+        this.cooldownNanos = TimeUnit.SECONDS.toNanos(cooldownSeconds);
+        this.maxDumps = maxDumps;
+        this.dumpDirectory = Path.of(dumpDirectory);
+        this.taskScheduler = taskScheduler;
+    }
+
+    // вызывается на каждый запрос, поэтому без SLO-нарушения ничего не делает
+    public void onRequestCompleted(String route, long nanos) {
+        Recording current = recording;
+        if (current == null || nanos <= sloNanos) {
+            return;
+        }
+        long now = System.nanoTime();
+        long previous = lastDump.get();
+        if ((previous != 0 && now - previous < cooldownNanos) || !lastDump.compareAndSet(previous, now)) {
+            return;
+        }
+        taskScheduler.schedule(() -> dump(current, route, nanos), Instant.now());
+    }
+
+    @Override
+    public synchronized void start() {
+        if (!enabled || recording != null) {
+            return;
+        }
+        try {
+            Recording started = new Recording(Configuration.getConfiguration(settings));
+            started.setName("later-continuous");
+            started.setToDisk(true);
+            started.setMaxAge(maxAge);
+            started.setMaxSize(maxSizeBytes);
+            started.start();
+            recording = started;
+            log.info("Continuous JFR recording started, dumps on requests slower than {} ms go to {}",
+                    TimeUnit.NANOSECONDS.toMillis(sloNanos), dumpDirectory);
+        } catch (IOException | ParseException e) {
+            log.warn("Failed to start continuous JFR recording with settings {}", settings, e);
+        }
+    }
+
+    @Override
+    public synchronized void stop() {
+        if (recording != null) {
+            recording.close();
+            recording = null;
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return recording != null;
+    }
+
+    private void dump(Recording current, String route, long nanos) {
+        try {
+            Files.createDirectories(dumpDirectory);
+            Path file = dumpDirectory.resolve("later-" + FILE_TIME.format(Instant.now()) + ".jfr");
+            current.dump(file);
+            log.warn("Request to {} took {} ms, over the {} ms SLO; JFR recording dumped to {}", route,
+                    TimeUnit.NANOSECONDS.toMillis(nanos), TimeUnit.NANOSECONDS.toMillis(sloNanos), file);
+            deleteOldDumps();
+        } catch (IOException | UncheckedIOException | IllegalStateException e) {
+            log.warn("Failed to dump JFR recording", e);
+        }
+    }
+
+    private void deleteOldDumps() throws IOException {
+        List<Path> dumps;
+        try (Stream<Path> files = Files.list(dumpDirectory)) {
+            // в имени время UTC, поэтому порядок имён совпадает с порядком сбросов
+            dumps = files.filter(file -> file.getFileName().toString().matches("later-\\d{8}-\\d{6}\\.jfr"))
+                    .sorted()
+                    .toList();
+        }
+        for (int i = 0; i < dumps.size() - maxDumps; i++) {
+            Files.deleteIfExists(dumps.get(i));
+        }
+    }
+}
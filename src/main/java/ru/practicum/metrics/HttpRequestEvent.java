@@ -0,0 +1,25 @@
+package ru.practicum.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("ru.practicum.HttpRequest")
+@Label("HTTP Request")
+@Category({"Later", "HTTP"})
+@Description("HTTP request from arrival to the end of response, including the async part")
+public class HttpRequestEvent extends Event {
+    @Label("Method")
+    String method;
+
+    @Label("Route")
+    String route;
+
+    @Label("User Id")
+    long userId;
+
+    @Label("Status")
+    int status;
+}
@@ -0,0 +1,35 @@
+package ru.practicum.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+// Преобразование пачки сущностей в DTO. У сущностей с ленивыми связями сюда же попадают их догрузки,
+// поэтому долгое событие с большим count — повод искать N+1.
+@Name("ru.practicum.Mapping")
+@Label("Mapping Batch")
+@Category({"Later", "Mapping"})
+public class MappingEvent extends Event {
+    @Label("Mapper")
+    String mapper;
+
+    @Label("Operation")
+    String operation;
+
+    @Label("Count")
+    int count;
+
+    public static MappingEvent start(String mapper, String operation) {
+        MappingEvent event = new MappingEvent();
+        event.mapper = mapper;
+        event.operation = operation;
+        event.begin();
+        return event;
+    }
+
+    public void end(int count) {
+        this.count = count;
+        commit();
+    }
+}
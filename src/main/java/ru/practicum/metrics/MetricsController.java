@@ -0,0 +1,30 @@
+package ru.practicum.metrics;
+
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+
+@RestController
+@RequestMapping("/metrics")
+@RequiredArgsConstructor
+public class MetricsController {
+    private static final String PROMETHEUS_TEXT = "text/plain; version=0.0.4; charset=utf-8";
+
+    private final MetricsRegistry metricsRegistry;
+
+    @GetMapping
+    public void scrape(HttpServletResponse response) throws IOException {
+        // текстовый формат Prometheus пишется прямо в ответ, без промежуточной строки
+        response.setContentType(PROMETHEUS_TEXT);
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        Writer writer = response.getWriter();
+        metricsRegistry.writeTo(writer);
+        writer.flush();
+    }
+}
@@ -0,0 +1,104 @@
+package ru.practicum.metrics;
+
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.Filter;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletRequest;
+import jakarta.servlet.ServletResponse;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+
+// Замеряет каждый HTTP-запрос целиком, включая сериализацию ответа и асинхронную часть
+// (контроллеры с CompletableFuture). Регистрируется в Tomcat из LaterApplication перед DispatcherServlet.
+// Метка route — шаблон маршрута Spring MVC; запросы, не попавшие ни в один маршрут, собираются в "unmatched".
+// Тот же замер пишется событием JFR (HttpRequestEvent) и проверяется на нарушение SLO (ContinuousRecording).
+@Component
+public class MetricsFilter implements Filter {
+    static final String REQUESTS = "later_http_server_requests_seconds";
+
+    private static final String USER_ID_HEADER = "X-Later-User-Id";
+
+    private final MetricsRegistry metricsRegistry;
+    private final ContinuousRecording continuousRecording;
+
+    public MetricsFilter(MetricsRegistry metricsRegistry, ContinuousRecording continuousRecording) {
+        this.metricsRegistry = metricsRegistry;
+        this.continuousRecording = continuousRecording;
+    }
+
+    @Override
+    public void doFilter(ServletRequest servletRequest, ServletResponse servletResponse, FilterChain chain)
+            throws IOException, ServletException {
+        HttpServletRequest request = (HttpServletRequest) servletRequest;
+        HttpServletResponse response = (HttpServletResponse) servletResponse;
+        HttpRequestEvent requestEvent = new HttpRequestEvent();
+        requestEvent.begin();
+        long start = System.nanoTime();
+        boolean failed = true;
+        try {
+            chain.doFilter(request, response);
+            failed = false;
+        } finally {
+            if (!failed && request.isAsyncStarted()) {
+                // onComplete вызывается в конце любого асинхронного запроса, в том числе после таймаута и ошибки
+                request.getAsyncContext().addListener(new AsyncListener() {
+                    @Override
+                    public void onComplete(AsyncEvent event) {
+                        record(request, response.getStatus(), start, requestEvent);
+                    }
+
+                    @Override
+                    public void onTimeout(AsyncEvent event) {
+                    }
+
+                    @Override
+                    public void onError(AsyncEvent event) {
+                    }
+
+                    @Override
+                    public void onStartAsync(AsyncEvent event) {
+                    }
+                });
+            } else {
+                // исключение, дошедшее до фильтра, Tomcat превратит в 500
+                record(request, failed ? HttpServletResponse.SC_INTERNAL_SERVER_ERROR : response.getStatus(), start,
+                        requestEvent);
+            }
+        }
+    }
+
+    private void record(HttpServletRequest request, int status, long start, HttpRequestEvent event) {
+        long nanos = System.nanoTime() - start;
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        String route = pattern == null ? "unmatched" : pattern.toString();
+        metricsRegistry.histogram(REQUESTS, "HTTP request latency by route, method and status",
+                        "method", request.getMethod(),
+                        "route", route,
+                        "status", Integer.toString(status))
+                .record(nanos);
+
+        if (event.shouldCommit()) {
+            event.method = request.getMethod();
+            event.route = route;
+            event.userId = userId(request);
+            event.status = status;
+            event.commit();
+        }
+        continuousRecording.onRequestCompleted(route, nanos);
+    }
+
+    private static long userId(HttpServletRequest request) {
+        try {
+            String header = request.getHeader(USER_ID_HEADER);
+            return header == null ? 0 : Long.parseLong(header);
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+}
@@ -0,0 +1,125 @@
+package ru.practicum.metrics;
+
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.DoubleSupplier;
+
+// Метрики узла в памяти: гистограммы задержек, которые пишутся на каждый запрос, и датчики,
+// значения которых читаются только при выгрузке. Выгружаются в текстовом формате Prometheus (GET /metrics).
+// Метки передаются парами имя-значение; их набор должен быть ограниченным (шаблон маршрута, а не URL).
+@Component
+public class MetricsRegistry {
+    private final ConcurrentMap<String, Family> families = new ConcurrentSkipListMap<>();
+
+    public LatencyHistogram histogram(String name, String help, String... labels) {
+        return (LatencyHistogram) family(name, help, Type.HISTOGRAM)
+                .metrics.computeIfAbsent(renderLabels(labels), key -> new LatencyHistogram());
+    }
+
+    public void gauge(String name, String help, DoubleSupplier value, String... labels) {
+        family(name, help, Type.GAUGE).metrics.put(renderLabels(labels), value);
+    }
+
+    // значение, которое только растёт (число сборок мусора, попаданий в кэш); считает его сам источник
+    public void counter(String name, String help, DoubleSupplier value, String... labels) {
+        family(name, help, Type.COUNTER).metrics.put(renderLabels(labels), value);
+    }
+
+    public void writeTo(Writer writer) throws IOException {
+        for (Family family : families.values()) {
+            writer.write("# HELP " + family.name + " " + family.help + "\n");
+            writer.write("# TYPE " + family.name + " " + family.type.name().toLowerCase(Locale.ROOT) + "\n");
+            for (Map.Entry<String, Object> metric : new ConcurrentSkipListMap<>(family.metrics).entrySet()) {
+                if (metric.getValue() instanceof LatencyHistogram histogram) {
+                    writeHistogram(writer, family.name, metric.getKey(), histogram);
+                } else {
+                    writeSample(writer, family.name, metric.getKey(), ((DoubleSupplier) metric.getValue()).getAsDouble());
+                }
+            }
+        }
+    }
+
+    private Family family(String name, String help, Type type) {
+        Family family = families.computeIfAbsent(name, key -> new Family(name, help, type));
+        if (family.type != type) {
+            throw new IllegalArgumentException("Metric " + name + " is already registered as " + family.type);
+        }
+        return family;
+    }
+
+    private static void writeHistogram(Writer writer, String name, String labels, LatencyHistogram histogram)
+            throws IOException {
+        long[] counts = histogram.cumulativeCounts();
+        String prefix = labels.isEmpty() ? "" : labels + ",";
+        for (int i = 0; i < LatencyHistogram.BOUNDS_SECONDS.length; i++) {
+            writeSample(writer, name + "_bucket", prefix + "le=\"" + LatencyHistogram.BOUNDS_SECONDS[i] + "\"", counts[i]);
+        }
+        long count = counts[counts.length - 1];
+        writeSample(writer, name + "_bucket", prefix + "le=\"+Inf\"", count);
+        writeSample(writer, name + "_sum", labels, histogram.sumSeconds());
+        writeSample(writer, name + "_count", labels, count);
+    }
+
+    private static void writeSample(Writer writer, String name, String labels, double value) throws IOException {
+        writer.write(name);
+        if (!labels.isEmpty()) {
+            writer.write("{" + labels + "}");
+        }
+        writer.write(" ");
+        writer.write(value == Math.rint(value) && !Double.isInfinite(value)
+                ? Long.toString((long) value)
+                : Double.toString(value));
+        writer.write("\n");
+    }
+
+    private static String renderLabels(String... labels) {
+        if (labels.length % 2 != 0) {
+            throw new IllegalArgumentException("Labels must be name-value pairs");
+        }
+        StringBuilder rendered = new StringBuilder();
+        for (int i = 0; i < labels.length; i += 2) {
+            if (i > 0) {
+                rendered.append(',');
+            }
+            rendered.append(labels[i]).append("=\"");
+            String value = labels[i + 1] == null ? "" : labels[i + 1];
+            for (int j = 0; j < value.length(); j++) {
+                char c = value.charAt(j);
+                switch (c) {
+                    case '\\' -> rendered.append("\\\\");
+                    case '"' -> rendered.append("\\\"");
+                    case '\n' -> rendered.append("\\n");
+                    default -> rendered.append(c);
+                }
+            }
+            rendered.append('"');
+        }
+        return rendered.toString();
+    }
+
+    private enum Type {
+        COUNTER,
+        GAUGE,
+        HISTOGRAM
+    }
+
+    private static final class Family {
+        private final String name;
+        private final String help;
+        private final Type type;
+        private final ConcurrentMap<String, Object> metrics = new ConcurrentHashMap<>();
+
+        private Family(String name, String help, Type type) {
+            this.name = name;
+            this.help = help;
+            this.type = type;
+        }
+    }
+}
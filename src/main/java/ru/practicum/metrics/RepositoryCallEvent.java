@@ -0,0 +1,17 @@
+package ru.practicum.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("ru.practicum.RepositoryCall")
+@Label("Repository Call")
+@Category({"Later", "Database"})
+public class RepositoryCallEvent extends Event {
+    @Label("Repository")
+    String repository;
+
+    @Label("Method")
+    String method;
+}
@@ -0,0 +1,40 @@
+package ru.practicum.metrics;
+
+import org.aopalliance.intercept.MethodInterceptor;
+import org.springframework.aop.framework.Advised;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.data.repository.Repository;
+import org.springframework.stereotype.Component;
+
+// Каждый вызов репозитория Spring Data пишется событием JFR (RepositoryCallEvent): в записи видно,
+// какой метод репозитория выполнялся внутри медленного запроса и сколько раз. Репозитории всегда
+// создаются как прокси, поэтому совет добавляется в существующий прокси первым.
+@Component
+public class RepositoryEventPostProcessor implements BeanPostProcessor {
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        if (bean instanceof Repository<?, ?> && bean instanceof Advised advised && !advised.isFrozen()) {
+            advised.addAdvice(0, recording(beanName));
+        }
+        return bean;
+    }
+
+    private static MethodInterceptor recording(String repository) {
+        return invocation -> {
+            RepositoryCallEvent event = new RepositoryCallEvent();
+            if (!event.isEnabled()) {
+                return invocation.proceed();
+            }
+            event.begin();
+            try {
+                return invocation.proceed();
+            } finally {
+                if (event.shouldCommit()) {
+                    event.repository = repository;
+                    event.method = invocation.getMethod().getName();
+                    event.commit();
+                }
+            }
+        };
+    }
+}
@@ -0,0 +1,87 @@
+package ru.practicum.metrics;
+
+import org.aopalliance.intercept.MethodInterceptor;
+import org.springframework.aop.framework.Advised;
+import org.springframework.aop.framework.ProxyFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.stereotype.Component;
+import ru.practicum.config.StatementTrackingDataSource;
+import ru.practicum.item.ItemService;
+import ru.practicum.note.ItemNoteService;
+import ru.practicum.user.UserService;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+import java.util.List;
+
+// Замеряет вызовы методов сервисов. Процессор не реализует Ordered и поэтому срабатывает после
+// создания транзакционных прокси: замер добавляется первым советом в уже существующий прокси
+// и включает время транзакции. Сервисы без прокси оборачиваются новым прокси по интерфейсу.
+// Внешний вызов сервиса — это и есть обработка одного запроса, поэтому он же открывает область
+// подсчёта SQL-запросов с бюджетом db.statement-budget (StatementTrackingDataSource).
+@Component
+public class ServiceMetricsPostProcessor implements BeanPostProcessor {
+    static final String CALLS = "later_service_call_seconds";
+    private static final List<Class<?>> SERVICES = List.of(ItemService.class, ItemNoteService.class, UserService.class);
+
+    private final MetricsRegistry metricsRegistry;
+    // DataSource запрашивается при первом вызове: процессор создаётся раньше остальных бинов
+    private final ObjectProvider<DataSource> dataSource;
+    private volatile StatementTrackingDataSource statementTracker;
+
+    public ServiceMetricsPostProcessor(MetricsRegistry metricsRegistry, ObjectProvider<DataSource> dataSource) {
+        this.metricsRegistry = metricsRegistry;
+        this.dataSource = dataSource;
+    }
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        for (Class<?> service : SERVICES) {
+            if (service.isInstance(bean)) {
+                MethodInterceptor interceptor = timing(service.getSimpleName());
+                if (bean instanceof Advised advised && !advised.isFrozen()) {
+                    advised.addAdvice(0, interceptor);
+                    return bean;
+                }
+                ProxyFactory proxyFactory = new ProxyFactory(bean);
+                proxyFactory.addAdvice(interceptor);
+                return proxyFactory.getProxy();
+            }
+        }
+        return bean;
+    }
+
+    private MethodInterceptor timing(String service) {
+        return invocation -> {
+            long start = System.nanoTime();
+            String outcome = "error";
+            StatementTrackingDataSource tracker = statementTracker();
+            try (StatementTrackingDataSource.Scope ignored = tracker == null
+                    ? null
+                    : tracker.openScope(service + "." + invocation.getMethod().getName())) {
+                Object result = invocation.proceed();
+                outcome = "success";
+                return result;
+            } finally {
+                metricsRegistry.histogram(CALLS, "Service method latency",
+                                "service", service,
+                                "method", invocation.getMethod().getName(),
+                                "outcome", outcome)
+                        .record(System.nanoTime() - start);
+            }
+        };
+    }
+
+    private StatementTrackingDataSource statementTracker() throws SQLException {
+        StatementTrackingDataSource tracker = statementTracker;
+        if (tracker == null) {
+            DataSource available = dataSource.getIfAvailable();
+            if (available != null && available.isWrapperFor(StatementTrackingDataSource.class)) {
+                tracker = available.unwrap(StatementTrackingDataSource.class);
+                statementTracker = tracker;
+            }
+        }
+        return tracker;
+    }
+}
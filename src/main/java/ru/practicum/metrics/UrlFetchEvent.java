@@ -0,0 +1,33 @@
+package ru.practicum.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("ru.practicum.UrlFetch")
+@Label("URL Fetch")
+@Category({"Later", "Network"})
+public class UrlFetchEvent extends Event {
+    @Label("Operation")
+    String operation;
+
+    @Label("URL")
+    String url;
+
+    @Label("Succeeded")
+    boolean succeeded;
+
+    public static UrlFetchEvent start(String operation, String url) {
+        UrlFetchEvent event = new UrlFetchEvent();
+        event.operation = operation;
+        event.url = url;
+        event.begin();
+        return event;
+    }
+
+    public void end(boolean succeeded) {
+        this.succeeded = succeeded;
+        commit();
+    }
+}
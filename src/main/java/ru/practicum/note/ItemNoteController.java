@@ -8,7 +8,10 @@ import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.ServletWebRequest;
+import ru.practicum.common.UserDataVersions;
 import ru.practicum.note.dto.ItemNoteDto;
+import ru.practicum.note.dto.ItemNoteField;
 
 import java.util.List;
 
@@ -18,27 +21,45 @@ import java.util.List;
 public class ItemNoteController {
 
     private final ItemNoteService itemNoteService;
+    private final UserDataVersions userDataVersions;
 
     @GetMapping(params = "url")
     public List<ItemNoteDto> searchByUrl(@RequestHeader("X-Later-User-Id") long userId,
-                                         @RequestParam(name = "url") String url) {
+                                         @RequestParam(name = "url") String url,
+                                         @RequestParam(name = "fields", required = false) List<String> fields,
+                                         ServletWebRequest webRequest) {
+        if (userDataVersions.checkNotModified(userId, webRequest)) {
+            return null;
+        }
         // возвращает список пользовательских заметок к ссылкам, соответствующим переданному URL-адресу или его части
-        return itemNoteService.searchNotesByUrl(url, userId);
+        return itemNoteService.searchNotesByUrl(url, userId, ItemNoteField.of(fields));
     }
 
     @GetMapping(params = "tag")
     public List<ItemNoteDto> searchByTags(@RequestHeader("X-Later-User-Id") long userId,
-                                          @RequestParam(name = "tag") String tag) {
+                                          @RequestParam(name = "tag") String tag,
+                                          @RequestParam(name = "fields", required = false) List<String> fields,
+                                          ServletWebRequest webRequest) {
+        if (userDataVersions.checkNotModified(userId, webRequest)) {
+            return null;
+        }
         // возвращает список заметок пользователя к ссылкам с указанным тегом
-        return itemNoteService.searchNotesByTag(userId, tag);
+        return itemNoteService.searchNotesByTag(userId, tag, ItemNoteField.of(fields));
     }
 
     @GetMapping
     public List<ItemNoteDto> listAllNotes(@RequestHeader("X-Later-User-Id") long userId,
                                           @RequestParam(name = "from", defaultValue = "0") int from,
-                                          @RequestParam(name = "size", defaultValue = "10") int size) {
-        // возвращает набор пользовательских заметок, соответствующий указанным параметрам пагинации
-        return itemNoteService.listAllItemsWithNotes(userId, from, size);
+                                          @RequestParam(name = "size", defaultValue = "10") int size,
+                                          @RequestParam(name = "fields", required = false) List<String> fields,
+                                          ServletWebRequest webRequest) {
+        // 304 отдаётся до запроса к базе, если данные пользователя не менялись с прошлого ответа
+        if (userDataVersions.checkNotModified(userId, webRequest)) {
+            return null;
+        }
+        // возвращает набор пользовательских заметок, соответствующий указанным параметрам пагинации;
+        // fields=id,text — только перечисленные поля
+        return itemNoteService.listAllItemsWithNotes(userId, from, size, ItemNoteField.of(fields));
     }
 
     @PostMapping
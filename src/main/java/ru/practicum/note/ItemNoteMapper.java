@@ -1,8 +1,15 @@
 package ru.practicum.note;
 
+import com.querydsl.core.Tuple;
 import lombok.experimental.UtilityClass;
 import ru.practicum.item.Item;
+import ru.practicum.metrics.MappingEvent;
 import ru.practicum.note.dto.ItemNoteDto;
+import ru.practicum.note.dto.ItemNoteField;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
 
 @UtilityClass
 public class ItemNoteMapper {
@@ -12,6 +19,44 @@ public class ItemNoteMapper {
         );
     }
 
+    // строка проекции из ItemNoteRepositoryCustom.findProjected: заполняются только запрошенные поля
+    public static ItemNoteDto mapToDto(Tuple row, Set<ItemNoteField> fields) {
+        ItemNoteDto dto = new ItemNoteDto();
+        for (ItemNoteField field : fields) {
+            switch (field) {
+                case ID -> dto.setId(row.get(QItemNote.itemNote.id));
+                case ITEM_ID -> dto.setItemId(row.get(QItemNote.itemNote.item.id));
+                case TEXT -> dto.setText(row.get(QItemNote.itemNote.text));
+                case DATE_OF_NOTE -> {
+                    // дата заметки в БД не хранится
+                }
+                case ITEM_URL -> dto.setItemUrl(row.get(QItemNote.itemNote.item.url));
+            }
+        }
+        return dto;
+    }
+
+    // в событие попадает и догрузка ленивых ссылок заметок
+    public static List<ItemNoteDto> mapToDto(List<ItemNote> itemNotes) {
+        MappingEvent event = MappingEvent.start("ItemNoteMapper", "entity");
+        List<ItemNoteDto> dtos = new ArrayList<>(itemNotes.size());
+        for (ItemNote itemNote : itemNotes) {
+            dtos.add(mapToDto(itemNote));
+        }
+        event.end(dtos.size());
+        return dtos;
+    }
+
+    public static List<ItemNoteDto> mapToDto(List<Tuple> rows, Set<ItemNoteField> fields) {
+        MappingEvent event = MappingEvent.start("ItemNoteMapper", "projection");
+        List<ItemNoteDto> dtos = new ArrayList<>(rows.size());
+        for (Tuple row : rows) {
+            dtos.add(mapToDto(row, fields));
+        }
+        event.end(dtos.size());
+        return dtos;
+    }
+
     public static ItemNote mapToEntity(ItemNoteDto itemNoteDto, Item item) {
         return ItemNote.of(
                 itemNoteDto.getItemId(), itemNoteDto.getText(), item
@@ -1,19 +1,29 @@
 package ru.practicum.note;
 
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 
+import java.util.Collection;
 import java.util.List;
 
-public interface ItemNoteRepository extends JpaRepository<ItemNote, Long> {
+public interface ItemNoteRepository extends JpaRepository<ItemNote, Long>, ItemNoteRepositoryCustom {
 
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"))
     List<ItemNote> findAllByItemUrlContainingAndItemUserId(String itemUrl, Long userId);
 
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"))
     @Query("select itn from ItemNote itn\n" +
            "            join itn.item as i\n" +
            "            where i.user.id = ?1 and ?2 member of i.tags")
     List<ItemNote> findItemNotesByUsersTags(Long userId, String tag);
 
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"))
     List<ItemNote> findAllByItemUserId(Long userId, Pageable pageable);
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"))
+    List<ItemNote> findAllByIdInAndItemUserId(Collection<Long> ids, Long userId);
 }
@@ -0,0 +1,14 @@
+package ru.practicum.note;
+
+import com.querydsl.core.Tuple;
+import com.querydsl.core.types.Expression;
+import com.querydsl.core.types.Predicate;
+import org.springframework.data.domain.Pageable;
+
+import java.util.List;
+
+public interface ItemNoteRepositoryCustom {
+
+    // выбирает только указанные колонки, без загрузки сущностей
+    List<Tuple> findProjected(Predicate predicate, Pageable pageable, List<Expression<?>> columns);
+}
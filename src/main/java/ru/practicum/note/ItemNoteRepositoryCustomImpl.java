@@ -0,0 +1,33 @@
+package ru.practicum.note;
+
+import com.querydsl.core.Tuple;
+import com.querydsl.core.types.Expression;
+import com.querydsl.core.types.Predicate;
+import com.querydsl.jpa.impl.JPAQuery;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.springframework.data.domain.Pageable;
+
+import java.util.List;
+
+class ItemNoteRepositoryCustomImpl implements ItemNoteRepositoryCustom {
+
+    @PersistenceContext
+    private EntityManager em;
+
+    @Override
+    public List<Tuple> findProjected(Predicate predicate, Pageable pageable, List<Expression<?>> columns) {
+        QItemNote itemNote = QItemNote.itemNote;
+        JPAQuery<Tuple> query = new JPAQuery<Tuple>(em)
+                .select(columns.toArray(Expression[]::new))
+                .from(itemNote)
+                // фильтры и колонку itemUrl обслуживает одно соединение со ссылкой;
+                // колонок из resources у заметок нет, поэтому эта таблица в запрос не попадает
+                .join(itemNote.item)
+                .where(predicate);
+        if (pageable.isPaged()) {
+            query.offset(pageable.getOffset()).limit(pageable.getPageSize());
+        }
+        return query.fetch();
+    }
+}
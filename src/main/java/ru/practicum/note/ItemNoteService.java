@@ -2,19 +2,23 @@ package ru.practicum.note;
 
 import org.springframework.transaction.annotation.Transactional;
 import ru.practicum.note.dto.ItemNoteDto;
+import ru.practicum.note.dto.ItemNoteField;
 
 import java.util.List;
+import java.util.Set;
 
 @Transactional(readOnly = true)
-interface ItemNoteService {
+public interface ItemNoteService {
 
     @Transactional
     ItemNoteDto addNewItemNote(long userId, ItemNoteDto itemNoteDto);
 
-    List<ItemNoteDto> searchNotesByUrl(String url, Long userId);
+    // fields — запрошенные поля ItemNoteDto, пустой набор означает все поля
 
-    List<ItemNoteDto> searchNotesByTag(long userId, String tag);
+    List<ItemNoteDto> searchNotesByUrl(String url, Long userId, Set<ItemNoteField> fields);
 
-    List<ItemNoteDto> listAllItemsWithNotes(long userId, int from, int size);
+    List<ItemNoteDto> searchNotesByTag(long userId, String tag, Set<ItemNoteField> fields);
+
+    List<ItemNoteDto> listAllItemsWithNotes(long userId, int from, int size, Set<ItemNoteField> fields);
 }
   
\ No newline at end of file
@@ -1,14 +1,26 @@
 package ru.practicum.note;
 
+import com.querydsl.core.types.Expression;
+import com.querydsl.core.types.Predicate;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import ru.practicum.change.ItemChange;
+import ru.practicum.change.ItemChangeRepository;
 import ru.practicum.common.NotFoundException;
+import ru.practicum.common.UserDataChangedEvent;
 import ru.practicum.item.Item;
 import ru.practicum.item.ItemRepository;
 import ru.practicum.note.dto.ItemNoteDto;
+import ru.practicum.note.dto.ItemNoteField;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
@@ -16,6 +28,8 @@ public class ItemNoteServiceImpl implements ItemNoteService {
 
     private final ItemNoteRepository itemNoteRepository;
     private final ItemRepository itemRepository;
+    private final ItemChangeRepository itemChangeRepository;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Override
     public ItemNoteDto addNewItemNote(long userId, ItemNoteDto itemNoteDto) {
@@ -23,28 +37,48 @@ public class ItemNoteServiceImpl implements ItemNoteService {
                 .orElseThrow(() -> new NotFoundException("Item not found"));
         ItemNote itemNote = ItemNoteMapper.mapToEntity(itemNoteDto, item);
         itemNote = itemNoteRepository.save(itemNote);
+        itemChangeRepository.appendNoteChange(item.getUser().getId(), itemNote.getId(), ItemChange.Operation.UPSERT);
+        eventPublisher.publishEvent(new UserDataChangedEvent(item.getUser().getId()));
         return ItemNoteMapper.mapToDto(itemNote);
     }
 
     @Override
-    public List<ItemNoteDto> searchNotesByUrl(String url, Long userId) {
-        return itemNoteRepository.findAllByItemUrlContainingAndItemUserId(url, userId).stream()
-                .map(ItemNoteMapper::mapToDto)
-                .toList();
+    public List<ItemNoteDto> searchNotesByUrl(String url, Long userId, Set<ItemNoteField> fields) {
+        if (!fields.isEmpty()) {
+            return getProjectedNotes(QItemNote.itemNote.item.url.contains(url)
+                    .and(QItemNote.itemNote.item.user.id.eq(userId)), Pageable.unpaged(), fields);
+        }
+        return ItemNoteMapper.mapToDto(itemNoteRepository.findAllByItemUrlContainingAndItemUserId(url, userId));
     }
 
     @Override
-    public List<ItemNoteDto> searchNotesByTag(long userId, String tag) {
-        return itemNoteRepository.findItemNotesByUsersTags(userId, tag).stream()
-                .map(ItemNoteMapper::mapToDto)
-                .toList();
+    public List<ItemNoteDto> searchNotesByTag(long userId, String tag, Set<ItemNoteField> fields) {
+        if (!fields.isEmpty()) {
+            return getProjectedNotes(QItemNote.itemNote.item.user.id.eq(userId)
+                    .and(QItemNote.itemNote.item.tags.contains(tag)), Pageable.unpaged(), fields);
+        }
+        return ItemNoteMapper.mapToDto(itemNoteRepository.findItemNotesByUsersTags(userId, tag));
     }
 
     @Override
-    public List<ItemNoteDto> listAllItemsWithNotes(long userId, int from, int size) {
+    public List<ItemNoteDto> listAllItemsWithNotes(long userId, int from, int size, Set<ItemNoteField> fields) {
         PageRequest pageRequest = PageRequest.of(from > 0 ? from / size : 0, size);
-        return itemNoteRepository.findAllByItemUserId(userId, pageRequest).stream()
-                .map(ItemNoteMapper::mapToDto)
-                .toList();
+        if (!fields.isEmpty()) {
+            return getProjectedNotes(QItemNote.itemNote.item.user.id.eq(userId), pageRequest, fields);
+        }
+        return ItemNoteMapper.mapToDto(itemNoteRepository.findAllByItemUserId(userId, pageRequest));
+    }
+
+    // выбираются только колонки запрошенных полей, сущности заметок и ссылок не загружаются
+    private List<ItemNoteDto> getProjectedNotes(Predicate predicate, Pageable pageable, Set<ItemNoteField> fields) {
+        List<Expression<?>> columns = fields.stream()
+                .map(ItemNoteField::getExpression)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toCollection(ArrayList::new));
+        if (columns.isEmpty()) {
+            // запрошены только поля без колонок — число строк всё равно нужно знать
+            columns.add(QItemNote.itemNote.id);
+        }
+        return ItemNoteMapper.mapToDto(itemNoteRepository.findProjected(predicate, pageable, columns), fields);
     }
 }
@@ -1,11 +1,14 @@
 package ru.practicum.note.dto;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
+// при fields= незапрошенные поля остаются null и не попадают в ответ
 @Data
 @NoArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
 @AllArgsConstructor(staticName = "of")
 public class ItemNoteDto {
 
@@ -0,0 +1,47 @@
+package ru.practicum.note.dto;
+
+import com.querydsl.core.types.Expression;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import ru.practicum.common.BadRequestException;
+import ru.practicum.note.QItemNote;
+
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.Set;
+
+// Поля ItemNoteDto, которые клиент может запросить через fields=; имена совпадают с именами в JSON.
+// Дата заметки в БД не хранится, поэтому колонки у неё нет.
+@Getter
+@RequiredArgsConstructor
+public enum ItemNoteField {
+    ID("id", QItemNote.itemNote.id),
+    ITEM_ID("itemId", QItemNote.itemNote.item.id),
+    TEXT("text", QItemNote.itemNote.text),
+    DATE_OF_NOTE("dateOfNote", null),
+    ITEM_URL("itemUrl", QItemNote.itemNote.item.url);
+
+    private final String jsonName;
+    private final Expression<?> expression;
+
+    // пустой набор означает «все поля»
+    public static Set<ItemNoteField> of(Collection<String> names) {
+        Set<ItemNoteField> fields = EnumSet.noneOf(ItemNoteField.class);
+        if (names == null) {
+            return fields;
+        }
+        for (String name : names) {
+            fields.add(byJsonName(name.trim()));
+        }
+        return fields;
+    }
+
+    private static ItemNoteField byJsonName(String name) {
+        for (ItemNoteField field : values()) {
+            if (field.jsonName.equals(name)) {
+                return field;
+            }
+        }
+        throw new BadRequestException("errors.400.fields");
+    }
+}
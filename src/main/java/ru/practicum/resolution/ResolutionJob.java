@@ -0,0 +1,72 @@
+package ru.practicum.resolution;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.ToString;
+
+import java.time.Instant;
+
+// Задание на получение метаданных ссылки. Очередь хранится в БД, поэтому её разбирают воркеры всех узлов.
+// Аренда задания — пара (locked_by, attempts): см. ResolutionJobRepositoryCustom.claim.
+@Getter
+@Setter
+@Entity
+@ToString
+@Table(name = "resolution_jobs", schema = "public",
+        indexes = @Index(name = "ix_resolution_jobs_state_run_at", columnList = "state, run_at"))
+public class ResolutionJob {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    @Column(name = "url", nullable = false, length = 1500)
+    private String url;
+
+    @Column(name = "tags", columnDefinition = "text[]")
+    private String[] tags;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "state", nullable = false)
+    private State state;
+
+    @Column(name = "attempts", nullable = false)
+    private int attempts;
+
+    @Column(name = "run_at", nullable = false)
+    private Instant runAt;
+
+    @Column(name = "locked_by")
+    private String lockedBy;
+
+    @Column(name = "locked_until")
+    private Instant lockedUntil;
+
+    @Column(name = "item_id")
+    private Long itemId;
+
+    @Column(name = "last_error", length = 2000)
+    private String lastError;
+
+    @Column(name = "created_at", nullable = false)
+    private Instant createdAt;
+
+    @Column(name = "updated_at", nullable = false)
+    private Instant updatedAt;
+
+    public enum State {
+        PENDING, RUNNING, DONE, DEAD
+    }
+}
@@ -0,0 +1,35 @@
+package ru.practicum.resolution;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.ResponseStatus;
+import org.springframework.web.bind.annotation.RestController;
+import ru.practicum.item.dto.AddItemRequest;
+import ru.practicum.resolution.dto.ResolutionJobDto;
+
+@RestController
+@RequestMapping("/items/jobs")
+@RequiredArgsConstructor
+public class ResolutionJobController {
+    private final ResolutionJobService resolutionJobService;
+
+    // ставит ссылку в очередь; готовность проверяется через GET /items/jobs/{jobId}
+    @PostMapping
+    @ResponseStatus(HttpStatus.ACCEPTED)
+    public ResolutionJobDto enqueue(@RequestHeader("X-Later-User-Id") long userId,
+                                    @RequestBody AddItemRequest request) {
+        return resolutionJobService.enqueue(userId, request);
+    }
+
+    @GetMapping("/{jobId}")
+    public ResolutionJobDto getJob(@RequestHeader("X-Later-User-Id") long userId,
+                                   @PathVariable(name = "jobId") long jobId) {
+        return resolutionJobService.getJob(userId, jobId);
+    }
+}
@@ -0,0 +1,30 @@
+package ru.practicum.resolution;
+
+import lombok.experimental.UtilityClass;
+import ru.practicum.resolution.dto.ResolutionJobDto;
+
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.LinkedHashSet;
+import java.util.List;
+
+@UtilityClass
+public class ResolutionJobMapper {
+    private static final DateTimeFormatter dtFormatter = DateTimeFormatter
+            .ofPattern("yyyy.MM.dd HH:mm:ss")
+            .withZone(ZoneOffset.UTC);
+
+    public static ResolutionJobDto mapToDto(ResolutionJob job) {
+        return ResolutionJobDto.builder()
+                .id(job.getId())
+                .url(job.getUrl())
+                .tags(new LinkedHashSet<>(List.of(job.getTags())))
+                .state(job.getState())
+                .attempts(job.getAttempts())
+                .itemId(job.getItemId())
+                .lastError(job.getLastError())
+                .nextAttemptAt(job.getState() == ResolutionJob.State.PENDING ? dtFormatter.format(job.getRunAt()) : null)
+                .createdAt(dtFormatter.format(job.getCreatedAt()))
+                .build();
+    }
+}
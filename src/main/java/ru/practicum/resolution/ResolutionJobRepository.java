@@ -0,0 +1,43 @@
+package ru.practicum.resolution;
+
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+
+import java.time.Instant;
+import java.util.Optional;
+
+public interface ResolutionJobRepository extends JpaRepository<ResolutionJob, Long>, ResolutionJobRepositoryCustom {
+
+    Optional<ResolutionJob> findByIdAndUserId(Long id, Long userId);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select j from ResolutionJob j where j.id = ?1 and j.lockedBy = ?2 and j.attempts = ?3 " +
+           "and j.state = ru.practicum.resolution.ResolutionJob.State.RUNNING")
+    Optional<ResolutionJob> findLeased(long jobId, String workerId, int attempt);
+
+    // Все переходы из RUNNING проверяют аренду: если она истекла и задание забрал другой воркер,
+    // attempts уже увеличен и запоздавший результат ничего не обновит.
+    @Modifying
+    @Query("update ResolutionJob j set j.state = ru.practicum.resolution.ResolutionJob.State.DONE, " +
+           "j.itemId = ?4, j.lockedBy = null, j.lockedUntil = null, j.lastError = null, j.updatedAt = ?5 " +
+           "where j.id = ?1 and j.lockedBy = ?2 and j.attempts = ?3 " +
+           "and j.state = ru.practicum.resolution.ResolutionJob.State.RUNNING")
+    int markDone(long jobId, String workerId, int attempt, long itemId, Instant now);
+
+    @Modifying
+    @Query("update ResolutionJob j set j.state = ru.practicum.resolution.ResolutionJob.State.PENDING, " +
+           "j.runAt = ?4, j.lockedBy = null, j.lockedUntil = null, j.lastError = ?5, j.updatedAt = ?6 " +
+           "where j.id = ?1 and j.lockedBy = ?2 and j.attempts = ?3 " +
+           "and j.state = ru.practicum.resolution.ResolutionJob.State.RUNNING")
+    int markRetry(long jobId, String workerId, int attempt, Instant runAt, String error, Instant now);
+
+    @Modifying
+    @Query("update ResolutionJob j set j.state = ru.practicum.resolution.ResolutionJob.State.DEAD, " +
+           "j.lockedBy = null, j.lockedUntil = null, j.lastError = ?4, j.updatedAt = ?5 " +
+           "where j.id = ?1 and j.lockedBy = ?2 and j.attempts = ?3 " +
+           "and j.state = ru.practicum.resolution.ResolutionJob.State.RUNNING")
+    int markDead(long jobId, String workerId, int attempt, String error, Instant now);
+}
@@ -0,0 +1,12 @@
+package ru.practicum.resolution;
+
+import java.time.Duration;
+import java.util.List;
+
+public interface ResolutionJobRepositoryCustom {
+
+    // Забирает до limit готовых к выполнению заданий, в том числе брошенных воркерами с истёкшей арендой.
+    // Брошенные задания, исчерпавшие maxAttempts, вместо этого переводятся в DEAD.
+    // Возвращённые объекты не управляются EntityManager.
+    List<ResolutionJob> claim(String workerId, int limit, Duration visibilityTimeout, int maxAttempts);
+}
@@ -0,0 +1,105 @@
+package ru.practicum.resolution;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.Session;
+
+import java.sql.Array;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+@Slf4j
+class ResolutionJobRepositoryCustomImpl implements ResolutionJobRepositoryCustom {
+    // задание, воркер которого раз за разом не укладывается в аренду (падает или зависает на одном адресе),
+    // иначе забиралось бы повторно бесконечно: fail() для него не вызывается
+    private static final String DEAD_LETTER_EXPIRED = """
+            UPDATE resolution_jobs
+            SET state = 'DEAD',
+                locked_by = NULL,
+                locked_until = NULL,
+                last_error = 'Lease expired after ' || attempts || ' attempts',
+                updated_at = now()
+            WHERE state = 'RUNNING'
+              AND locked_until < now()
+              AND attempts >= ?
+            """;
+
+    // SKIP LOCKED: воркеры разных узлов не ждут друг друга и никогда не получают одну строку одновременно
+    private static final String CLAIM = """
+            WITH next AS (
+                SELECT id
+                FROM resolution_jobs
+                WHERE (state = 'PENDING' AND run_at <= now())
+                   OR (state = 'RUNNING' AND locked_until < now() AND attempts < ?)
+                ORDER BY run_at, id
+                LIMIT ?
+                FOR UPDATE SKIP LOCKED
+            )
+            UPDATE resolution_jobs j
+            SET state = 'RUNNING',
+                attempts = j.attempts + 1,
+                locked_by = ?,
+                locked_until = now() + ? * interval '1 millisecond',
+                updated_at = now()
+            FROM next
+            WHERE j.id = next.id
+            RETURNING j.id, j.user_id, j.url, j.tags, j.state, j.attempts, j.run_at, j.locked_by, j.locked_until,
+                      j.item_id, j.last_error, j.created_at, j.updated_at
+            """;
+
+    @PersistenceContext
+    private EntityManager em;
+
+    @Override
+    public List<ResolutionJob> claim(String workerId, int limit, Duration visibilityTimeout, int maxAttempts) {
+        return em.unwrap(Session.class).doReturningWork(connection -> {
+            try (PreparedStatement ps = connection.prepareStatement(DEAD_LETTER_EXPIRED)) {
+                ps.setInt(1, maxAttempts);
+                int dead = ps.executeUpdate();
+                if (dead > 0) {
+                    log.warn("Moved {} resolution jobs to dead letter after their last lease expired", dead);
+                }
+            }
+            try (PreparedStatement ps = connection.prepareStatement(CLAIM)) {
+                ps.setInt(1, maxAttempts);
+                ps.setInt(2, limit);
+                ps.setString(3, workerId);
+                ps.setLong(4, visibilityTimeout.toMillis());
+                List<ResolutionJob> jobs = new ArrayList<>();
+                try (ResultSet rs = ps.executeQuery()) {
+                    while (rs.next()) {
+                        jobs.add(readJob(rs));
+                    }
+                }
+                return jobs;
+            }
+        });
+    }
+
+    private ResolutionJob readJob(ResultSet rs) throws SQLException {
+        ResolutionJob job = new ResolutionJob();
+        job.setId(rs.getLong("id"));
+        job.setUserId(rs.getLong("user_id"));
+        job.setUrl(rs.getString("url"));
+        Array tags = rs.getArray("tags");
+        job.setTags(tags == null ? new String[0] : (String[]) tags.getArray());
+        job.setState(ResolutionJob.State.valueOf(rs.getString("state")));
+        job.setAttempts(rs.getInt("attempts"));
+        job.setRunAt(rs.getTimestamp("run_at").toInstant());
+        job.setLockedBy(rs.getString("locked_by"));
+        Timestamp lockedUntil = rs.getTimestamp("locked_until");
+        job.setLockedUntil(lockedUntil == null ? null : lockedUntil.toInstant());
+        long itemId = rs.getLong("item_id");
+        job.setItemId(rs.wasNull() ? null : itemId);
+        job.setLastError(rs.getString("last_error"));
+        job.setCreatedAt(rs.getTimestamp("created_at").toInstant());
+        job.setUpdatedAt(rs.getTimestamp("updated_at").toInstant());
+        return job;
+    }
+}
@@ -0,0 +1,20 @@
+package ru.practicum.resolution;
+
+import ru.practicum.item.UrlMetaDataRetriever;
+import ru.practicum.item.dto.AddItemRequest;
+import ru.practicum.resolution.dto.ResolutionJobDto;
+
+import java.util.List;
+
+public interface ResolutionJobService {
+
+    ResolutionJobDto enqueue(long userId, AddItemRequest request);
+
+    ResolutionJobDto getJob(long userId, long jobId);
+
+    List<ResolutionJob> claim(String workerId, int limit);
+
+    void complete(ResolutionJob job, String workerId, UrlMetaDataRetriever.UrlMetadata urlMetadata);
+
+    void fail(ResolutionJob job, String workerId, RuntimeException error);
+}
@@ -0,0 +1,124 @@
+package ru.practicum.resolution;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.common.NotFoundException;
+import ru.practicum.item.ItemService;
+import ru.practicum.item.UrlCanonicalizer;
+import ru.practicum.item.UrlMetaDataRetriever;
+import ru.practicum.item.dto.AddItemRequest;
+import ru.practicum.item.dto.ItemDto;
+import ru.practicum.resolution.dto.ResolutionJobDto;
+import ru.practicum.user.UserRepository;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+
+@Slf4j
+@Service
+class ResolutionJobServiceImpl implements ResolutionJobService {
+    private static final int MAX_ERROR_LENGTH = 2000;
+
+    private final ResolutionJobRepository resolutionJobRepository;
+    private final UserRepository userRepository;
+    private final ItemService itemService;
+    private final UrlCanonicalizer urlCanonicalizer;
+    private final int maxAttempts;
+    private final Duration visibilityTimeout;
+    private final Duration backoffBase;
+    private final Duration backoffMax;
+
+    ResolutionJobServiceImpl(ResolutionJobRepository resolutionJobRepository,
+                             UserRepository userRepository,
+                             ItemService itemService,
+                             UrlCanonicalizer urlCanonicalizer,
+                             @Value("${resolution.max-attempts:5}") int maxAttempts,
+                             @Value("${resolution.visibility-timeout-ms:300000}") long visibilityTimeoutMs,
+                             @Value("${resolution.backoff-base-ms:5000}") long backoffBaseMs,
+                             @Value("${resolution.backoff-max-ms:3600000}") long backoffMaxMs) {
+        this.resolutionJobRepository = resolutionJobRepository;
+        this.userRepository = userRepository;
+        this.itemService = itemService;
+        this.urlCanonicalizer = urlCanonicalizer;
+        this.maxAttempts = maxAttempts;
+        this.visibilityTimeout = Duration.ofMillis(visibilityTimeoutMs);
+        this.backoffBase = Duration.ofMillis(backoffBaseMs);
+        this.backoffMax = Duration.ofMillis(backoffMaxMs);
+    }
+
+    @Override
+    @Transactional
+    public ResolutionJobDto enqueue(long userId, AddItemRequest request) {
+        if (!userRepository.existsById(userId)) {
+            throw new NotFoundException("errors.404.users");
+        }
+        Instant now = Instant.now();
+        ResolutionJob job = new ResolutionJob();
+        job.setUserId(userId);
+        job.setUrl(urlCanonicalizer.canonicalize(request.getUrl()));
+        job.setTags(request.getTags() == null ? new String[0] : request.getTags().toArray(String[]::new));
+        job.setState(ResolutionJob.State.PENDING);
+        job.setRunAt(now);
+        job.setCreatedAt(now);
+        job.setUpdatedAt(now);
+        return ResolutionJobMapper.mapToDto(resolutionJobRepository.save(job));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public ResolutionJobDto getJob(long userId, long jobId) {
+        return resolutionJobRepository.findByIdAndUserId(jobId, userId)
+                .map(ResolutionJobMapper::mapToDto)
+                .orElseThrow(() -> new NotFoundException("errors.404.jobs"));
+    }
+
+    @Override
+    @Transactional
+    public List<ResolutionJob> claim(String workerId, int limit) {
+        return resolutionJobRepository.claim(workerId, limit, visibilityTimeout, maxAttempts);
+    }
+
+    @Override
+    @Transactional
+    public void complete(ResolutionJob job, String workerId, UrlMetaDataRetriever.UrlMetadata urlMetadata) {
+        // строка задания блокируется до конца транзакции; при потерянной аренде
+        // ссылку сохранит тот воркер, который забрал задание повторно
+        if (resolutionJobRepository.findLeased(job.getId(), workerId, job.getAttempts()).isEmpty()) {
+            log.info("Lease on resolution job {} was lost, dropping the result", job.getId());
+            return;
+        }
+        ItemDto item = itemService.addResolvedItem(job.getUserId(), urlMetadata, Set.of(job.getTags()));
+        resolutionJobRepository.markDone(job.getId(), workerId, job.getAttempts(), item.getId(), Instant.now());
+    }
+
+    @Override
+    @Transactional
+    public void fail(ResolutionJob job, String workerId, RuntimeException error) {
+        String message = truncate(error.getMessage() == null ? error.getClass().getName() : error.getMessage());
+        Instant now = Instant.now();
+        if (job.getAttempts() >= maxAttempts) {
+            log.warn("Resolution job {} moved to dead letter after {} attempts: {}", job.getId(), job.getAttempts(), message);
+            resolutionJobRepository.markDead(job.getId(), workerId, job.getAttempts(), message, now);
+            return;
+        }
+        Instant runAt = now.plus(backoff(job.getAttempts()));
+        log.info("Resolution job {} failed (attempt {}), retrying at {}: {}", job.getId(), job.getAttempts(), runAt, message);
+        resolutionJobRepository.markRetry(job.getId(), workerId, job.getAttempts(), runAt, message, now);
+    }
+
+    // экспоненциальная задержка с половинным джиттером, чтобы повторы разных заданий не шли пачкой
+    private Duration backoff(int attempt) {
+        long exponential = backoffBase.toMillis() << Math.min(attempt - 1, 20);
+        long delay = Math.min(exponential, backoffMax.toMillis());
+        return Duration.ofMillis(delay / 2 + ThreadLocalRandom.current().nextLong(delay / 2 + 1));
+    }
+
+    private String truncate(String message) {
+        return message.length() > MAX_ERROR_LENGTH ? message.substring(0, MAX_ERROR_LENGTH) : message;
+    }
+}
@@ -0,0 +1,63 @@
+package ru.practicum.resolution;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import ru.practicum.item.UrlMetaDataRetriever;
+
+import java.lang.management.ManagementFactory;
+import java.util.List;
+import java.util.UUID;
+
+// Воркер очереди получения метаданных. Запускается на каждом узле; узлы делят очередь через SKIP LOCKED,
+// поэтому пропускная способность растёт добавлением узлов. Сеть опрашивается вне транзакции.
+@Slf4j
+@Component
+class ResolutionWorker {
+
+    private final ResolutionJobService resolutionJobService;
+    private final UrlMetaDataRetriever urlMetaDataRetriever;
+    private final boolean enabled;
+    private final int batchSize;
+    private final String workerId;
+
+    ResolutionWorker(ResolutionJobService resolutionJobService,
+                     UrlMetaDataRetriever urlMetaDataRetriever,
+                     @Value("${resolution.worker.enabled:true}") boolean enabled,
+                     @Value("${resolution.worker.batch-size:5}") int batchSize) {
+        this.resolutionJobService = resolutionJobService;
+        this.urlMetaDataRetriever = urlMetaDataRetriever;
+        this.enabled = enabled;
+        this.batchSize = batchSize;
+        this.workerId = ManagementFactory.getRuntimeMXBean().getName() + "/" + UUID.randomUUID();
+    }
+
+    @Scheduled(fixedDelayString = "${resolution.worker.poll-delay-ms:1000}")
+    public void poll() {
+        if (!enabled) {
+            return;
+        }
+        List<ResolutionJob> jobs;
+        do {
+            jobs = resolutionJobService.claim(workerId, batchSize);
+            jobs.forEach(this::process);
+        } while (jobs.size() == batchSize);
+    }
+
+    void process(ResolutionJob job) {
+        UrlMetaDataRetriever.UrlMetadata urlMetadata;
+        try {
+            urlMetadata = urlMetaDataRetriever.retrieve(job.getUrl());
+        } catch (RuntimeException e) {
+            resolutionJobService.fail(job, workerId, e);
+            return;
+        }
+        try {
+            resolutionJobService.complete(job, workerId, urlMetadata);
+        } catch (RuntimeException e) {
+            log.warn("Failed to store the result of resolution job {}", job.getId(), e);
+            resolutionJobService.fail(job, workerId, e);
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package ru.practicum.resolution.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.Builder;
+import lombok.Getter;
+import ru.practicum.resolution.ResolutionJob;
+
+import java.util.Set;
+
+@Getter
+@Builder
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class ResolutionJobDto {
+    private Long id;
+    private String url;
+    private Set<String> tags;
+    private ResolutionJob.State state;
+    private int attempts;
+    private Long itemId;
+    private String lastError;
+    private String nextAttemptAt;
+    private String createdAt;
+}
@@ -16,7 +16,7 @@ class UserServiceImpl implements UserService {
     private final UserRepository repository;
 
     @Override
-    @Transactional
+    @Transactional(readOnly = true)
     public List<UserDto> getAllUsers() {
         return repository.findAll().stream()
                 .map(UserMapper::mapToUserDto)
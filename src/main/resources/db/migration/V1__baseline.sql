@@ -0,0 +1,43 @@
+-- Схема, с которой приложение работало до появления миграций. На существующей базе ничего не меняет,
+-- на пустой создаёт таблицы в том виде, в каком их создавал hbm2ddl.
+CREATE TABLE IF NOT EXISTS users (
+    id                bigint GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    email             varchar(255),
+    first_name        varchar(255) NOT NULL,
+    last_name         varchar(255),
+    registration_date timestamp(6) with time zone,
+    state             varchar(255) CHECK (state IN ('ACTIVE', 'BLOCKED', 'DELETED'))
+);
+
+CREATE TABLE IF NOT EXISTS items (
+    id            bigint GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    user_id       bigint REFERENCES users (id),
+    url           varchar(1500),
+    resolved_url  varchar(1500),
+    mime_type     varchar(255),
+    title         varchar(1000),
+    has_image     boolean,
+    has_video     boolean,
+    date_resolved timestamp(6) with time zone,
+    unread        boolean
+);
+
+-- на базе, созданной hbm2ddl уже после переноса метаданных в resources, этих колонок нет;
+-- пустые колонки нужны, чтобы следующие миграции видели одну и ту же исходную схему
+ALTER TABLE items
+    ADD COLUMN IF NOT EXISTS mime_type     varchar(255),
+    ADD COLUMN IF NOT EXISTS title         varchar(1000),
+    ADD COLUMN IF NOT EXISTS has_image     boolean,
+    ADD COLUMN IF NOT EXISTS has_video     boolean,
+    ADD COLUMN IF NOT EXISTS date_resolved timestamp(6) with time zone;
+
+CREATE TABLE IF NOT EXISTS tags (
+    item_id bigint NOT NULL REFERENCES items (id),
+    name    varchar(255)
+);
+
+CREATE TABLE IF NOT EXISTS item_notes (
+    id      bigint GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    text    varchar(2000),
+    item_id bigint REFERENCES items (id)
+);
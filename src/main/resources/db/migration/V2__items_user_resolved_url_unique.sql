@@ -0,0 +1,46 @@
+-- Уникальные ключи, на которые опираются ON CONFLICT (user_id, resolved_url) и ON CONFLICT (item_id, name).
+-- Дубликаты, накопившиеся до ограничения, сливаются в ссылку с наименьшим id:
+-- она остаётся непрочитанной, если непрочитана любая из копий, теги и заметки переносятся на неё.
+CREATE TEMPORARY TABLE item_duplicates ON COMMIT DROP AS
+SELECT id, keep_id
+FROM (SELECT id, min(id) OVER (PARTITION BY user_id, resolved_url) AS keep_id
+      FROM items
+      WHERE resolved_url IS NOT NULL) d
+WHERE id <> keep_id;
+
+UPDATE items i
+SET unread = TRUE
+FROM item_duplicates d
+JOIN items copy ON copy.id = d.id
+WHERE i.id = d.keep_id AND copy.unread;
+
+INSERT INTO tags (item_id, name)
+SELECT DISTINCT d.keep_id, t.name
+FROM tags t
+JOIN item_duplicates d ON d.id = t.item_id
+WHERE NOT EXISTS (SELECT 1 FROM tags kept WHERE kept.item_id = d.keep_id AND kept.name = t.name);
+
+UPDATE item_notes n
+SET item_id = d.keep_id
+FROM item_duplicates d
+WHERE n.item_id = d.id;
+
+DELETE FROM tags t USING item_duplicates d WHERE t.item_id = d.id;
+DELETE FROM items i USING item_duplicates d WHERE i.id = d.id;
+
+-- повторяющиеся теги одной ссылки
+DELETE FROM tags t
+USING tags other
+WHERE t.item_id = other.item_id AND t.name = other.name AND t.ctid > other.ctid;
+
+-- на базе, где схему поддерживал hbm2ddl update, ограничения с этими именами уже могут быть
+DO $$
+BEGIN
+    IF NOT EXISTS (SELECT 1 FROM pg_constraint WHERE conname = 'uq_items_user_resolved_url') THEN
+        ALTER TABLE items ADD CONSTRAINT uq_items_user_resolved_url UNIQUE (user_id, resolved_url);
+    END IF;
+    IF NOT EXISTS (SELECT 1 FROM pg_constraint WHERE conname = 'uq_tags_item_name') THEN
+        ALTER TABLE tags ADD CONSTRAINT uq_tags_item_name UNIQUE (item_id, name);
+    END IF;
+END
+$$;
@@ -0,0 +1,27 @@
+-- Теги и заметки удаляются вместе со ссылкой на уровне БД: массовое удаление ссылок (DELETE /items)
+-- не загружает сущности и не удаляет коллекции по одной.
+-- Строки, которые уже ссылаются на несуществующие ссылки, не дали бы пересоздать внешние ключи.
+DELETE FROM tags t WHERE NOT EXISTS (SELECT 1 FROM items i WHERE i.id = t.item_id);
+DELETE FROM item_notes n WHERE n.item_id IS NOT NULL AND NOT EXISTS (SELECT 1 FROM items i WHERE i.id = n.item_id);
+
+-- имена внешних ключей, созданных hbm2ddl, случайны, поэтому они ищутся по таблицам
+DO $$
+DECLARE
+    fk record;
+BEGIN
+    FOR fk IN
+        SELECT c.conname, c.conrelid::regclass AS table_name
+        FROM pg_constraint c
+        WHERE c.contype = 'f'
+          AND c.confrelid = 'items'::regclass
+          AND c.conrelid IN ('tags'::regclass, 'item_notes'::regclass)
+    LOOP
+        EXECUTE format('ALTER TABLE %s DROP CONSTRAINT %I', fk.table_name, fk.conname);
+    END LOOP;
+END
+$$;
+
+ALTER TABLE tags
+    ADD CONSTRAINT fk_tags_item FOREIGN KEY (item_id) REFERENCES items (id) ON DELETE CASCADE;
+ALTER TABLE item_notes
+    ADD CONSTRAINT fk_item_notes_item FOREIGN KEY (item_id) REFERENCES items (id) ON DELETE CASCADE;
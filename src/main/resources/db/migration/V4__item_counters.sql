@@ -0,0 +1,34 @@
+-- Счётчики ссылок пользователя (ItemCounter). Пользователям, у которых счётчиков ещё нет, они
+-- заполняются по текущим ссылкам; типы содержимого классифицируются так же, как GetItemRequest.ContentType.
+-- Дальше расхождения исправляет ItemStatsReconciler.
+CREATE TABLE IF NOT EXISTS item_counters (
+    user_id      bigint       NOT NULL,
+    dimension    varchar(255) NOT NULL CHECK (dimension IN ('ALL', 'CONTENT_TYPE', 'TAG')),
+    name         varchar(255) NOT NULL,
+    total_count  bigint       NOT NULL,
+    unread_count bigint       NOT NULL,
+    PRIMARY KEY (user_id, dimension, name)
+);
+
+CREATE INDEX IF NOT EXISTS ix_item_counters_user_id ON item_counters (user_id);
+
+INSERT INTO item_counters (user_id, dimension, name, total_count, unread_count)
+SELECT i.user_id, d.dimension, d.name, count(*), count(*) FILTER (WHERE i.unread)
+FROM items i
+CROSS JOIN LATERAL (
+    SELECT CASE
+               WHEN i.mime_type LIKE 'text%' THEN 'ARTICLE'
+               WHEN i.mime_type LIKE 'image%' THEN 'IMAGE'
+               WHEN i.mime_type LIKE 'video%' THEN 'VIDEO'
+           END AS content_type
+) ct
+CROSS JOIN LATERAL (
+    SELECT 'ALL', ''
+    UNION ALL
+    SELECT 'CONTENT_TYPE', ct.content_type WHERE ct.content_type IS NOT NULL
+    UNION ALL
+    SELECT 'TAG', t.name FROM tags t WHERE t.item_id = i.id
+) AS d(dimension, name)
+WHERE i.user_id IS NOT NULL
+  AND NOT EXISTS (SELECT 1 FROM item_counters c WHERE c.user_id = i.user_id)
+GROUP BY i.user_id, d.dimension, d.name;
@@ -0,0 +1,13 @@
+-- Журнал изменений ссылок и заметок (ItemChange) для GET /items/changes.
+-- История до появления журнала не восстанавливается: клиенты без курсора сначала получают полный список.
+CREATE TABLE IF NOT EXISTS item_changes (
+    id          bigint GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    user_id     bigint                      NOT NULL,
+    entity_type varchar(255)                NOT NULL CHECK (entity_type IN ('ITEM', 'NOTE')),
+    entity_id   bigint                      NOT NULL,
+    operation   varchar(255)                NOT NULL CHECK (operation IN ('UPSERT', 'DELETE')),
+    tx_id       bigint                      NOT NULL,
+    changed_at  timestamp(6) with time zone NOT NULL
+);
+
+CREATE INDEX IF NOT EXISTS ix_item_changes_user_cursor ON item_changes (user_id, tx_id, id);
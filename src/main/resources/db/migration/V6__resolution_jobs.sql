@@ -0,0 +1,21 @@
+-- Очередь заданий на получение метаданных ссылок (ResolutionJob).
+CREATE TABLE IF NOT EXISTS resolution_jobs (
+    id           bigint GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    user_id      bigint                      NOT NULL,
+    url          varchar(1500)               NOT NULL,
+    tags         text[],
+    state        varchar(255)                NOT NULL CHECK (state IN ('PENDING', 'RUNNING', 'DONE', 'DEAD')),
+    attempts     integer                     NOT NULL,
+    run_at       timestamp(6) with time zone NOT NULL,
+    locked_by    varchar(255),
+    locked_until timestamp(6) with time zone,
+    item_id      bigint,
+    last_error   varchar(2000),
+    created_at   timestamp(6) with time zone NOT NULL,
+    updated_at   timestamp(6) with time zone NOT NULL
+);
+
+-- на базе, где таблицу создал hbm2ddl, адрес был ограничен 255 символами
+ALTER TABLE resolution_jobs ALTER COLUMN url TYPE varchar(1500);
+
+CREATE INDEX IF NOT EXISTS ix_resolution_jobs_state_run_at ON resolution_jobs (state, run_at);
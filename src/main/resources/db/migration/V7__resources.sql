@@ -0,0 +1,43 @@
+-- Метаданные страницы общие для всех ссылок с одним resolved_url и хранятся в resources (Resource).
+-- Таблица заполняется из колонок items: для каждого адреса берутся самые свежие метаданные.
+-- Старые колонки items.mime_type, title, has_image, has_video, date_resolved приложение больше не читает
+-- и не пишет; их удалит следующая миграция.
+-- Выкладка только с остановкой всех узлов: предыдущая версия пишет метаданные в items и не создаёт строк
+-- resources, поэтому её вставка новой ссылки нарушит fk_items_resource, а ссылки, сохранённые новой версией,
+-- она прочитает без заголовка и типа.
+CREATE TABLE IF NOT EXISTS resources (
+    resolved_url  varchar(1500) PRIMARY KEY,
+    mime_type     varchar(255),
+    title         varchar(1000),
+    has_image     boolean,
+    has_video     boolean,
+    date_resolved timestamp(6) with time zone,
+    etag          varchar(500),
+    last_modified timestamp(6) with time zone,
+    checked_at    timestamp(6) with time zone
+);
+
+INSERT INTO resources (resolved_url, mime_type, title, has_image, has_video, date_resolved)
+SELECT DISTINCT ON (i.resolved_url) i.resolved_url, i.mime_type, i.title, i.has_image, i.has_video, i.date_resolved
+FROM items i
+WHERE i.resolved_url IS NOT NULL
+ORDER BY i.resolved_url, i.date_resolved DESC NULLS LAST
+ON CONFLICT (resolved_url) DO NOTHING;
+
+CREATE INDEX IF NOT EXISTS ix_resources_date_resolved ON resources (date_resolved);
+CREATE INDEX IF NOT EXISTS ix_items_url ON items (url);
+
+-- у каждой ссылки есть строка ресурса, поэтому соединения items с resources ничего не теряют;
+-- ItemRepository.upsert сохраняет ресурс раньше ссылки
+DO $$
+BEGIN
+    IF NOT EXISTS (SELECT 1
+                   FROM pg_constraint
+                   WHERE contype = 'f'
+                     AND conrelid = 'items'::regclass
+                     AND confrelid = 'resources'::regclass) THEN
+        ALTER TABLE items
+            ADD CONSTRAINT fk_items_resource FOREIGN KEY (resolved_url) REFERENCES resources (resolved_url);
+    END IF;
+END
+$$;
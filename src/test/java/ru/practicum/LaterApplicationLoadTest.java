@@ -0,0 +1,126 @@
+package ru.practicum;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.lang.management.ThreadMXBean;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.lessThan;
+
+// Нагрузочное сравнение режимов обработки запросов: пул платформенных потоков Tomcat против виртуальных потоков.
+// Каждый режим поднимает полноценный сервер на тестовой БД; клиенты на виртуальных потоках держат
+// CONCURRENCY одновременных запросов. Тест долгий, поэтому в обычную сборку не входит: mvn test -Pload.
+@Tag("load")
+class LaterApplicationLoadTest {
+    private static final int CONCURRENCY = 1000;
+    private static final int REQUESTS_PER_CLIENT = 20;
+    private static final int WARMUP_REQUESTS = 2000;
+
+    @BeforeAll
+    static void useTestDatabase() {
+        // системные свойства приоритетнее application.properties
+        System.setProperty("jdbc.url", "jdbc:postgresql://localhost:5432/test");
+        System.setProperty("hibernate.hbm2ddl.auto", "update");
+        System.setProperty("hibernate.show_sql", "false");
+        // сравниваются режимы потоков, а не сброс нагрузки: без предела все запросы должны пройти
+        System.setProperty("concurrency-limit.enabled", "false");
+        // 200 потоков Tomcat открыли бы больше соединений, чем разрешает PostgreSQL по умолчанию (100):
+        // оба режима работают с одним и тем же пределом соединений
+        System.setProperty("jdbc.max-connections", "20");
+    }
+
+    @AfterAll
+    static void restoreProperties() {
+        System.clearProperty("jdbc.url");
+        System.clearProperty("hibernate.hbm2ddl.auto");
+        System.clearProperty("hibernate.show_sql");
+        System.clearProperty("concurrency-limit.enabled");
+        System.clearProperty("jdbc.max-connections");
+    }
+
+    @Test
+    void virtualThreads_shouldServeHighConcurrencyWithFewerPlatformThreads() throws Exception {
+        Result platform = run(LaterApplication.ThreadMode.PLATFORM, 18081);
+        Result virtual = run(LaterApplication.ThreadMode.VIRTUAL, 18082);
+
+        // пропускная способность и рост кучи зависят от машины, поэтому проверяются только успех и число потоков
+        assertThat("platform: " + platform, platform.failed(), equalTo(0));
+        assertThat("virtual: " + virtual, virtual.failed(), equalTo(0));
+        assertThat("virtual: " + virtual + ", platform: " + platform,
+                virtual.peakPlatformThreads(), lessThan(platform.peakPlatformThreads()));
+    }
+
+    private Result run(LaterApplication.ThreadMode mode, int port) throws Exception {
+        LaterApplication.Server server = LaterApplication.start(port, mode);
+        try (HttpClient client = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(10)).build();
+             ExecutorService clients = Executors.newVirtualThreadPerTaskExecutor()) {
+            HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/items/stats"))
+                    .header("X-Later-User-Id", "1")
+                    .timeout(Duration.ofSeconds(60))
+                    .build();
+            for (int i = 0; i < WARMUP_REQUESTS; i++) {
+                client.send(request, HttpResponse.BodyHandlers.discarding());
+            }
+
+            ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+            MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+            System.gc();
+            long heapBefore = memory.getHeapMemoryUsage().getUsed();
+            threads.resetPeakThreadCount();
+
+            AtomicInteger failed = new AtomicInteger();
+            long start = System.nanoTime();
+            List<Future<?>> futures = new ArrayList<>();
+            for (int c = 0; c < CONCURRENCY; c++) {
+                futures.add(clients.submit(() -> {
+                    for (int i = 0; i < REQUESTS_PER_CLIENT; i++) {
+                        try {
+                            if (client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode() != 200) {
+                                failed.incrementAndGet();
+                            }
+                        } catch (Exception e) {
+                            failed.incrementAndGet();
+                        }
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+            long elapsedNanos = System.nanoTime() - start;
+
+            return new Result(
+                    CONCURRENCY * REQUESTS_PER_CLIENT * 1_000_000_000.0 / elapsedNanos,
+                    threads.getPeakThreadCount(),
+                    (memory.getHeapMemoryUsage().getUsed() - heapBefore) / (1024 * 1024),
+                    failed.get());
+        } finally {
+            server.close();
+        }
+    }
+
+    private record Result(double requestsPerSecond, int peakPlatformThreads, long heapGrowthMb, int failed) {
+        @Override
+        public String toString() {
+            return String.format("%.0f req/s, peak platform threads = %d, heap growth = %d MB, failed = %d",
+                    requestsPerSecond, peakPlatformThreads, heapGrowthMb, failed);
+        }
+    }
+}
@@ -0,0 +1,200 @@
+package ru.practicum.config;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.orm.jpa.LocalContainerEntityManagerFactoryBean;
+import org.springframework.orm.jpa.vendor.HibernateJpaVendorAdapter;
+
+import java.util.List;
+import java.util.Properties;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.equalTo;
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+
+// Миграции прогоняются на отдельной базе, схему которой создаёт сам тест, а не Hibernate:
+// так проверяется путь существующей продакшен-базы, где hbm2ddl ограничения не добавлял.
+class SchemaMigratorIntegrationTest {
+    private static final String SERVER_URL = "jdbc:postgresql://localhost:5432/test";
+    private static final String DATABASE = "later_migration_test";
+    private static final String URL = "jdbc:postgresql://localhost:5432/" + DATABASE;
+    private static final String USERNAME = "dbuser";
+    private static final String PASSWORD = "12345";
+
+    // схема в том виде, в каком её оставил hbm2ddl до появления миграций
+    private static final String LEGACY_SCHEMA = """
+            CREATE TABLE users (
+                id bigint GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+                email varchar(255),
+                first_name varchar(255) NOT NULL,
+                last_name varchar(255),
+                registration_date timestamp(6) with time zone,
+                state varchar(255)
+            );
+            CREATE TABLE items (
+                id bigint GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+                user_id bigint REFERENCES users (id),
+                url varchar(1500),
+                resolved_url varchar(1500),
+                mime_type varchar(255),
+                title varchar(1000),
+                has_image boolean,
+                has_video boolean,
+                date_resolved timestamp(6) with time zone,
+                unread boolean
+            );
+            CREATE TABLE tags (
+                item_id bigint NOT NULL REFERENCES items (id),
+                name varchar(255)
+            );
+            CREATE TABLE item_notes (
+                id bigint GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+                text varchar(2000),
+                item_id bigint REFERENCES items (id)
+            );
+            """;
+
+    private final JdbcTemplate server = new JdbcTemplate(new DriverManagerDataSource(SERVER_URL, USERNAME, PASSWORD));
+
+    private DriverManagerDataSource dataSource;
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void setUp() {
+        server.execute("DROP DATABASE IF EXISTS " + DATABASE + " WITH (FORCE)");
+        server.execute("CREATE DATABASE " + DATABASE);
+        dataSource = new DriverManagerDataSource(URL, USERNAME, PASSWORD);
+        jdbcTemplate = new JdbcTemplate(dataSource);
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.execute("DROP DATABASE IF EXISTS " + DATABASE + " WITH (FORCE)");
+    }
+
+    @Test
+    void migrate_shouldMergeDuplicateItems_andEnableUpsert_onLegacySchema() {
+        // given
+        jdbcTemplate.execute(LEGACY_SCHEMA);
+        jdbcTemplate.update("INSERT INTO users (id, first_name, state) VALUES (1, 'Ivan', 'ACTIVE')");
+        jdbcTemplate.update("""
+                INSERT INTO items (user_id, url, resolved_url, mime_type, unread)
+                VALUES (1, 'https://a.com', 'https://a.com/', 'text', FALSE),
+                       (1, 'http://a.com', 'https://a.com/', 'text', TRUE),
+                       (1, 'https://b.com', 'https://b.com/', 'image', FALSE)
+                """);
+        jdbcTemplate.update("INSERT INTO tags (item_id, name) VALUES (1, 'java'), (2, 'java'), (2, 'sql'), (3, 'img'), (3, 'img')");
+        jdbcTemplate.update("INSERT INTO item_notes (text, item_id) VALUES ('note', 2)");
+
+        // when
+        new SchemaMigrator(dataSource).migrate();
+
+        // then
+        assertThat(jdbcTemplate.queryForList("SELECT id FROM items ORDER BY id", Long.class), contains(1L, 3L));
+        assertThat(jdbcTemplate.queryForObject("SELECT unread FROM items WHERE id = 1", Boolean.class), equalTo(true));
+        assertThat(jdbcTemplate.queryForList("SELECT name FROM tags WHERE item_id = 1", String.class),
+                containsInAnyOrder("java", "sql"));
+        assertThat(jdbcTemplate.queryForList("SELECT name FROM tags WHERE item_id = 3", String.class), contains("img"));
+        assertThat(jdbcTemplate.queryForObject("SELECT item_id FROM item_notes", Long.class), equalTo(1L));
+        assertThat(jdbcTemplate.queryForList("""
+                SELECT dimension || ':' || name || '=' || total_count || '/' || unread_count
+                FROM item_counters WHERE user_id = 1
+                """, String.class), containsInAnyOrder("ALL:=2/1", "CONTENT_TYPE:ARTICLE=1/1", "CONTENT_TYPE:IMAGE=1/0",
+                "TAG:java=1/1", "TAG:sql=1/1", "TAG:img=1/0"));
+        assertUpsertTargetsExist();
+    }
+
+    @Test
+    void migrate_shouldCascadeItemDeletes_toTagsAndNotes_onLegacySchema() {
+        // given
+        jdbcTemplate.execute(LEGACY_SCHEMA);
+        jdbcTemplate.update("INSERT INTO users (id, first_name, state) VALUES (1, 'Ivan', 'ACTIVE')");
+        jdbcTemplate.update("INSERT INTO items (user_id, url, resolved_url, unread) VALUES (1, 'https://a.com', 'https://a.com/', TRUE)");
+        jdbcTemplate.update("INSERT INTO tags (item_id, name) VALUES (1, 'java')");
+        jdbcTemplate.update("INSERT INTO item_notes (text, item_id) VALUES ('note', 1)");
+        new SchemaMigrator(dataSource).migrate();
+
+        // when
+        jdbcTemplate.update("DELETE FROM items WHERE id = 1");
+
+        // then
+        assertThat(jdbcTemplate.queryForObject("SELECT count(*) FROM tags", Integer.class), equalTo(0));
+        assertThat(jdbcTemplate.queryForObject("SELECT count(*) FROM item_notes", Integer.class), equalTo(0));
+    }
+
+    @Test
+    void migrate_shouldCreateSchema_onEmptyDatabase_andSkipAppliedMigrations() {
+        // given
+        SchemaMigrator migrator = new SchemaMigrator(dataSource);
+        migrator.migrate();
+        List<Integer> applied = jdbcTemplate.queryForList("SELECT version FROM schema_migrations ORDER BY version", Integer.class);
+
+        // when
+        migrator.migrate();
+
+        // then
+        assertThat(jdbcTemplate.queryForList("SELECT version FROM schema_migrations ORDER BY version", Integer.class),
+                equalTo(applied));
+        jdbcTemplate.update("INSERT INTO users (id, first_name, state) VALUES (1, 'Ivan', 'ACTIVE')");
+        assertUpsertTargetsExist();
+    }
+
+    @Test
+    void migrate_shouldProduceSchemaThatHibernateValidates_andBackfillResources() {
+        // given
+        jdbcTemplate.execute(LEGACY_SCHEMA);
+        jdbcTemplate.update("INSERT INTO users (id, first_name, state) VALUES (1, 'Ivan', 'ACTIVE'), (2, 'Petr', 'ACTIVE')");
+        jdbcTemplate.update("""
+                INSERT INTO items (user_id, url, resolved_url, mime_type, title, date_resolved, unread)
+                VALUES (1, 'https://a.com', 'https://a.com/', 'text', 'old', '2020-01-01T00:00:00Z', TRUE),
+                       (2, 'https://a.com', 'https://a.com/', 'text', 'new', '2024-01-01T00:00:00Z', TRUE),
+                       (2, 'https://b.com', 'https://b.com/', 'image', 'b', NULL, TRUE)
+                """);
+
+        // when
+        new SchemaMigrator(dataSource).migrate();
+
+        // then
+        assertThat(jdbcTemplate.queryForList("SELECT resolved_url || '=' || title FROM resources ORDER BY resolved_url",
+                String.class), contains("https://a.com/=new", "https://b.com/=b"));
+        LocalContainerEntityManagerFactoryBean entityManagerFactory = new LocalContainerEntityManagerFactoryBean();
+        entityManagerFactory.setDataSource(dataSource);
+        entityManagerFactory.setJpaVendorAdapter(new HibernateJpaVendorAdapter());
+        entityManagerFactory.setPackagesToScan("ru.practicum");
+        Properties properties = new Properties();
+        properties.put("hibernate.hbm2ddl.auto", "validate");
+        entityManagerFactory.setJpaProperties(properties);
+        try {
+            assertDoesNotThrow(entityManagerFactory::afterPropertiesSet);
+        } finally {
+            entityManagerFactory.destroy();
+        }
+    }
+
+    // повторная вставка той же ссылки и того же тега не создаёт строк, а обновляет существующие
+    private void assertUpsertTargetsExist() {
+        for (int i = 0; i < 2; i++) {
+            jdbcTemplate.update("""
+                    INSERT INTO resources (resolved_url, mime_type) VALUES ('https://c.com/', 'text')
+                    ON CONFLICT (resolved_url) DO NOTHING
+                    """);
+            jdbcTemplate.update("""
+                    INSERT INTO items (user_id, url, resolved_url, unread) VALUES (1, 'https://c.com', 'https://c.com/', TRUE)
+                    ON CONFLICT (user_id, resolved_url) DO UPDATE SET unread = excluded.unread
+                    """);
+            jdbcTemplate.update("""
+                    INSERT INTO tags (item_id, name)
+                    SELECT id, 'new' FROM items WHERE resolved_url = 'https://c.com/'
+                    ON CONFLICT (item_id, name) DO NOTHING
+                    """);
+        }
+        assertThat(jdbcTemplate.queryForObject(
+                "SELECT count(*) FROM items i JOIN tags t ON t.item_id = i.id WHERE i.resolved_url = 'https://c.com/'",
+                Integer.class), equalTo(1));
+    }
+}
@@ -0,0 +1,128 @@
+package ru.practicum.config;
+
+import org.junit.jupiter.api.Test;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class StatementTrackingDataSourceTest {
+    private static final String SELECT_TAGS = "select t1_0.item_id,t1_0.name from tags t1_0 where t1_0.item_id=?";
+
+    @Test
+    void close_shouldReportViolation_whenStatementsExceedBudget() throws Exception {
+        // given
+        StatementTrackingDataSource dataSource = new StatementTrackingDataSource(target(), 1000, 2);
+        List<String> violations = new ArrayList<>();
+        dataSource.addBudgetListener(violations::add);
+
+        // when
+        StatementTrackingDataSource.Scope scope = dataSource.openScope("ItemService.getItems");
+        executeTimes(dataSource, SELECT_TAGS, 3);
+        scope.close();
+
+        // then
+        assertThat(violations, hasSize(1));
+        assertThat(violations.getFirst(), containsString("ItemService.getItems executed 3 statements, budget is 2"));
+        assertThat(violations.getFirst(), containsString("most repeated (3 times)"));
+        assertThat(dataSource.getExceededBudgetCount(), equalTo(1L));
+    }
+
+    @Test
+    void close_shouldNotThrow_whenBudgetListenerFails() throws Exception {
+        // given
+        StatementTrackingDataSource dataSource = new StatementTrackingDataSource(target(), 1000, 1);
+        List<String> violations = new ArrayList<>();
+        dataSource.addBudgetListener(message -> {
+            throw new IllegalStateException(message);
+        });
+        dataSource.addBudgetListener(violations::add);
+
+        // when
+        StatementTrackingDataSource.Scope scope = dataSource.openScope("ItemService.getItems");
+        executeTimes(dataSource, SELECT_TAGS, 2);
+
+        // then
+        assertDoesNotThrow(scope::close);
+        assertThat(violations, hasSize(1));
+        // область снята с потока несмотря на сбой слушателя
+        StatementTrackingDataSource.Scope next = dataSource.openScope("ItemService.edit");
+        assertThat(next, notNullValue());
+        next.close();
+    }
+
+    @Test
+    void close_shouldStayQuiet_whenStatementsFitBudget() throws Exception {
+        // given
+        StatementTrackingDataSource dataSource = new StatementTrackingDataSource(target(), 1000, 2);
+        List<String> violations = new ArrayList<>();
+        dataSource.addBudgetListener(violations::add);
+
+        // when
+        StatementTrackingDataSource.Scope scope = dataSource.openScope("ItemService.getItems");
+        executeTimes(dataSource, SELECT_TAGS, 2);
+        scope.close();
+
+        // then
+        assertThat(violations, empty());
+        assertThat(dataSource.getExceededBudgetCount(), equalTo(0L));
+    }
+
+    @Test
+    void openScope_shouldJoinOuterScope_whenCalledFromNestedService() throws Exception {
+        // given
+        StatementTrackingDataSource dataSource = new StatementTrackingDataSource(target(), 1000, 10);
+        StatementTrackingDataSource.Scope outer = dataSource.openScope("ResolutionJobService.complete");
+
+        // when
+        StatementTrackingDataSource.Scope nested = dataSource.openScope("ItemService.addResolvedItem");
+        executeTimes(dataSource, SELECT_TAGS, 2);
+        outer.close();
+
+        // then
+        assertThat(nested, nullValue());
+        assertThat(outer.getStatementCount(), equalTo(2));
+        assertThat(dataSource.getStatementCount(), equalTo(2L));
+    }
+
+    @Test
+    void of_shouldNormalizeLiteralsAndParameterLists() {
+        String fingerprint = SqlFingerprint.of("SELECT i1_0.id FROM items i1_0\n  WHERE i1_0.user_id = 42 "
+                + "AND i1_0.url = 'https://a.b/c''d' AND i1_0.id IN (?, ?, ?) LIMIT 10");
+
+        assertThat(fingerprint, equalTo("select i1_0.id from items i1_0 where i1_0.user_id = ? "
+                + "and i1_0.url = ? and i1_0.id in (?) limit ?"));
+    }
+
+    private static DataSource target() throws Exception {
+        DataSource target = mock(DataSource.class);
+        Connection connection = mock(Connection.class);
+        when(target.getConnection()).thenReturn(connection);
+        when(connection.prepareStatement(anyString())).thenAnswer(inv -> mock(PreparedStatement.class));
+        return target;
+    }
+
+    private static void executeTimes(DataSource dataSource, String sql, int times) throws Exception {
+        try (Connection connection = dataSource.getConnection()) {
+            for (int i = 0; i < times; i++) {
+                try (PreparedStatement statement = connection.prepareStatement(sql)) {
+                    statement.executeQuery();
+                }
+            }
+        }
+    }
+}
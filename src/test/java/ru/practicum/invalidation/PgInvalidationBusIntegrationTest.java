@@ -0,0 +1,101 @@
+package ru.practicum.invalidation;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.common.UserDataChangedEvent;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.nullValue;
+
+// Два «узла» — две шины с общим каналом на одной тестовой базе, у каждой свой приёмник событий.
+class PgInvalidationBusIntegrationTest {
+    private static final String URL = "jdbc:postgresql://localhost:5432/test";
+    private static final String USERNAME = "dbuser";
+    private static final String PASSWORD = "12345";
+    private static final String CHANNEL = "later_invalidation_test";
+
+    private final BlockingQueue<Object> firstNodeEvents = new LinkedBlockingQueue<>();
+    private final BlockingQueue<Object> secondNodeEvents = new LinkedBlockingQueue<>();
+
+    private DriverManagerDataSource dataSource;
+    private PgInvalidationBus firstNode;
+    private PgInvalidationBus secondNode;
+
+    @BeforeEach
+    void setUp() throws InterruptedException {
+        dataSource = new DriverManagerDataSource(URL, USERNAME, PASSWORD);
+        firstNode = startNode(firstNodeEvents);
+        secondNode = startNode(secondNodeEvents);
+    }
+
+    @AfterEach
+    void tearDown() {
+        firstNode.stop();
+        secondNode.stop();
+    }
+
+    @Test
+    void onUserDataChanged_shouldReachOtherNodeOnlyAfterCommit() throws InterruptedException {
+        // given
+        TransactionTemplate transactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+
+        // when
+        transactionTemplate.executeWithoutResult(status -> {
+            firstNode.onUserDataChanged(new UserDataChangedEvent(42L));
+            try {
+                // then — до коммита сообщение не доставлено
+                assertThat(secondNodeEvents.poll(300, TimeUnit.MILLISECONDS), nullValue());
+            } catch (InterruptedException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+
+        // then
+        assertThat(secondNodeEvents.poll(5, TimeUnit.SECONDS), equalTo(new UserDataChangedEvent(42L, true)));
+        assertThat(firstNodeEvents.poll(300, TimeUnit.MILLISECONDS), nullValue());
+    }
+
+    @Test
+    void onUserDataChanged_shouldNotReachOtherNode_whenTransactionRolledBack() throws InterruptedException {
+        // given
+        TransactionTemplate transactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+
+        // when
+        transactionTemplate.executeWithoutResult(status -> {
+            firstNode.onUserDataChanged(new UserDataChangedEvent(42L));
+            status.setRollbackOnly();
+        });
+
+        // then
+        assertThat(secondNodeEvents.poll(1, TimeUnit.SECONDS), nullValue());
+    }
+
+    @Test
+    void onUserDataChanged_shouldNotResendRemoteEvents() throws InterruptedException {
+        // when
+        secondNode.onUserDataChanged(new UserDataChangedEvent(42L, true));
+
+        // then
+        assertThat(firstNodeEvents.poll(1, TimeUnit.SECONDS), nullValue());
+    }
+
+    private PgInvalidationBus startNode(BlockingQueue<Object> events) throws InterruptedException {
+        PgInvalidationBus bus = new PgInvalidationBus(dataSource, events::add, URL, USERNAME, PASSWORD,
+                true, CHANNEL, 100, 100);
+        bus.start();
+        for (int i = 0; i < 100 && !bus.isListening(); i++) {
+            Thread.sleep(50);
+        }
+        assertThat(bus.isListening(), equalTo(true));
+        return bus;
+    }
+}
@@ -0,0 +1,91 @@
+package ru.practicum.item;
+
+import jakarta.persistence.EntityManager;
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit.jupiter.SpringJUnitConfig;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.change.ItemChange;
+import ru.practicum.change.ItemChangeRepository;
+import ru.practicum.config.AppConfig;
+import ru.practicum.config.PersistenceConfig;
+import ru.practicum.item.dto.ModifyItemRequest;
+import ru.practicum.user.User;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.hasSize;
+
+// Журнал изменений виден только после коммита, поэтому тест не транзакционный.
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+@SpringJUnitConfig({AppConfig.class, PersistenceConfig.class,
+        ItemServiceImpl.class, UrlMetaDataRetrieverImpl.class, UrlCanonicalizer.class, ItemUrlFilter.class, ItemTagIndex.class})
+@TestPropertySource(properties = {
+        "jdbc.url=jdbc:postgresql://localhost:5432/test",
+        "hibernate.hbm2ddl.auto=update"
+})
+class ItemChangeLogIntegrationTest extends ItemServiceTest {
+
+    private final EntityManager em;
+    private final ItemService itemService;
+    private final ItemChangeRepository itemChangeRepository;
+    private final PlatformTransactionManager transactionManager;
+
+    private TransactionTemplate transactionTemplate;
+    private User defaultUser;
+    private Item defaultItem;
+
+    @BeforeEach
+    void setUp() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        transactionTemplate.executeWithoutResult(status -> {
+            defaultUser = makeDefaultUser();
+            em.persist(defaultUser);
+            defaultItem = makeItem(defaultUser, "https://url", "https://resolved-url.com", "text/html",
+                    "title", false, false, daysFromNow(-1), true, new HashSet<>(Set.of("tag")));
+            persistItem(em, defaultItem);
+        });
+    }
+
+    @AfterEach
+    void tearDown() {
+        transactionTemplate.executeWithoutResult(status -> {
+            em.createQuery("delete from ItemChange c where c.userId = :userId")
+                    .setParameter("userId", defaultUser.getId())
+                    .executeUpdate();
+            em.createQuery("delete from Item it where it.user.id = :userId")
+                    .setParameter("userId", defaultUser.getId())
+                    .executeUpdate();
+            em.createQuery("delete from Resource r where not exists (select 1 from Item it where it.resolvedUrl = r.resolvedUrl)")
+                    .executeUpdate();
+            em.remove(em.find(User.class, defaultUser.getId()));
+        });
+    }
+
+    @Test
+    void findSince_shouldReturnCommittedChangesInOrderAndAdvanceCursor() {
+        // given
+        itemService.edit(defaultUser.getId(), ModifyItemRequest.of(defaultItem.getId(), false, Set.of(), false));
+        itemService.deleteItem(defaultUser.getId(), defaultItem.getId());
+
+        // when
+        List<ItemChange> changes = itemChangeRepository.findSince(defaultUser.getId(), 0, 0, 10);
+
+        // then
+        assertThat(changes, hasSize(2));
+        assertThat(changes.stream().map(ItemChange::getOperation).toList(),
+                contains(ItemChange.Operation.UPSERT, ItemChange.Operation.DELETE));
+        ItemChange last = changes.getLast();
+        assertThat(itemChangeRepository.findSince(defaultUser.getId(), last.getTxId(), last.getId(), 10), empty());
+    }
+}
@@ -1,15 +1,37 @@
 package ru.practicum.item;
 
 import org.springframework.context.annotation.Bean;
-import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import ru.practicum.common.UserDataVersions;
 
 import static org.mockito.Mockito.mock;
 
-@Configuration
+// без @Configuration: классы подключаются тестами явно и не попадают в сканирование ru.practicum,
+// которое поднимает всё приложение в LaterApplicationLoadTest
 public class ItemControllerTestConfig {
 
     @Bean
     public ItemService itemService() {
         return mock(ItemService.class);
     }
+
+    @Bean
+    public ItemListCache itemListCache() {
+        return new ItemListCache(1024 * 1024, 64 * 1024);
+    }
+
+    @Bean
+    public UserDataVersions userDataVersions() {
+        return new UserDataVersions();
+    }
+
+    // один поток и одно место в очереди: третий одновременный медленный запрос отклоняется
+    @Bean
+    public ThreadPoolTaskExecutor requestExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(1);
+        executor.setMaxPoolSize(1);
+        executor.setQueueCapacity(1);
+        return executor;
+    }
 }
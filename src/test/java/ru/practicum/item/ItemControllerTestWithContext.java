@@ -2,36 +2,72 @@ package ru.practicum.item;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockAsyncContext;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.test.context.TestPropertySource;
 import org.springframework.test.context.junit.jupiter.web.SpringJUnitWebConfig;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.ResultMatcher;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 import org.springframework.web.context.WebApplicationContext;
+import ru.practicum.common.ResponseFormat;
+import ru.practicum.common.UserDataChangedEvent;
+import ru.practicum.common.UserDataVersions;
+import ru.practicum.common.advice.GlobalExceptionHandler;
+import ru.practicum.config.MessageSourceConfig;
 import ru.practicum.config.WebConfig;
 import ru.practicum.item.dto.AddItemRequest;
+import ru.practicum.item.dto.GetItemRequest;
 import ru.practicum.item.dto.ItemDto;
+import ru.practicum.item.dto.ItemExportDto;
+import ru.practicum.item.dto.ItemField;
 
 import java.time.Instant;
 import java.time.LocalDateTime;
 import java.time.ZoneOffset;
 import java.time.format.DateTimeFormatter;
+import java.util.List;
 import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
 
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.not;
 import static org.hamcrest.Matchers.notNullValue;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.print;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
-@SpringJUnitWebConfig({ItemController.class, ItemControllerTestConfig.class, WebConfig.class})
+@SpringJUnitWebConfig({ItemController.class, ItemControllerTestConfig.class, WebConfig.class,
+        GlobalExceptionHandler.class, MessageSourceConfig.class})
+@TestPropertySource(properties = "async.timeout-ms=" + ItemControllerTestWithContext.ASYNC_TIMEOUT_MS)
 class ItemControllerTestWithContext {
+    static final long ASYNC_TIMEOUT_MS = 5000;
 
     private static final DateTimeFormatter FORMATTER = DateTimeFormatter
             .ofPattern("yyyy.MM.dd hh:mm:ss")
@@ -39,14 +75,19 @@ class ItemControllerTestWithContext {
     private final ObjectMapper mapper = new ObjectMapper().registerModule(new JavaTimeModule());
 
     private final ItemService itemService;
+    private final UserDataVersions userDataVersions;
+    private final ThreadPoolTaskExecutor requestExecutor;
 
     private MockMvc mvc;
 
     private AddItemRequest request;
 
     @Autowired
-    ItemControllerTestWithContext(ItemService itemService) {
+    ItemControllerTestWithContext(ItemService itemService, UserDataVersions userDataVersions,
+                                  ThreadPoolTaskExecutor requestExecutor) {
         this.itemService = itemService;
+        this.userDataVersions = userDataVersions;
+        this.requestExecutor = requestExecutor;
     }
 
     @BeforeEach
@@ -75,12 +116,16 @@ class ItemControllerTestWithContext {
                                 .unread(true)
                                 .build()
                 );
-        mvc.perform(
+        // обработка идёт в отдельном пуле, поэтому ответ приходит после асинхронного dispatch
+        MvcResult asyncResult = mvc.perform(
                         post("/items")
                                 .contentType(MediaType.APPLICATION_JSON)
                                 .content(mapper.writeValueAsString(request))
                                 .header("X-Later-User-Id", 1)
                 )
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        mvc.perform(asyncDispatch(asyncResult))
                 .andDo(print())
                 .andExpectAll(
                         status().isOk(),
@@ -91,6 +136,263 @@ class ItemControllerTestWithContext {
                 );
     }
 
+    @Test
+    void add_shouldAnswerServiceUnavailable_whenRequestQueueIsFull() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        when(itemService.addNewItem(eq(5L), any(AddItemRequest.class)))
+                .thenAnswer(invocation -> {
+                    release.await();
+                    return ItemDto.builder().id(5L).build();
+                });
+        try {
+            // пул (один поток и одно место в очереди) общий для класса: запросы отправляются, пока он не заполнится.
+            // Задача, ещё не доработавшая после предыдущего теста, лишь раньше приведёт к отказу
+            MvcResult rejected = null;
+            for (int i = 0; i < 3 && rejected == null; i++) {
+                MvcResult result = mvc.perform(
+                                post("/items")
+                                        .contentType(MediaType.APPLICATION_JSON)
+                                        .content(mapper.writeValueAsString(request))
+                                        .header("X-Later-User-Id", 5)
+                        )
+                        .andReturn();
+                if (!result.getRequest().isAsyncStarted()) {
+                    rejected = result;
+                }
+            }
+
+            assertThat(rejected, notNullValue());
+            ResultMatcher.matchAll(
+                    status().isServiceUnavailable(),
+                    header().string(HttpHeaders.RETRY_AFTER, "1"),
+                    content().contentType(MediaType.APPLICATION_PROBLEM_JSON)
+            ).match(rejected);
+        } finally {
+            release.countDown();
+            awaitIdle(requestExecutor);
+        }
+    }
+
+    @Test
+    void add_shouldAnswerServiceUnavailable_whenAsyncTimeoutExpires() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        when(itemService.addNewItem(eq(6L), any(AddItemRequest.class)))
+                .thenAnswer(invocation -> {
+                    release.await();
+                    return ItemDto.builder().id(6L).build();
+                });
+        try {
+            MvcResult asyncResult = mvc.perform(
+                            post("/items")
+                                    .contentType(MediaType.APPLICATION_JSON)
+                                    .content(mapper.writeValueAsString(request))
+                                    .header("X-Later-User-Id", 6)
+                    )
+                    .andExpect(request().asyncStarted())
+                    .andReturn();
+            MockAsyncContext asyncContext = (MockAsyncContext) asyncResult.getRequest().getAsyncContext();
+            assertThat(asyncContext.getTimeout(), equalTo(ASYNC_TIMEOUT_MS));
+
+            // MockMvc сам таймаут не отсчитывает — срабатывание имитируется так же, как его сообщает контейнер
+            for (AsyncListener listener : asyncContext.getListeners()) {
+                listener.onTimeout(new AsyncEvent(asyncContext));
+            }
+
+            mvc.perform(asyncDispatch(asyncResult))
+                    .andExpect(status().isServiceUnavailable());
+        } finally {
+            release.countDown();
+            awaitIdle(requestExecutor);
+        }
+    }
+
+    @Test
+    void get_shouldPassRequestedFields_andOmitOthersFromResponse() throws Exception {
+        when(itemService.getItems(argThat((GetItemRequest request) ->
+                request.getFields().equals(Set.of(ItemField.ID, ItemField.TITLE)))))
+                .thenReturn(List.of(ItemDto.builder().id(1L).title("google").build()));
+
+        mvc.perform(
+                        get("/items")
+                                .param("fields", "id,title")
+                                .header("X-Later-User-Id", 1)
+                )
+                .andExpectAll(
+                        status().isOk(),
+                        jsonPath("$[0].id").value(1),
+                        jsonPath("$[0].title").value("google"),
+                        jsonPath("$[0].normalUrl").doesNotExist(),
+                        jsonPath("$[0].tags").doesNotExist()
+                );
+    }
+
+    @Test
+    void get_shouldParseFilterParameters_inAnyCase() throws Exception {
+        doReturn(List.of(ItemDto.builder().id(7L).title("image").build()))
+                .when(itemService).getItems(argThat((GetItemRequest request) -> request != null
+                        && request.getUserId() == 7L
+                        && request.getState() == GetItemRequest.State.READ
+                        && request.getContentType() == GetItemRequest.ContentType.IMAGE
+                        && request.getSort() == GetItemRequest.Sort.OLDEST));
+
+        mvc.perform(
+                        get("/items")
+                                .param("state", "read")
+                                .param("contentType", "Image")
+                                .param("sort", "OLDEST")
+                                .header("X-Later-User-Id", 7)
+                )
+                .andExpectAll(
+                        status().isOk(),
+                        jsonPath("$[0].title").value("image")
+                );
+    }
+
+    @Test
+    void get_shouldAnswerNotModified_untilUserDataChanges() throws Exception {
+        // мок общий для всех тестов класса: doReturn не вызывает его при заглушке, а проверка на null
+        // не даёт этой заглушке упасть, когда другие тесты заглушают getItems через when(...)
+        doReturn(List.of(ItemDto.builder().id(2L).title("yandex").build()))
+                .when(itemService).getItems(argThat((GetItemRequest request) -> request != null && request.getUserId() == 2L));
+
+        String etag = mvc.perform(
+                        get("/items")
+                                .header("X-Later-User-Id", 2)
+                )
+                .andExpect(status().isOk())
+                .andReturn()
+                .getResponse()
+                .getHeader(HttpHeaders.ETAG);
+        assertThat(etag, notNullValue());
+
+        mvc.perform(
+                        get("/items")
+                                .header("X-Later-User-Id", 2)
+                                .header(HttpHeaders.IF_NONE_MATCH, etag)
+                )
+                .andExpectAll(
+                        status().isNotModified(),
+                        header().string(HttpHeaders.ETAG, etag),
+                        content().bytes(new byte[0])
+                );
+
+        userDataVersions.onUserDataChanged(new UserDataChangedEvent(2L));
+
+        mvc.perform(
+                        get("/items")
+                                .header("X-Later-User-Id", 2)
+                                .header(HttpHeaders.IF_NONE_MATCH, etag)
+                )
+                .andExpectAll(
+                        status().isOk(),
+                        header().string(HttpHeaders.ETAG, not(equalTo(etag))),
+                        jsonPath("$[0].title").value("yandex")
+                );
+    }
+
+    @Test
+    void get_shouldEncodeResponse_inFormatFromAcceptHeader() throws Exception {
+        doReturn(List.of(ItemDto.builder().id(3L).title("cbor").build()))
+                .when(itemService).getItems(argThat((GetItemRequest request) -> request != null && request.getUserId() == 3L));
+        when(itemService.getItems(eq(3L), any(TagExpression.class), anyInt(), anyInt()))
+                .thenReturn(List.of(ItemDto.builder().id(4L).title("smile").build()));
+
+        byte[] cbor = mvc.perform(
+                        get("/items")
+                                .header("X-Later-User-Id", 3)
+                                .accept(ResponseFormat.CBOR.getMediaType())
+                )
+                .andExpectAll(
+                        status().isOk(),
+                        content().contentType(ResponseFormat.CBOR.getMediaType()),
+                        header().string(HttpHeaders.VARY, HttpHeaders.ACCEPT)
+                )
+                .andReturn()
+                .getResponse()
+                .getContentAsByteArray();
+        assertThat(ResponseFormat.CBOR.getMapper().readTree(cbor).get(0).get("title").asText(), equalTo("cbor"));
+
+        byte[] smile = mvc.perform(
+                        get("/items/by-tags")
+                                .param("tag", "java")
+                                .header("X-Later-User-Id", 3)
+                                .accept(ResponseFormat.SMILE.getMediaType())
+                )
+                .andExpectAll(
+                        status().isOk(),
+                        content().contentType(ResponseFormat.SMILE.getMediaType())
+                )
+                .andReturn()
+                .getResponse()
+                .getContentAsByteArray();
+        assertThat(ResponseFormat.SMILE.getMapper().readTree(smile).get(0).get("title").asText(), equalTo("smile"));
+
+        mvc.perform(
+                        get("/items")
+                                .header("X-Later-User-Id", 3)
+                                .accept(MediaType.APPLICATION_XML)
+                )
+                .andExpect(status().isNotAcceptable());
+    }
+
+    @Test
+    void getFilteredItems_shouldUseDefaultPageSize_andCapRequestedSize() throws Exception {
+        when(itemService.getItems(eq(8L), any(TagExpression.class), anyInt(), anyInt()))
+                .thenReturn(List.of());
+
+        mvc.perform(get("/items/by-tags").param("tag", "java").header("X-Later-User-Id", 8))
+                .andExpect(status().isOk());
+        mvc.perform(get("/items/by-tags").param("tag", "java").param("size", "1000000").header("X-Later-User-Id", 8))
+                .andExpect(status().isOk());
+        mvc.perform(get("/items/by-tags").param("tag", "java").param("size", "0").header("X-Later-User-Id", 8))
+                .andExpect(status().isBadRequest());
+
+        verify(itemService).getItems(eq(8L), any(TagExpression.class), eq(0), eq(10));
+        verify(itemService).getItems(eq(8L), any(TagExpression.class), eq(0), eq(ItemController.MAX_PAGE_SIZE));
+    }
+
+    @Test
+    void export_shouldWriteOneJsonObjectPerLine() throws Exception {
+        doAnswer(inv -> {
+            Consumer<ItemExportDto> consumer = inv.getArgument(1);
+            consumer.accept(ItemExportDto.of(
+                    ItemDto.builder().id(1L).normalUrl("https://google.com").tags(Set.of("search")).build(),
+                    List.of(ItemExportDto.Note.of(10L, "note"))));
+            consumer.accept(ItemExportDto.of(
+                    ItemDto.builder().id(2L).normalUrl("https://yandex.ru").tags(Set.of()).build(),
+                    List.of()));
+            return null;
+        }).when(itemService).exportItems(anyLong(), any());
+
+        String body = mvc.perform(
+                        get("/items/export")
+                                .header("X-Later-User-Id", 1)
+                )
+                .andExpectAll(
+                        status().isOk(),
+                        content().contentTypeCompatibleWith("application/x-ndjson")
+                )
+                .andReturn()
+                .getResponse()
+                .getContentAsString();
+
+        String[] lines = body.split("\n");
+        assertThat(lines.length, equalTo(2));
+        assertThat(mapper.readTree(lines[0]).get("id").asLong(), equalTo(1L));
+        assertThat(mapper.readTree(lines[0]).get("notes").get(0).get("text").asText(), equalTo("note"));
+        assertThat(mapper.readTree(lines[1]).get("normalUrl").asText(), equalTo("https://yandex.ru"));
+    }
+
+    private static void awaitIdle(ThreadPoolTaskExecutor executor) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (executor.getActiveCount() > 0 || executor.getQueueSize() > 0) {
+            if (System.nanoTime() > deadline) {
+                throw new AssertionError("Request executor is still busy");
+            }
+            Thread.sleep(10);
+        }
+    }
+
     private Instant hoursFromNow(int hours) {
         LocalDateTime localDateTime = LocalDateTime.now().plusHours(hours);
         return localDateTime.toInstant(ZoneOffset.UTC);
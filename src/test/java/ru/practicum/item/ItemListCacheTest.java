@@ -0,0 +1,93 @@
+package ru.practicum.item;
+
+import org.junit.jupiter.api.Test;
+import ru.practicum.common.ResponseFormat;
+import ru.practicum.common.UserDataChangedEvent;
+import ru.practicum.item.dto.GetItemRequest;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+
+class ItemListCacheTest {
+
+    @Test
+    void get_shouldServeRepeatedRequestFromCache_whenTagOrderDiffers() {
+        // given
+        ItemListCache cache = new ItemListCache(1024, 1024);
+        AtomicInteger loads = new AtomicInteger();
+
+        // when
+        cache.get(request(1L, List.of("java", "spring")), ResponseFormat.JSON, () -> load(loads, "a"));
+        byte[] cached = cache.get(request(1L, List.of("spring", "java", "java")), ResponseFormat.JSON, () -> load(loads, "b"));
+
+        // then
+        assertThat(new String(cached), equalTo("a"));
+        assertThat(loads.get(), equalTo(1));
+        assertThat(cache.getMetrics().hitRatio(), equalTo(0.5));
+    }
+
+    @Test
+    void onUserDataChanged_shouldDropOnlyThatUsersEntries() {
+        // given
+        ItemListCache cache = new ItemListCache(1024, 1024);
+        AtomicInteger loads = new AtomicInteger();
+        cache.get(request(1L, List.of()), ResponseFormat.JSON, () -> load(loads, "first user"));
+        cache.get(request(2L, List.of()), ResponseFormat.JSON, () -> load(loads, "second user"));
+
+        // when
+        cache.onUserDataChanged(new UserDataChangedEvent(1L));
+        byte[] reloaded = cache.get(request(1L, List.of()), ResponseFormat.JSON, () -> load(loads, "first user, updated"));
+        cache.get(request(2L, List.of()), ResponseFormat.JSON, () -> load(loads, "unexpected"));
+
+        // then
+        assertThat(new String(reloaded), equalTo("first user, updated"));
+        assertThat(loads.get(), equalTo(3));
+    }
+
+    @Test
+    void get_shouldNotCacheResponse_whenUserChangedWhileLoading() {
+        // given
+        ItemListCache cache = new ItemListCache(1024, 1024);
+        AtomicInteger loads = new AtomicInteger();
+
+        // when
+        cache.get(request(1L, List.of()), ResponseFormat.JSON, () -> {
+            cache.invalidate(1L);
+            return load(loads, "stale");
+        });
+        byte[] fresh = cache.get(request(1L, List.of()), ResponseFormat.JSON, () -> load(loads, "fresh"));
+
+        // then
+        assertThat(new String(fresh), equalTo("fresh"));
+    }
+
+    @Test
+    void get_shouldEvictLeastRecentlyUsed_whenOverMaxBytes() {
+        // given
+        ItemListCache cache = new ItemListCache(10, 10);
+        AtomicInteger loads = new AtomicInteger();
+
+        // when
+        cache.get(request(1L, List.of()), ResponseFormat.JSON, () -> load(loads, "12345"));
+        cache.get(request(2L, List.of()), ResponseFormat.JSON, () -> load(loads, "12345"));
+        cache.get(request(3L, List.of()), ResponseFormat.JSON, () -> load(loads, "12345"));
+
+        // then
+        assertThat(cache.getMetrics().entries(), equalTo(2));
+        assertThat(cache.getMetrics().bytes(), equalTo(10L));
+        assertThat(cache.getMetrics().evictions(), equalTo(1L));
+    }
+
+    private static GetItemRequest request(long userId, List<String> tags) {
+        return new GetItemRequest(userId, GetItemRequest.State.UNREAD, GetItemRequest.ContentType.ALL,
+                GetItemRequest.Sort.NEWEST, 10, tags);
+    }
+
+    private static byte[] load(AtomicInteger loads, String body) {
+        loads.incrementAndGet();
+        return body.getBytes();
+    }
+}
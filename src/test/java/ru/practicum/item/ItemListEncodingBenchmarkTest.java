@@ -0,0 +1,69 @@
+package ru.practicum.item;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import org.junit.jupiter.api.Test;
+import ru.practicum.common.ResponseFormat;
+import ru.practicum.item.dto.ItemDto;
+import ru.practicum.note.dto.ItemNoteDto;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.lessThan;
+
+// Сравнивает размер большого списка в JSON, CBOR и Smile: двоичные форматы должны быть компактнее.
+// Декодирование обратно проверяет, что двоичные форматы передают те же данные.
+// Время кодирования зависит от машины и не проверяется.
+class ItemListEncodingBenchmarkTest {
+    private static final int ITEMS = 1000;
+
+    @Test
+    void encode_shouldProduceSmallerBinaryPayloads_withSameContent() throws IOException {
+        List<ItemDto> items = makeItems();
+        List<ItemNoteDto> notes = makeNotes();
+
+        int jsonItemsSize = ResponseFormat.JSON.write(items).length;
+        int jsonNotesSize = ResponseFormat.JSON.write(notes).length;
+        for (ResponseFormat format : List.of(ResponseFormat.CBOR, ResponseFormat.SMILE)) {
+            assertThat(format.write(items).length, lessThan(jsonItemsSize));
+            assertThat(format.write(notes).length, lessThan(jsonNotesSize));
+
+            assertThat(format.getMapper().readTree(format.write(items)),
+                    equalTo(ResponseFormat.JSON.getMapper().readTree(ResponseFormat.JSON.write(items))));
+            List<ItemNoteDto> decoded = format.getMapper().readValue(format.write(notes), new TypeReference<>() {
+            });
+            assertThat(decoded, equalTo(notes));
+        }
+    }
+
+    private static List<ItemDto> makeItems() {
+        List<ItemDto> items = new ArrayList<>();
+        for (long i = 0; i < ITEMS; i++) {
+            items.add(ItemDto.builder()
+                    .id(i)
+                    .normalUrl("https://example.com/articles/" + i)
+                    .resolvedUrl("https://www.example.com/articles/" + i + "?utm_source=later")
+                    .mimeType("text/html")
+                    .title("Article number " + i)
+                    .hasImage(i % 3 == 0)
+                    .hasVideo(i % 7 == 0)
+                    .unread(i % 2 == 0)
+                    .dateResolved("2024.05.01 12:" + i % 60 + ":00")
+                    .tags(Set.of("java", "tag" + i % 10))
+                    .build());
+        }
+        return items;
+    }
+
+    private static List<ItemNoteDto> makeNotes() {
+        List<ItemNoteDto> notes = new ArrayList<>();
+        for (long i = 0; i < ITEMS; i++) {
+            notes.add(ItemNoteDto.of(i, i, "Note text " + i, "2024.05.01 12:00:00", "https://example.com/articles/" + i));
+        }
+        return notes;
+    }
+}
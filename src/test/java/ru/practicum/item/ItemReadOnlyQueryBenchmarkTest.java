@@ -0,0 +1,121 @@
+package ru.practicum.item;
+
+import com.sun.management.ThreadMXBean;
+import jakarta.persistence.EntityManager;
+import lombok.RequiredArgsConstructor;
+import org.hibernate.Session;
+import org.hibernate.jpa.HibernateHints;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit.jupiter.SpringJUnitConfig;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.config.AppConfig;
+import ru.practicum.config.PersistenceConfig;
+import ru.practicum.user.User;
+
+import java.lang.management.ManagementFactory;
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.lessThan;
+
+// Сравнивает аллокации на один и тот же запрос списка: read-only режим против обычных managed-сущностей.
+// Тест не транзакционный, иначе readOnly-транзакция просто присоединится к внешней.
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+@SpringJUnitConfig({AppConfig.class, PersistenceConfig.class,
+        ItemServiceImpl.class, UrlMetaDataRetrieverImpl.class, UrlCanonicalizer.class, ItemUrlFilter.class, ItemTagIndex.class})
+@TestPropertySource(properties = {
+        "jdbc.url=jdbc:postgresql://localhost:5432/test",
+        "hibernate.hbm2ddl.auto=update",
+        "hibernate.show_sql=false"
+})
+class ItemReadOnlyQueryBenchmarkTest extends ItemServiceTest {
+    private static final int ITEMS = 200;
+    private static final int WARMUP = 20;
+    private static final int ITERATIONS = 50;
+
+    private final EntityManager em;
+    private final ItemRepository itemRepository;
+    private final PlatformTransactionManager transactionManager;
+
+    private TransactionTemplate transactionTemplate;
+    private User defaultUser;
+
+    @BeforeEach
+    void setUp() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        defaultUser = transactionTemplate.execute(status -> {
+            User user = makeDefaultUser();
+            em.persist(user);
+            for (int i = 0; i < ITEMS; i++) {
+                persistItem(em, makeItem(user, "https://url-" + i, "https://resolved-url-" + i + ".com", "text/html",
+                        "title " + i, false, false, daysFromNow(-i), true, new HashSet<>(Set.of("tag" + i % 10))));
+            }
+            return user;
+        });
+    }
+
+    @AfterEach
+    void tearDown() {
+        transactionTemplate.executeWithoutResult(status -> {
+            em.createQuery("delete from Item it where it.user.id = :userId")
+                    .setParameter("userId", defaultUser.getId())
+                    .executeUpdate();
+            em.createQuery("delete from Resource r where not exists (select 1 from Item it where it.resolvedUrl = r.resolvedUrl)")
+                    .executeUpdate();
+            em.remove(em.find(User.class, defaultUser.getId()));
+        });
+    }
+
+    @Test
+    void getItems_shouldLoadEntitiesAsReadOnlyAndAllocateLess() {
+        // given — один и тот же запрос, отличается только режим загрузки сущностей
+        long managedBytes = measureAllocatedBytesPerRequest(() -> loadItems(false));
+        long readOnlyBytes = measureAllocatedBytesPerRequest(() -> loadItems(true));
+
+        // then — без снимков состояния и dirty checking запрос выделяет меньше памяти
+        assertThat(String.format("managed = %d B/request, read-only = %d B/request", managedBytes, readOnlyBytes),
+                readOnlyBytes, lessThan(managedBytes));
+
+        // and — репозиторий, через который идёт GET /items, действительно загружает сущности только для чтения
+        TransactionTemplate readOnlyTemplate = new TransactionTemplate(transactionManager);
+        readOnlyTemplate.setReadOnly(true);
+        readOnlyTemplate.executeWithoutResult(status -> {
+            Item item = itemRepository.findAll(QItem.item.user.id.eq(defaultUser.getId()), PageRequest.of(0, 1))
+                    .getContent()
+                    .getFirst();
+            assertThat(em.unwrap(Session.class).isReadOnly(item), equalTo(true));
+        });
+    }
+
+    private void loadItems(boolean readOnly) {
+        TransactionTemplate template = new TransactionTemplate(transactionManager);
+        template.setReadOnly(readOnly);
+        template.executeWithoutResult(status -> ItemMapper.mapToItemDto(em.createQuery(
+                        "select distinct it from Item it left join fetch it.resource left join fetch it.tags where it.user.id = :userId",
+                        Item.class)
+                .setParameter("userId", defaultUser.getId())
+                .setHint(HibernateHints.HINT_READ_ONLY, readOnly)
+                .getResultList()));
+    }
+
+    private long measureAllocatedBytesPerRequest(Runnable request) {
+        ThreadMXBean threadMXBean = (ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().threadId();
+        for (int i = 0; i < WARMUP; i++) {
+            request.run();
+        }
+        long before = threadMXBean.getThreadAllocatedBytes(threadId);
+        for (int i = 0; i < ITERATIONS; i++) {
+            request.run();
+        }
+        return (threadMXBean.getThreadAllocatedBytes(threadId) - before) / ITERATIONS;
+    }
+}
@@ -6,10 +6,14 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.junit.jupiter.api.function.Executable;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.http.HttpStatus;
+import org.springframework.test.util.ReflectionTestUtils;
+import ru.practicum.change.ItemChangeRepository;
 import ru.practicum.common.AccessException;
 import ru.practicum.common.NotFoundException;
 import ru.practicum.item.dto.AddItemRequest;
@@ -32,6 +36,7 @@ import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.any;
 import static org.mockito.Mockito.anyLong;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.verifyNoMoreInteractions;
@@ -43,9 +48,23 @@ class ItemServiceImplTest extends ItemServiceTest {
     @Mock
     private ItemRepository itemRepository;
     @Mock
+    private ItemCounterRepository itemCounterRepository;
+    @Mock
+    private ItemChangeRepository itemChangeRepository;
+    @Mock
     private UserRepository userRepository;
     @Mock
     private UrlMetaDataRetriever urlMetaDataRetriever;
+    @Mock
+    private ResourceRepository resourceRepository;
+    @Mock
+    private ItemUrlFilter itemUrlFilter;
+    @Mock
+    private ItemTagIndex itemTagIndex;
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+    @Spy
+    private UrlCanonicalizer urlCanonicalizer = new UrlCanonicalizer("utm_*,fbclid");
 
     @InjectMocks
     ItemServiceImpl itemService;
@@ -64,11 +83,9 @@ class ItemServiceImplTest extends ItemServiceTest {
                     String url = inv.getArgument(0, String.class);
                     return makeUrlMetaData(url, url, "text/html", "test", false, false, hoursFromNow(2));
                 });
-        when(itemRepository.findByUserAndResolvedUrl(any(User.class), anyString()))
-                .thenReturn(Optional.empty());
-        when(itemRepository.save(any(Item.class)))
+        when(itemRepository.upsert(any(User.class), any(UrlMetaDataRetriever.UrlMetadata.class), any()))
                 .then(inv -> {
-                    Item item = inv.getArgument(0, Item.class);
+                    Item item = ItemMapper.mapToNewItem(inv.getArgument(1), inv.getArgument(0), Set.of());
                     item.setId(1L);
                     return item;
                 });
@@ -78,10 +95,11 @@ class ItemServiceImplTest extends ItemServiceTest {
                 .build();
         ItemDto addedNewItem = itemService.addNewItem(1L, request);
         assertThat(1L, equalTo(addedNewItem.getId()));
-        assertThat("https://google.com", equalTo(addedNewItem.getNormalUrl()));
+        // адрес сохраняется в канонической форме UrlCanonicalizer: пустой путь становится "/"
+        assertThat("https://google.com/", equalTo(addedNewItem.getNormalUrl()));
 
         verify(userRepository).findById(anyLong());
-        verify(itemRepository).save(any());
+        verify(itemRepository).upsert(any(User.class), any(UrlMetaDataRetriever.UrlMetadata.class), any());
         verify(urlMetaDataRetriever).retrieve(anyString());
 
         verifyNoMoreInteractions(userRepository);
@@ -105,7 +123,7 @@ class ItemServiceImplTest extends ItemServiceTest {
     @Test
     void addNewItem_shouldSupplementTagsOfItem_whenItemByResolvedUrlAlreadyExists() {
         // given
-        var request = makeItemRequest("https://yandex.ru", Set.of("spring"));
+        var request = makeItemRequest("https://yandex.ru/", Set.of("spring"));
 
         var userId = 1L;
         var defaultUser = makeDefaultUserWithId(userId);
@@ -114,14 +132,13 @@ class ItemServiceImplTest extends ItemServiceTest {
         var defaultItem = makeDefaultItemWithId(defaultUser, itemId);
 
         var urlMetadata = extractUrlMetaDataFromItem(defaultItem);
+        defaultItem.getTags().addAll(request.getTags());
 
         when(userRepository.findById(anyLong()))
                 .thenReturn(Optional.of(defaultUser));
-        when(itemRepository.findByUserAndResolvedUrl(any(User.class), anyString()))
-                .thenReturn(Optional.of(defaultItem));
         when(urlMetaDataRetriever.retrieve(anyString()))
                 .thenReturn(urlMetadata);
-        when(itemRepository.save(any(Item.class)))
+        when(itemRepository.upsert(defaultUser, urlMetadata, request.getTags()))
                 .thenReturn(defaultItem);
 
         // when
@@ -136,11 +153,93 @@ class ItemServiceImplTest extends ItemServiceTest {
         verify(urlMetaDataRetriever).retrieve(request.getUrl());
         verifyNoMoreInteractions(urlMetaDataRetriever);
 
-        verify(itemRepository).findByUserAndResolvedUrl(defaultUser, urlMetadata.getResolvedUrl());
+        verify(itemRepository).upsert(defaultUser, urlMetadata, request.getTags());
         verifyNoMoreInteractions(itemRepository);
+    }
 
-        verify(itemRepository).save(any(Item.class));
-        verifyNoMoreInteractions(itemRepository);
+    @Test
+    void addNewItem_shouldReuseSavedMetadata_whenUrlFilterMightContainUrl() {
+        // given
+        ReflectionTestUtils.setField(itemService, "resourceFreshHours", 24L);
+        var userId = 1L;
+        var defaultUser = makeDefaultUserWithId(userId);
+        var savedItem = makeDefaultItemWithId(defaultUser, 1L);
+        savedItem.getResource().setDateResolved(hoursFromNow(-1));
+        var request = makeItemRequest(savedItem.getUrl(), Set.of("spring"));
+
+        when(userRepository.findById(anyLong()))
+                .thenReturn(Optional.of(defaultUser));
+        when(itemUrlFilter.mightContain(userId, savedItem.getUrl()))
+                .thenReturn(true);
+        when(itemRepository.findFirstByUserIdAndUrl(userId, savedItem.getUrl()))
+                .thenReturn(Optional.of(savedItem));
+        when(itemRepository.upsert(any(User.class), any(UrlMetaDataRetriever.UrlMetadata.class), any()))
+                .thenReturn(savedItem);
+
+        // when
+        itemService.addNewItem(userId, request);
+
+        // then
+        verify(itemUrlFilter).recordLookup(true);
+        verify(itemUrlFilter).add(userId, savedItem.getUrl());
+        verifyNoInteractions(urlMetaDataRetriever);
+        verifyNoInteractions(resourceRepository);
+    }
+
+    @Test
+    void addNewItem_shouldResolveUrlAgain_whenSavedMetadataIsStale() {
+        // given
+        ReflectionTestUtils.setField(itemService, "resourceFreshHours", 24L);
+        var userId = 1L;
+        var defaultUser = makeDefaultUserWithId(userId);
+        var savedItem = makeDefaultItemWithId(defaultUser, 1L);
+        savedItem.getResource().setDateResolved(hoursFromNow(-48));
+        var urlMetadata = extractUrlMetaDataFromItem(savedItem);
+        var request = makeItemRequest(savedItem.getUrl(), Set.of());
+
+        when(userRepository.findById(anyLong()))
+                .thenReturn(Optional.of(defaultUser));
+        when(itemUrlFilter.mightContain(userId, savedItem.getUrl()))
+                .thenReturn(true);
+        when(itemRepository.findFirstByUserIdAndUrl(userId, savedItem.getUrl()))
+                .thenReturn(Optional.of(savedItem));
+        when(resourceRepository.findFresh(anyString(), any()))
+                .thenReturn(Optional.empty());
+        when(urlMetaDataRetriever.retrieve(anyString()))
+                .thenReturn(urlMetadata);
+        when(itemRepository.upsert(any(User.class), any(UrlMetaDataRetriever.UrlMetadata.class), any()))
+                .thenReturn(savedItem);
+
+        // when
+        itemService.addNewItem(userId, request);
+
+        // then
+        verify(itemUrlFilter).recordLookup(true);
+        verify(urlMetaDataRetriever).retrieve(savedItem.getUrl());
+    }
+
+    @Test
+    void addNewItem_shouldSkipSavedUrlLookup_whenUrlFilterSaysAbsent() {
+        // given
+        var userId = 1L;
+        var defaultUser = makeDefaultUserWithId(userId);
+        var item = makeDefaultItemWithId(defaultUser, 1L);
+        var urlMetadata = extractUrlMetaDataFromItem(item);
+        var request = makeItemRequest(item.getUrl(), Set.of());
+
+        when(userRepository.findById(anyLong()))
+                .thenReturn(Optional.of(defaultUser));
+        when(urlMetaDataRetriever.retrieve(anyString()))
+                .thenReturn(urlMetadata);
+        when(itemRepository.upsert(any(User.class), any(UrlMetaDataRetriever.UrlMetadata.class), any()))
+                .thenReturn(item);
+
+        // when
+        itemService.addNewItem(userId, request);
+
+        // then
+        verify(itemRepository, never()).findFirstByUserIdAndUrl(anyLong(), anyString());
+        verify(urlMetaDataRetriever).retrieve(item.getUrl());
     }
 
     @Test
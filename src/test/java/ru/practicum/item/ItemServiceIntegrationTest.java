@@ -4,46 +4,78 @@ import jakarta.persistence.EntityManager;
 import jakarta.persistence.NoResultException;
 import jakarta.persistence.TypedQuery;
 import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.function.Executable;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.test.context.TestPropertySource;
 import org.springframework.test.context.junit.jupiter.SpringJUnitConfig;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 import ru.practicum.common.AccessException;
+import ru.practicum.common.BadRequestException;
 import ru.practicum.common.ItemRetrieverException;
 import ru.practicum.common.NotFoundException;
 import ru.practicum.config.AppConfig;
 import ru.practicum.config.PersistenceConfig;
+import ru.practicum.config.StatementTrackingDataSource;
 import ru.practicum.item.dto.AddItemRequest;
+import ru.practicum.item.dto.BulkDeleteItemResult;
+import ru.practicum.item.dto.BulkModifyItemRequest;
+import ru.practicum.item.dto.BulkModifyItemResult;
 import ru.practicum.item.dto.GetItemRequest;
 import ru.practicum.item.dto.ItemDto;
+import ru.practicum.item.dto.ItemField;
+import ru.practicum.item.dto.ItemStatsDto;
 import ru.practicum.item.dto.ModifyItemRequest;
+import ru.practicum.item.dto.TagSuggestionDto;
+import ru.practicum.metrics.MetricsRegistry;
+import ru.practicum.metrics.ServiceMetricsPostProcessor;
 import ru.practicum.user.User;
 import ru.practicum.user.UserState;
 
+import javax.sql.DataSource;
+import java.sql.SQLException;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Locale;
 import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
 
 import static java.util.Collections.emptyList;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.allOf;
+import static org.hamcrest.Matchers.contains;
 import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.empty;
 import static org.hamcrest.Matchers.equalTo;
 import static org.hamcrest.Matchers.hasItem;
 import static org.hamcrest.Matchers.hasProperty;
+import static org.hamcrest.Matchers.hasSize;
 import static org.hamcrest.Matchers.not;
 import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.nullValue;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 
 @Transactional
 @RequiredArgsConstructor(onConstructor_ = @Autowired)
 @SpringJUnitConfig({AppConfig.class, PersistenceConfig.class,
-        ItemServiceImpl.class, UrlMetaDataRetrieverImpl.class,
-        ItemMapper.class})
+        ItemServiceImpl.class, ItemStatsServiceImpl.class, ItemRefreshServiceImpl.class, UrlMetaDataRetrieverImpl.class, UrlCanonicalizer.class, ItemUrlFilter.class, ItemTagIndex.class,
+        TagSuggestionServiceImpl.class, MetricsRegistry.class, ServiceMetricsPostProcessor.class})
 @TestPropertySource(properties = {
         "jdbc.url=jdbc:postgresql://localhost:5432/test",
         "hibernate.hbm2ddl.auto=update"
@@ -52,6 +84,26 @@ public class ItemServiceIntegrationTest extends ItemServiceTest {
 
     private final EntityManager em;
     private final ItemService itemService;
+    private final ItemStatsService itemStatsService;
+    private final ItemRefreshService itemRefreshService;
+    private final TagSuggestionService tagSuggestionService;
+    private final DataSource dataSource;
+    private final PlatformTransactionManager transactionManager;
+
+    // вызов сервиса, выполнивший больше db.statement-budget запросов (например, из-за N+1), роняет тест
+    private final List<String> budgetViolations = new CopyOnWriteArrayList<>();
+    private final Consumer<String> budgetListener = budgetViolations::add;
+
+    @BeforeEach
+    void watchStatementBudget() throws SQLException {
+        dataSource.unwrap(StatementTrackingDataSource.class).addBudgetListener(budgetListener);
+    }
+
+    @AfterEach
+    void checkStatementBudget() throws SQLException {
+        dataSource.unwrap(StatementTrackingDataSource.class).removeBudgetListener(budgetListener);
+        assertThat(budgetViolations, empty());
+    }
 
     @Test
     void addNewItem_shouldReturnAddedItem_whenEverythingIsOK() {
@@ -69,8 +121,8 @@ public class ItemServiceIntegrationTest extends ItemServiceTest {
         assertThat(item.getUser().getEmail(), equalTo("email"));
         assertThat(item.getUser().getState(), equalTo(UserState.ACTIVE));
         assertThat(item.getUrl(), equalTo("https://github.com/"));
-        assertThat(item.getHasVideo(), equalTo(true));
-        assertThat(item.getHasImage(), equalTo(true));
+        assertThat(item.getResource().getHasVideo(), equalTo(true));
+        assertThat(item.getResource().getHasImage(), equalTo(true));
         assertThat(item.getUnread(), equalTo(true));
     }
 
@@ -90,8 +142,8 @@ public class ItemServiceIntegrationTest extends ItemServiceTest {
         assertThat(item.getUser().getEmail(), equalTo("email"));
         assertThat(item.getUser().getState(), equalTo(UserState.ACTIVE));
         assertThat(item.getUrl(), equalTo("https://httpbin.org/image"));
-        assertThat(item.getHasVideo(), equalTo(false));
-        assertThat(item.getHasImage(), equalTo(true));
+        assertThat(item.getResource().getHasVideo(), equalTo(false));
+        assertThat(item.getResource().getHasImage(), equalTo(true));
         assertThat(item.getUnread(), equalTo(true));
     }
 
@@ -206,6 +258,64 @@ public class ItemServiceIntegrationTest extends ItemServiceTest {
         assertThat(newItem.getTags(), containsInAnyOrder("yandex", "practicum"));
     }
 
+    // ссылка должна быть видна второй транзакции, поэтому тест не транзакционный и сам удаляет свои данные
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    void addResolvedItem_shouldKeepSingleRowWithAllTags_whenSameUrlIsAddedConcurrently() throws Exception {
+        // given
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        User defaultUser = transactionTemplate.execute(status -> {
+            User user = makeDefaultUser();
+            em.persist(user);
+            return user;
+        });
+        UrlMetaDataRetriever.UrlMetadata urlMetadata = new UrlMetaDataRetrieverImpl.UrlMetadataImpl(
+                "https://concurrent.com/", "https://concurrent.com/", "text/html", "concurrent",
+                false, false, Instant.now());
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+
+        try {
+            List<Future<ItemDto>> results = new ArrayList<>();
+            for (String tag : List.of("first", "second")) {
+                results.add(executor.submit(() -> {
+                    start.await();
+                    return itemService.addResolvedItem(defaultUser.getId(), urlMetadata, Set.of(tag));
+                }));
+            }
+
+            // when
+            start.countDown();
+            ItemDto firstItem = results.get(0).get(10, TimeUnit.SECONDS);
+            ItemDto secondItem = results.get(1).get(10, TimeUnit.SECONDS);
+
+            // then
+            List<Item> items = transactionTemplate.execute(status -> em.createQuery(
+                            "select it from Item it left join fetch it.tags where it.user.id = :userId", Item.class)
+                    .setParameter("userId", defaultUser.getId())
+                    .getResultList());
+            assertThat(items, hasSize(1));
+            assertThat(items.getFirst().getTags(), containsInAnyOrder("first", "second"));
+            assertThat(secondItem.getId(), equalTo(firstItem.getId()));
+        } finally {
+            executor.shutdownNow();
+            transactionTemplate.executeWithoutResult(status -> {
+                em.createQuery("delete from ItemChange c where c.userId = :userId")
+                        .setParameter("userId", defaultUser.getId())
+                        .executeUpdate();
+                em.createQuery("delete from ItemCounter c where c.id.userId = :userId")
+                        .setParameter("userId", defaultUser.getId())
+                        .executeUpdate();
+                em.createQuery("delete from Item it where it.user.id = :userId")
+                        .setParameter("userId", defaultUser.getId())
+                        .executeUpdate();
+                em.createQuery("delete from Resource r where not exists (select 1 from Item it where it.resolvedUrl = r.resolvedUrl)")
+                        .executeUpdate();
+                em.remove(em.find(User.class, defaultUser.getId()));
+            });
+        }
+    }
+
     @Test
     void getItems_shouldReturnAllSavedItems_whenFilterAreNotStrong() {
 
@@ -227,7 +337,7 @@ public class ItemServiceIntegrationTest extends ItemServiceTest {
         for (ItemDto sourceItem : sourceItems) {
             Item item = ItemMapper.mapToNewItem(extractUrlMetaDataFromItemDto(sourceItem),
                     defaultUser, sourceItem.getTags());
-            em.persist(item);
+            persistItem(em, item);
         }
         em.flush();
 
@@ -259,6 +369,38 @@ public class ItemServiceIntegrationTest extends ItemServiceTest {
         ));
     }
 
+    @Test
+    void getItems_shouldFillOnlyRequestedFields_whenFieldsAreSet() {
+        // given
+        User defaultUser = makeDefaultUser();
+        em.persist(defaultUser);
+        persistItem(em, makeItem(defaultUser, "https://old.com", "https://old.com/", "text/html", "old", false, false,
+                daysFromNow(-2), true, new HashSet<>(Set.of("old"))));
+        persistItem(em, makeItem(defaultUser, "https://new.com", "https://new.com/", "text/html", "new", false, false,
+                daysFromNow(-1), true, new HashSet<>(Set.of("new", "fresh"))));
+        em.flush();
+
+        // when
+        List<ItemDto> withTags = itemService.getItems(new GetItemRequest(defaultUser.getId(), GetItemRequest.State.ALL,
+                GetItemRequest.ContentType.ALL, GetItemRequest.Sort.NEWEST, 5, emptyList(),
+                Set.of(ItemField.TITLE, ItemField.TAGS)));
+        List<ItemDto> withoutTags = itemService.getItems(new GetItemRequest(defaultUser.getId(), GetItemRequest.State.ALL,
+                GetItemRequest.ContentType.ARTICLE, GetItemRequest.Sort.OLDEST, 1, emptyList(),
+                Set.of(ItemField.ID, ItemField.DATE_RESOLVED)));
+
+        // then
+        assertThat(withTags.stream().map(ItemDto::getTitle).toList(), contains("new", "old"));
+        assertThat(withTags.getFirst().getTags(), containsInAnyOrder("new", "fresh"));
+        assertThat(withTags.getFirst().getId(), nullValue());
+        assertThat(withTags.getFirst().getNormalUrl(), nullValue());
+
+        assertThat(withoutTags.size(), equalTo(1));
+        assertThat(withoutTags.getFirst().getId(), notNullValue());
+        assertThat(withoutTags.getFirst().getDateResolved(), notNullValue());
+        assertThat(withoutTags.getFirst().getTitle(), nullValue());
+        assertThat(withoutTags.getFirst().getTags(), nullValue());
+    }
+
     @Test
     void getItems_shouldReturnOnlyOneItem_whenContentTypeIsTextAndUnreadIsTrue() {
         // given
@@ -284,7 +426,7 @@ public class ItemServiceIntegrationTest extends ItemServiceTest {
         );
 
         for (Item sourceItem : sourceItems) {
-            em.persist(sourceItem);
+            persistItem(em, sourceItem);
         }
 
         GetItemRequest getItemRequest = new GetItemRequest(
@@ -323,7 +465,7 @@ public class ItemServiceIntegrationTest extends ItemServiceTest {
         em.persist(defaultUser);
 
         Item defaultItem = makeDefaultItem(defaultUser);
-        em.persist(defaultItem);
+        persistItem(em, defaultItem);
         Set<String> oldTags = new HashSet<>(defaultItem.getTags());
 
         // when
@@ -345,7 +487,7 @@ public class ItemServiceIntegrationTest extends ItemServiceTest {
         em.persist(defaultUser);
 
         Item defaultItem = makeDefaultItem(defaultUser);
-        em.persist(defaultItem);
+        persistItem(em, defaultItem);
         long wrongUserId = defaultUser.getId() + 1;
         ModifyItemRequest editRequest = new ModifyItemRequest();
         editRequest.setId(defaultItem.getId());
@@ -369,7 +511,7 @@ public class ItemServiceIntegrationTest extends ItemServiceTest {
         em.persist(defaultUser);
 
         Item defaultItem = makeDefaultItem(defaultUser);
-        em.persist(defaultItem);
+        persistItem(em, defaultItem);
         Set<String> oldTags = new HashSet<>(defaultItem.getTags());
 
         // when
@@ -388,6 +530,62 @@ public class ItemServiceIntegrationTest extends ItemServiceTest {
         assertThat(editedItem.getTags(), equalTo(oldTags));
     }
 
+    @Test
+    void editAll_shouldMarkOnlyOwnedItemsAsReadAndAddTags_whenIdsAreGiven() {
+        // given
+        User defaultUser = makeDefaultUser();
+        em.persist(defaultUser);
+        User otherUser = makeDefaultUser();
+        em.persist(otherUser);
+
+        Item firstItem = makeDefaultItem(defaultUser);
+        Item secondItem = makeItem(defaultUser, "https://some-video-url", "https://some-resolved-url-video.com", "video",
+                "some title", false, true, daysFromNow(-365), true, new HashSet<>(Set.of("video")));
+        Item foreignItem = makeDefaultItem(otherUser);
+        persistItem(em, firstItem);
+        persistItem(em, secondItem);
+        persistItem(em, foreignItem);
+        em.flush();
+
+        // when
+        BulkModifyItemRequest request = BulkModifyItemRequest.of(
+                List.of(firstItem.getId(), secondItem.getId(), foreignItem.getId()), null, false, Set.of("bulk"), false);
+        BulkModifyItemResult result = itemService.editAll(defaultUser.getId(), request);
+        em.clear();
+
+        // then
+        assertThat(result.getMatchedItems(), equalTo(2));
+        assertThat(result.getUpdatedItems(), equalTo(2));
+        assertThat(result.getAddedTags(), equalTo(2));
+        assertThat(getEntity(firstItem.getId(), Item.class).getUnread(), equalTo(false));
+        assertThat(getEntity(secondItem.getId(), Item.class).getTags(), containsInAnyOrder("video", "bulk"));
+        assertThat(getEntity(foreignItem.getId(), Item.class).getUnread(), equalTo(true));
+    }
+
+    @Test
+    void editAll_shouldReplaceTags_whenFilterIsGiven() {
+        // given
+        User defaultUser = makeDefaultUser();
+        em.persist(defaultUser);
+        Item defaultItem = makeDefaultItem(defaultUser);
+        persistItem(em, defaultItem);
+        em.flush();
+
+        // when
+        BulkModifyItemRequest request = BulkModifyItemRequest.of(
+                null,
+                BulkModifyItemRequest.Filter.of(GetItemRequest.State.UNREAD, GetItemRequest.ContentType.ALL, List.of("yandex"), null),
+                null, Set.of("yandex", "java"), true);
+        BulkModifyItemResult result = itemService.editAll(defaultUser.getId(), request);
+        em.clear();
+
+        // then
+        assertThat(result.getMatchedItems(), equalTo(1));
+        assertThat(result.getRemovedTags(), equalTo(1));
+        assertThat(result.getAddedTags(), equalTo(1));
+        assertThat(getEntity(defaultItem.getId(), Item.class).getTags(), containsInAnyOrder("yandex", "java"));
+    }
+
     @Test
     void deleteItem_shouldThrowNoResultException_whenGettingDeletedItem() {
         // given
@@ -395,7 +593,7 @@ public class ItemServiceIntegrationTest extends ItemServiceTest {
         em.persist(defaultUser);
 
         Item defaultItem = makeDefaultItem(defaultUser);
-        em.persist(defaultItem);
+        persistItem(em, defaultItem);
 
         // when
         itemService.deleteItem(defaultUser.getId(), defaultItem.getId());
@@ -406,6 +604,314 @@ public class ItemServiceIntegrationTest extends ItemServiceTest {
                 () -> getEntity(defaultItem.getId(), Item.class));
     }
 
+    @Test
+    void deleteItems_shouldDeleteOnlyReadItemsResolvedBeforeDate_whenFilterIsGiven() {
+        // given
+        User defaultUser = makeDefaultUser();
+        em.persist(defaultUser);
+
+        Item oldReadItem = makeItem(defaultUser, "https://old-read-url", "https://old-read-resolved-url.com", "text",
+                "old read", false, false, Instant.parse("2020-01-01T00:00:00Z"), false, new HashSet<>(Set.of("old")));
+        Item oldUnreadItem = makeItem(defaultUser, "https://old-unread-url", "https://old-unread-resolved-url.com", "text",
+                "old unread", false, false, Instant.parse("2020-01-01T00:00:00Z"), true, new HashSet<>());
+        Item newReadItem = makeItem(defaultUser, "https://new-read-url", "https://new-read-resolved-url.com", "text",
+                "new read", false, false, Instant.parse("2024-01-01T00:00:00Z"), false, new HashSet<>());
+        persistItem(em, oldReadItem);
+        persistItem(em, oldUnreadItem);
+        persistItem(em, newReadItem);
+        em.flush();
+
+        // when
+        BulkDeleteItemResult result = itemService.deleteItems(defaultUser.getId(), null,
+                BulkModifyItemRequest.Filter.of(GetItemRequest.State.READ, GetItemRequest.ContentType.ALL, null,
+                        Instant.parse("2023-01-01T00:00:00Z")));
+        em.clear();
+
+        // then
+        assertThat(result.getDeletedItems(), equalTo(1));
+        assertThrows(NoResultException.class, () -> getEntity(oldReadItem.getId(), Item.class));
+        assertThat(getEntity(oldUnreadItem.getId(), Item.class).getId(), equalTo(oldUnreadItem.getId()));
+        assertThat(getEntity(newReadItem.getId(), Item.class).getId(), equalTo(newReadItem.getId()));
+    }
+
+    @Test
+    void deleteItems_shouldThrowBadRequestException_whenNeitherIdsNorFilterAreGiven() {
+        // when
+        Executable deleteItems = () -> itemService.deleteItems(1L, null, null);
+
+        // then
+        BadRequestException badRequestException = assertThrows(BadRequestException.class, deleteItems);
+        assertEquals(HttpStatus.BAD_REQUEST, badRequestException.getHttpStatus());
+    }
+
+    @Test
+    void getStats_shouldFollowEditsAndDeletes_whenCountersWereReconciled() {
+        // given
+        User defaultUser = makeDefaultUser();
+        em.persist(defaultUser);
+        Item article = makeDefaultItem(defaultUser);
+        Item video = makeItem(defaultUser, "https://some-video-url", "https://some-resolved-url-video.com", "video",
+                "some title", false, true, daysFromNow(-365), true, new HashSet<>(Set.of("video", "yandex")));
+        persistItem(em, article);
+        persistItem(em, video);
+        em.flush();
+        itemStatsService.reconcile(defaultUser.getId());
+
+        // when
+        itemService.edit(defaultUser.getId(), ModifyItemRequest.of(article.getId(), false, new HashSet<>(), false));
+        itemService.deleteItem(defaultUser.getId(), video.getId());
+        ItemStatsDto stats = itemStatsService.getStats(defaultUser.getId());
+
+        // then
+        assertThat(stats.getAll().getTotal(), equalTo(1L));
+        assertThat(stats.getAll().getUnread(), equalTo(0L));
+        assertThat(stats.getContentTypes().get("article").getTotal(), equalTo(1L));
+        assertThat(stats.getContentTypes().containsKey("video"), equalTo(false));
+        assertThat(stats.getTags().get("yandex").getTotal(), equalTo(1L));
+        assertThat(stats.getTags().get("yandex").getUnread(), equalTo(0L));
+        assertThat(stats.getTags().containsKey("video"), equalTo(false));
+    }
+
+    @Test
+    void getStats_shouldCountContentTypes_asListFilterReturnsThem() {
+        // given
+        User defaultUser = makeDefaultUser();
+        em.persist(defaultUser);
+        persistItem(em, makeDefaultItem(defaultUser));
+        persistItem(em, makeItem(defaultUser, "https://some-image-url", "https://some-resolved-url-image.com", "image",
+                "some image", true, false, daysFromNow(-10), true, new HashSet<>()));
+        persistItem(em, makeItem(defaultUser, "https://some-other-image-url", "https://some-resolved-url-other-image.com", "image",
+                "other image", true, false, daysFromNow(-20), false, new HashSet<>()));
+        persistItem(em, makeItem(defaultUser, "https://some-video-url", "https://some-resolved-url-video.com", "video",
+                "some video", false, true, daysFromNow(-30), true, new HashSet<>()));
+        em.flush();
+        itemStatsService.reconcile(defaultUser.getId());
+
+        // when
+        ItemStatsDto stats = itemStatsService.getStats(defaultUser.getId());
+
+        // then
+        for (GetItemRequest.ContentType contentType : GetItemRequest.ContentType.values()) {
+            if (contentType == GetItemRequest.ContentType.ALL) {
+                continue;
+            }
+            List<ItemDto> items = itemService.getItems(new GetItemRequest(defaultUser.getId(), GetItemRequest.State.ALL,
+                    contentType, GetItemRequest.Sort.NEWEST, 10, emptyList()));
+            assertThat(contentType.name(), stats.getContentTypes().get(contentType.name().toLowerCase(Locale.ROOT)).getTotal(),
+                    equalTo((long) items.size()));
+        }
+        assertThat(stats.getContentTypes().get("image").getTotal(), equalTo(2L));
+    }
+
+    @Test
+    void applyRevalidation_shouldUpdateSharedResourceOnce_whenMetadataChanged() {
+        // given
+        User defaultUser = makeDefaultUser();
+        User otherUser = makeUser(null, "other@email", "other", "user", LocalDateTime.now(), UserState.ACTIVE);
+        em.persist(defaultUser);
+        em.persist(otherUser);
+        Instant resolvedLongAgo = daysFromNow(-365);
+        Item first = makeItem(defaultUser, "https://url", "https://resolved-url.com", "text",
+                "old title", false, false, resolvedLongAgo, true, new HashSet<>());
+        Item second = makeItem(otherUser, "https://other-url", "https://resolved-url.com", "text",
+                "old title", false, false, resolvedLongAgo, true, new HashSet<>());
+        persistItem(em, first);
+        persistItem(em, second);
+        em.flush();
+        Instant lastModified = Instant.parse("2024-01-01T00:00:00Z");
+        UrlMetaDataRetriever.UrlMetadata metadata = makeUrlMetaData("https://resolved-url.com", "https://resolved-url.com",
+                "text", "new title", false, false, Instant.now());
+
+        // when
+        itemRefreshService.applyRevalidation("https://resolved-url.com",
+                new UrlMetaDataRetrieverImpl.RevalidationImpl(metadata, "\"v2\"", lastModified));
+        em.clear();
+
+        // then
+        assertThat(getEntity(first.getId(), Item.class).getResource().getTitle(), equalTo("new title"));
+        assertThat(getEntity(second.getId(), Item.class).getResource().getTitle(), equalTo("new title"));
+        Resource resource = em.find(Resource.class, "https://resolved-url.com");
+        assertThat(resource.getDateResolved().isAfter(resolvedLongAgo), equalTo(true));
+        assertThat(resource.getEtag(), equalTo("\"v2\""));
+        assertThat(resource.getLastModified(), equalTo(lastModified));
+    }
+
+    @Test
+    void applyRevalidation_shouldMoveCountersOfEveryOwner_whenMimeTypeChanged() {
+        // given
+        User defaultUser = makeDefaultUser();
+        User otherUser = makeUser(null, "other@email", "other", "user", LocalDateTime.now(), UserState.ACTIVE);
+        em.persist(defaultUser);
+        em.persist(otherUser);
+        persistItem(em, makeItem(defaultUser, "https://url", "https://resolved-url.com", "text",
+                "title", false, false, daysFromNow(-365), true, new HashSet<>(Set.of("java"))));
+        persistItem(em, makeItem(otherUser, "https://other-url", "https://resolved-url.com", "text",
+                "title", false, false, daysFromNow(-365), false, new HashSet<>()));
+        em.flush();
+        itemStatsService.reconcile(defaultUser.getId());
+        itemStatsService.reconcile(otherUser.getId());
+        UrlMetaDataRetriever.UrlMetadata metadata = makeUrlMetaData("https://resolved-url.com", "https://resolved-url.com",
+                "image", "title", true, false, Instant.now());
+
+        // when
+        itemRefreshService.applyRevalidation("https://resolved-url.com",
+                new UrlMetaDataRetrieverImpl.RevalidationImpl(metadata, null, null));
+
+        // then
+        ItemStatsDto defaultUserStats = itemStatsService.getStats(defaultUser.getId());
+        assertThat(defaultUserStats.getContentTypes().keySet(), contains("image"));
+        assertThat(defaultUserStats.getContentTypes().get("image").getUnread(), equalTo(1L));
+        assertThat(defaultUserStats.getAll().getTotal(), equalTo(1L));
+        assertThat(defaultUserStats.getTags().get("java").getTotal(), equalTo(1L));
+        ItemStatsDto otherUserStats = itemStatsService.getStats(otherUser.getId());
+        assertThat(otherUserStats.getContentTypes().keySet(), contains("image"));
+        assertThat(otherUserStats.getContentTypes().get("image").getUnread(), equalTo(0L));
+    }
+
+    @Test
+    void addResolvedItem_shouldShareOneResource_whenTwoUsersSaveSameUrl() {
+        // given
+        User defaultUser = makeDefaultUser();
+        User otherUser = makeUser(null, "other@email", "other", "user", LocalDateTime.now(), UserState.ACTIVE);
+        em.persist(defaultUser);
+        em.persist(otherUser);
+        UrlMetaDataRetriever.UrlMetadata metadata = makeUrlMetaData("https://url", "https://resolved-url.com",
+                "text", "title", false, false, Instant.now());
+
+        // when
+        ItemDto first = itemService.addResolvedItem(defaultUser.getId(), metadata, Set.of("java"));
+        ItemDto second = itemService.addResolvedItem(otherUser.getId(), metadata, Set.of());
+        itemService.edit(otherUser.getId(), ModifyItemRequest.of(second.getId(), false, new HashSet<>(Set.of("sql")), false));
+        em.clear();
+
+        // then
+        assertThat(em.createQuery("select count(r) from Resource r where r.resolvedUrl = :url", Long.class)
+                .setParameter("url", "https://resolved-url.com")
+                .getSingleResult(), equalTo(1L));
+        assertThat(getEntity(first.getId(), Item.class).getResource().getTitle(), equalTo("title"));
+        Item edited = getEntity(second.getId(), Item.class);
+        assertThat(edited.getResource().getTitle(), equalTo("title"));
+        assertThat(edited.getTags(), contains("sql"));
+        assertThat(edited.getUnread(), equalTo(false));
+    }
+
+    @Test
+    void addNewItem_shouldReuseFreshResource_whenUrlWasAlreadyResolvedByAnotherUser() {
+        // given
+        User defaultUser = makeDefaultUser();
+        User otherUser = makeUser(null, "other@email", "other", "user", LocalDateTime.now(), UserState.ACTIVE);
+        em.persist(defaultUser);
+        em.persist(otherUser);
+        // адрес не существует: если бы сервис пошёл в сеть, добавление упало бы
+        Item saved = makeItem(otherUser, "https://unreachable.invalid/page", "https://unreachable.invalid/resolved", "text",
+                "cached title", false, false, Instant.now(), true, new HashSet<>());
+        persistItem(em, saved);
+        em.flush();
+
+        // when
+        ItemDto added = itemService.addNewItem(defaultUser.getId(),
+                makeItemRequest("https://unreachable.invalid/page", Set.of("shared")));
+
+        // then
+        assertThat(added.getResolvedUrl(), equalTo("https://unreachable.invalid/resolved"));
+        assertThat(added.getTitle(), equalTo("cached title"));
+        assertThat(added.getTags(), containsInAnyOrder("shared"));
+    }
+
+    @Test
+    void getItemsByIds_shouldLoadInBatches_whenIdsExceedBindParameterLimit() {
+        // given
+        User defaultUser = makeDefaultUser();
+        em.persist(defaultUser);
+        Item first = persistItem(em, makeItem(defaultUser, "https://a.com", "https://a.com/", "text", "a", false, false,
+                daysFromNow(-1), true, new HashSet<>()));
+        Item last = persistItem(em, makeItem(defaultUser, "https://b.com", "https://b.com/", "text", "b", false, false,
+                daysFromNow(-1), true, new HashSet<>()));
+        em.flush();
+        // больше 32767 — предела параметров одного запроса PostgreSQL
+        List<Long> ids = new ArrayList<>();
+        ids.add(first.getId());
+        for (long id = -1; id >= -40_000; id--) {
+            ids.add(id);
+        }
+        ids.add(last.getId());
+
+        // when
+        List<ItemDto> items = itemService.getItemsByIds(defaultUser.getId(), ids);
+
+        // then
+        assertThat(items.stream().map(ItemDto::getTitle).toList(), containsInAnyOrder("a", "b"));
+    }
+
+    @Test
+    void getItemsByTagExpression_shouldCombineAndOrNot_andReturnNewestFirst() {
+        // given
+        User defaultUser = makeDefaultUser();
+        em.persist(defaultUser);
+        Item spring = makeItem(defaultUser, "https://spring.io", "https://spring.io/", "text/html", "spring", false, false,
+                daysFromNow(-3), true, new HashSet<>(Set.of("java", "spring")));
+        Item hibernate = makeItem(defaultUser, "https://hibernate.org", "https://hibernate.org/", "text/html", "hibernate", false, false,
+                daysFromNow(-2), true, new HashSet<>(Set.of("java", "hibernate")));
+        Item draft = makeItem(defaultUser, "https://draft.org", "https://draft.org/", "text/html", "draft", false, false,
+                daysFromNow(-1), true, new HashSet<>(Set.of("java", "spring", "draft")));
+        persistItem(em, spring);
+        persistItem(em, hibernate);
+        persistItem(em, draft);
+        em.flush();
+
+        // when
+        List<ItemDto> items = itemService.getItems(defaultUser.getId(),
+                TagExpression.parse("java AND (spring OR hibernate) AND NOT draft"), 0, 10);
+        List<ItemDto> firstPage = itemService.getItems(defaultUser.getId(), TagExpression.anyOf(List.of("java")), 0, 1);
+
+        // then
+        assertThat(items.stream().map(ItemDto::getId).toList(), contains(hibernate.getId(), spring.getId()));
+        assertThat(firstPage.stream().map(ItemDto::getId).toList(), contains(draft.getId()));
+    }
+
+    // первый запрос запускает построение индекса в фоне, вне транзакции теста: индекс получится пустым,
+    // поэтому каждый тест обращается к подсказкам один раз и проверяет ответ из счётчиков
+    @Test
+    void suggestTags_shouldRankByFrequency_whenServedFromCounters() {
+        // given
+        User defaultUser = makeDefaultUser();
+        em.persist(defaultUser);
+        persistItem(em, makeItem(defaultUser, "https://a.com", "https://a.com/", "text/html", "a", false, false,
+                daysFromNow(-3), true, new HashSet<>(Set.of("java", "jakarta"))));
+        persistItem(em, makeItem(defaultUser, "https://b.com", "https://b.com/", "text/html", "b", false, false,
+                daysFromNow(-2), true, new HashSet<>(Set.of("jakarta", "java", "spring"))));
+        persistItem(em, makeItem(defaultUser, "https://c.com", "https://c.com/", "text/html", "c", false, false,
+                daysFromNow(-1), true, new HashSet<>(Set.of("jakarta", "ja_va"))));
+        em.flush();
+        itemStatsService.reconcile(defaultUser.getId());
+
+        // when
+        List<TagSuggestionDto> suggestions = tagSuggestionService.suggest(defaultUser.getId(), "ja", 10);
+
+        // then
+        assertThat(suggestions.stream().map(TagSuggestionDto::getName).toList(), contains("jakarta", "java", "ja_va"));
+        assertThat(suggestions.getFirst().getCount(), equalTo(3L));
+    }
+
+    @Test
+    void suggestTags_shouldMatchWildcardsLiterally_whenServedFromCounters() {
+        // given
+        User defaultUser = makeDefaultUser();
+        em.persist(defaultUser);
+        persistItem(em, makeItem(defaultUser, "https://a.com", "https://a.com/", "text/html", "a", false, false,
+                daysFromNow(-2), true, new HashSet<>(Set.of("java"))));
+        persistItem(em, makeItem(defaultUser, "https://c.com", "https://c.com/", "text/html", "c", false, false,
+                daysFromNow(-1), true, new HashSet<>(Set.of("ja_va"))));
+        em.flush();
+        itemStatsService.reconcile(defaultUser.getId());
+
+        // when
+        List<TagSuggestionDto> escaped = tagSuggestionService.suggest(defaultUser.getId(), "ja_", 10);
+
+        // then
+        assertThat(escaped.stream().map(TagSuggestionDto::getName).toList(), contains("ja_va"));
+    }
+
     private <T> T getEntity(long id, Class<T> entityClass) {
         String sqlQuery = "select en from %s en where en.id = :id".formatted(entityClass.getSimpleName());
         TypedQuery<T> query = em.createQuery(sqlQuery, entityClass);
@@ -1,5 +1,6 @@
 package ru.practicum.item;
 
+import jakarta.persistence.EntityManager;
 import ru.practicum.item.dto.AddItemRequest;
 import ru.practicum.item.dto.ItemDto;
 import ru.practicum.user.User;
@@ -26,7 +27,7 @@ public class ItemServiceTest {
     }
 
     protected UrlMetaDataRetrieverImpl.UrlMetadataImpl extractUrlMetaDataFromItem(Item item) {
-        return new UrlMetaDataRetrieverImpl.UrlMetadataImpl(item.getUrl(), item.getResolvedUrl(), item.getMimeType(), item.getTitle(), item.getHasImage(), item.getHasVideo(), item.getDateResolved());
+        return new UrlMetaDataRetrieverImpl.UrlMetadataImpl(item.getUrl(), item.getResolvedUrl(), item.getResource().getMimeType(), item.getResource().getTitle(), item.getResource().getHasImage(), item.getResource().getHasVideo(), item.getResource().getDateResolved());
     }
 
     protected User makeUser(Long userId, String email, String fName, String lName, LocalDateTime regDateTime, UserState userState) {
@@ -132,17 +133,44 @@ public class ItemServiceTest {
         item.setUser(user);
         item.setUrl(url);
         item.setResolvedUrl(resolvedUrl);
-        item.setMimeType(mimeType);
-        item.setTitle(title);
-        item.setHasImage(hasImage);
-        item.setHasVideo(hasVideo);
-        item.setDateResolved(dateResolved);
+        item.setResource(makeResource(resolvedUrl, mimeType, title, hasImage, hasVideo, dateResolved));
         item.setUnread(unread);
         item.setTags(tags);
 
         return item;
     }
 
+    protected Resource makeResource(
+            String resolvedUrl,
+            String mimeType,
+            String title,
+            Boolean hasImage,
+            Boolean hasVideo,
+            Instant dateResolved
+    ) {
+        Resource resource = new Resource();
+        resource.setResolvedUrl(resolvedUrl);
+        resource.setMimeType(mimeType);
+        resource.setTitle(title);
+        resource.setHasImage(hasImage);
+        resource.setHasVideo(hasVideo);
+        resource.setDateResolved(dateResolved);
+        return resource;
+    }
+
+    // ресурс общий для ссылок с одним resolved_url: как и ItemRepository.upsert, сохраняем его,
+    // только если его ещё нет, иначе ссылка получает уже сохранённый
+    protected Item persistItem(EntityManager em, Item item) {
+        Resource saved = em.find(Resource.class, item.getResolvedUrl());
+        if (saved == null) {
+            em.persist(item.getResource());
+        } else {
+            item.setResource(saved);
+        }
+        em.persist(item);
+        return item;
+    }
+
     protected Item makeDefaultItem(User user) {
         return makeDefaultItemWithId(user, null);
     }
@@ -154,11 +182,9 @@ public class ItemServiceTest {
         item.setUser(user);
         item.setUrl("https://bit.ly/3vRVvO0");
         item.setResolvedUrl("https://practicum.yandex.ru/java-developer/");
-        item.setMimeType("text");
-        item.setTitle("Курс «Java-разработчик» с нуля: онлайн-обучение Java-программированию для начинающих — Яндекс Практикум");
-        item.setHasImage(true);
-        item.setHasVideo(false);
-        item.setDateResolved(daysFromNow(-365));
+        item.setResource(makeResource("https://practicum.yandex.ru/java-developer/", "text",
+                "Курс «Java-разработчик» с нуля: онлайн-обучение Java-программированию для начинающих — Яндекс Практикум",
+                true, false, daysFromNow(-365)));
         item.setUnread(true);
         item.setTags(new HashSet<>(Set.of("yandex", "practicum")));
 
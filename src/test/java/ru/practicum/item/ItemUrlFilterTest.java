@@ -0,0 +1,113 @@
+package ru.practicum.item;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.TaskScheduler;
+
+import java.time.Instant;
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class ItemUrlFilterTest {
+    private static final long USER_ID = 1L;
+    private static final int MAX_ITEMS_PER_USER = 3;
+
+    @Mock
+    private ItemRepository itemRepository;
+    @Mock
+    private TaskScheduler taskScheduler;
+
+    private ItemUrlFilter filter;
+
+    @BeforeEach
+    void setUp() {
+        filter = new ItemUrlFilter(itemRepository, taskScheduler, 10, 16, MAX_ITEMS_PER_USER, 0.01);
+    }
+
+    @Test
+    void mightContain_shouldAnswerMaybe_andScheduleLoadOnce_whenFilterIsNotBuilt() {
+        // when
+        boolean first = filter.mightContain(USER_ID, "https://new.com/");
+        boolean second = filter.mightContain(USER_ID, "https://new.com/");
+
+        // then
+        assertThat(first, equalTo(true));
+        assertThat(second, equalTo(true));
+        verify(taskScheduler, times(1)).schedule(any(Runnable.class), any(Instant.class));
+        verifyNoInteractions(itemRepository);
+    }
+
+    @Test
+    void mightContain_shouldAnswerAbsent_whenFilterIsLoaded() {
+        // given
+        when(itemRepository.findUrlsByUserId(USER_ID, PageRequest.of(0, MAX_ITEMS_PER_USER + 1)))
+                .thenReturn(List.of("https://saved.com/"));
+        filter.load(USER_ID);
+
+        // then
+        assertThat(filter.mightContain(USER_ID, "https://saved.com/"), equalTo(true));
+        assertThat(filter.mightContain(USER_ID, "https://new.com/"), equalTo(false));
+        assertThat(filter.getMetrics().definitelyAbsent(), equalTo(1L));
+    }
+
+    @Test
+    void mightContain_shouldAlwaysAnswerMaybe_whenUserHasTooManyItems() {
+        // given
+        when(itemRepository.findUrlsByUserId(USER_ID, PageRequest.of(0, MAX_ITEMS_PER_USER + 1)))
+                .thenReturn(List.of("https://a.com/", "https://b.com/", "https://c.com/", "https://d.com/"));
+        filter.load(USER_ID);
+
+        // when
+        boolean result = filter.mightContain(USER_ID, "https://new.com/");
+
+        // then
+        assertThat(result, equalTo(true));
+        assertThat(filter.getMetrics().definitelyAbsent(), equalTo(0L));
+        verifyNoInteractions(taskScheduler);
+    }
+
+    @Test
+    void load_shouldNotCacheFilter_whenUrlWasCommittedDuringLoad() {
+        // given
+        when(itemRepository.findUrlsByUserId(anyLong(), any(PageRequest.class)))
+                .thenAnswer(invocation -> {
+                    // ссылка коммитится, пока читаются url: в прочитанный список она не попала
+                    filter.add(USER_ID, "https://added-during-load.com/");
+                    return List.of("https://saved.com/");
+                });
+
+        // when
+        filter.load(USER_ID);
+
+        // then
+        assertThat(filter.getMetrics().cachedUsers(), equalTo(0));
+        assertThat(filter.mightContain(USER_ID, "https://added-during-load.com/"), equalTo(true));
+    }
+
+    @Test
+    void add_shouldPutUrlIntoLoadedFilter() {
+        // given
+        when(itemRepository.findUrlsByUserId(USER_ID, PageRequest.of(0, MAX_ITEMS_PER_USER + 1)))
+                .thenReturn(List.of());
+        filter.load(USER_ID);
+
+        // when
+        filter.add(USER_ID, "https://submitted.com/");
+
+        // then
+        assertThat(filter.mightContain(USER_ID, "https://submitted.com/"), equalTo(true));
+    }
+}
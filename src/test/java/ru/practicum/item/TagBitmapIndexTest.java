@@ -0,0 +1,92 @@
+package ru.practicum.item;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import ru.practicum.common.BadRequestException;
+import ru.practicum.item.dto.TagSuggestionDto;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.equalTo;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class TagBitmapIndexTest {
+    private TagBitmapIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new TagBitmapIndex();
+        index.put(10L, Set.of("java", "spring"));
+        index.put(20L, Set.of("java", "hibernate"));
+        index.put(30L, Set.of("java", "spring", "draft"));
+        index.put(40L, Set.of("read later"));
+    }
+
+    @Test
+    void find_shouldEvaluateAndOrNot_newestFirst() {
+        // when
+        List<Long> ids = index.find(TagExpression.parse("java AND (spring OR hibernate) AND NOT draft"), 0, 10);
+
+        // then
+        assertThat(ids, contains(20L, 10L));
+    }
+
+    @Test
+    void find_shouldTreatAdjacentTagsAsAnd_andSupportQuotedTags() {
+        assertThat(index.find(TagExpression.parse("java spring"), 0, 10), contains(30L, 10L));
+        assertThat(index.find(TagExpression.parse("\"read later\" OR hibernate"), 0, 10), contains(40L, 20L));
+        assertThat(index.find(TagExpression.parse("NOT java"), 0, 10), contains(40L));
+    }
+
+    @Test
+    void find_shouldReturnRequestedPage() {
+        // when
+        List<Long> ids = index.find(TagExpression.anyOf(List.of("java")), 1, 1);
+
+        // then
+        assertThat(ids, contains(20L));
+    }
+
+    @Test
+    void find_shouldReflectUpdates() {
+        // when
+        index.put(10L, Set.of("kotlin"));
+        index.addTags(List.of(20L), Set.of("spring"));
+        index.retainTags(List.of(30L), Set.of("draft"));
+        index.remove(List.of(40L));
+
+        // then
+        assertThat(index.find(TagExpression.parse("spring"), 0, 10), contains(20L));
+        assertThat(index.find(TagExpression.parse("kotlin OR draft"), 0, 10), contains(30L, 10L));
+        assertThat(index.find(TagExpression.parse("\"read later\""), 0, 10), empty());
+    }
+
+    @Test
+    void suggest_shouldReturnTagsByPrefix_mostUsedFirst() {
+        // when
+        List<TagSuggestionDto> suggestions = index.suggest("", 3);
+
+        // then
+        assertThat(suggestions.stream().map(TagSuggestionDto::getName).toList(), contains("java", "spring", "draft"));
+        assertThat(index.suggest("sp", 10).getFirst().getCount(), equalTo(2L));
+        assertThat(index.suggest("x", 10), empty());
+    }
+
+    @Test
+    void put_shouldRefuseItemOlderThanLastKnown() {
+        assertThat(index.put(5L, Set.of("java")), equalTo(false));
+        assertThat(index.put(50L, Set.of("java")), equalTo(true));
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"", "java AND", "(java OR spring", "java)", "OR java", "NOT", "\"unclosed"})
+    void parse_shouldThrowBadRequest_whenExpressionIsMalformed(String expression) {
+        assertThrows(BadRequestException.class, () -> TagExpression.parse(expression));
+    }
+}
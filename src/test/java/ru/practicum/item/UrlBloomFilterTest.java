@@ -0,0 +1,63 @@
+package ru.practicum.item;
+
+import org.junit.jupiter.api.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.lessThan;
+
+class UrlBloomFilterTest {
+    private static final int CAPACITY = 1000;
+
+    @Test
+    void mightContain_shouldNeverMissAddedUrls() {
+        // given
+        UrlBloomFilter filter = new UrlBloomFilter(CAPACITY, 0.01);
+        for (int i = 0; i < CAPACITY; i++) {
+            filter.put("https://saved-" + i + ".com");
+        }
+
+        // then
+        for (int i = 0; i < CAPACITY; i++) {
+            assertThat(filter.mightContain("https://saved-" + i + ".com"), equalTo(true));
+        }
+    }
+
+    @Test
+    void mightContain_shouldKeepFalsePositiveRateNearConfigured_whenFilledToCapacity() {
+        // given
+        UrlBloomFilter filter = new UrlBloomFilter(CAPACITY, 0.01);
+        for (int i = 0; i < CAPACITY; i++) {
+            filter.put("https://saved-" + i + ".com");
+        }
+
+        // when
+        int falsePositives = 0;
+        for (int i = 0; i < 100_000; i++) {
+            if (filter.mightContain("https://new-" + i + ".com")) {
+                falsePositives++;
+            }
+        }
+
+        // then
+        assertThat(falsePositives / 100_000.0, lessThan(0.02));
+        assertThat(filter.isSaturated(), equalTo(false));
+    }
+
+    @Test
+    void isSaturated_shouldBeTrue_whenManyUrlsWereRemoved() {
+        // given
+        UrlBloomFilter filter = new UrlBloomFilter(CAPACITY, 0.01);
+        for (int i = 0; i < 100; i++) {
+            filter.put("https://saved-" + i + ".com");
+        }
+
+        // when
+        for (int i = 0; i < 50; i++) {
+            filter.markRemoved();
+        }
+
+        // then
+        assertThat(filter.isSaturated(), equalTo(true));
+    }
+}
@@ -0,0 +1,109 @@
+package ru.practicum.item;
+
+import org.junit.jupiter.api.function.Executable;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+import org.junit.jupiter.params.provider.ValueSource;
+import ru.practicum.common.ItemRetrieverException;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class UrlCanonicalizerTest {
+    private final UrlCanonicalizer urlCanonicalizer =
+            new UrlCanonicalizer("utm_*, fbclid, gclid, yclid, mc_cid, mc_eid, _openstat");
+
+    @ParameterizedTest(name = "{0} -> {1}")
+    @CsvSource(delimiter = '|', textBlock = """
+            # схема и хост
+            https://example.com/                                | https://example.com/
+            HTTPS://EXAMPLE.COM/                                | https://example.com/
+            HtTp://Example.Com/Path                             | http://example.com/Path
+            https://example.com                                 | https://example.com/
+            https://example.com.                                | https://example.com/
+            https://sub.Example.co.uk/a                         | https://sub.example.co.uk/a
+            '  https://example.com/  '                          | https://example.com/
+            # порты
+            http://example.com:80/                              | http://example.com/
+            https://example.com:443/                            | https://example.com/
+            http://example.com:443/                             | http://example.com:443/
+            https://example.com:80/                             | https://example.com:80/
+            https://example.com:8443/a                          | https://example.com:8443/a
+            http://127.0.0.1:8080/                              | http://127.0.0.1:8080/
+            http://[::1]:80/                                    | http://[::1]/
+            # путь
+            https://example.com/a/./b/../c                      | https://example.com/a/c
+            https://example.com/a//b                            | https://example.com/a/b
+            https://example.com/A/B                             | https://example.com/A/B
+            https://example.com/a%2fb                           | https://example.com/a%2Fb
+            https://example.com/caf%c3%a9                       | https://example.com/caf%C3%A9
+            https://example.com/path/                           | https://example.com/path/
+            # фрагмент
+            https://example.com/#top                            | https://example.com/
+            https://example.com/page#section-2                  | https://example.com/page
+            https://example.com/?a=1#frag                       | https://example.com/?a=1
+            https://example.com/#/spa/route                     | https://example.com/
+            # сортировка параметров
+            https://example.com/?b=2&a=1                        | https://example.com/?a=1&b=2
+            https://example.com/?c=3&b=2&a=1                    | https://example.com/?a=1&b=2&c=3
+            https://example.com/?a=2&b=1&a=1                    | https://example.com/?a=2&a=1&b=1
+            https://example.com/?B=1&a=1                        | https://example.com/?B=1&a=1
+            https://example.com/?flag&a=1                       | https://example.com/?a=1&flag
+            https://example.com/?a=1&&b=2                       | https://example.com/?a=1&b=2
+            https://example.com/?                               | https://example.com/
+            https://example.com/?q=%e2%9c%93                    | https://example.com/?q=%E2%9C%93
+            https://example.com/search?q=a+b&page=2             | https://example.com/search?page=2&q=a+b
+            # метки отслеживания
+            https://example.com/?utm_source=x                   | https://example.com/
+            https://example.com/?utm_source=x&utm_medium=y      | https://example.com/
+            https://example.com/?UTM_Source=x&id=7              | https://example.com/?id=7
+            https://example.com/?utm_campaign=a&utm_term=b&id=1 | https://example.com/?id=1
+            https://example.com/?fbclid=abc                     | https://example.com/
+            https://example.com/?gclid=abc&x=1                  | https://example.com/?x=1
+            https://example.com/?yclid=123&_openstat=abc        | https://example.com/
+            https://example.com/?mc_cid=1&mc_eid=2&list=3       | https://example.com/?list=3
+            https://example.com/?utm=keep                       | https://example.com/?utm=keep
+            https://example.com/?xfbclid=keep                   | https://example.com/?xfbclid=keep
+            https://example.com/?id=1&utm_source=x#frag         | https://example.com/?id=1
+            # всё сразу
+            HTTPS://WWW.Example.COM:443/a/../b/?z=1&utm_source=tg&a=2#c | https://www.example.com/b/?a=2&z=1
+            http://User@Example.com:80/p?fbclid=1                | http://User@example.com/p
+            """)
+    void canonicalize_shouldReturnCanonicalUrl(String url, String expected) {
+        assertThat(urlCanonicalizer.canonicalize(url), equalTo(expected));
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+            "https://example.com/?b=2&a=1&utm_source=x",
+            "HTTPS://EXAMPLE.COM:443/a/./b?x=%e2%9c%93#frag",
+            "http://example.com"
+    })
+    void canonicalize_shouldBeIdempotent(String url) {
+        String canonical = urlCanonicalizer.canonicalize(url);
+
+        assertThat(urlCanonicalizer.canonicalize(canonical), equalTo(canonical));
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"ht^tp://invalid_uri.com", "example.com/path", "/relative/path", "https://exa mple.com/"})
+    void canonicalize_shouldThrowItemRetrieverException_whenUrlIsMalformed(String url) {
+        Executable canonicalize = () -> urlCanonicalizer.canonicalize(url);
+
+        ItemRetrieverException exception = assertThrows(ItemRetrieverException.class, canonicalize);
+        assertThat(exception.getMessage(), equalTo("The URL is malformed: " + url));
+    }
+
+    @ParameterizedTest(name = "{0} -> {1}")
+    @CsvSource(delimiter = '|', textBlock = """
+            https://example.com/?ref=tg&id=1     | https://example.com/?id=1
+            https://example.com/?refresh=1       | https://example.com/?refresh=1
+            https://example.com/?utm_source=x    | https://example.com/?utm_source=x
+            """)
+    void canonicalize_shouldUseConfiguredTrackingParams(String url, String expected) {
+        UrlCanonicalizer custom = new UrlCanonicalizer("ref");
+
+        assertThat(custom.canonicalize(url), equalTo(expected));
+    }
+}
@@ -0,0 +1,78 @@
+package ru.practicum.limit;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.context.support.StaticMessageSource;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockAsyncContext;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.util.Locale;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.lessThan;
+
+class ConcurrencyLimitFilterTest {
+
+    @Test
+    void doFilter_shouldShedRequestsOverLimit_perBudget() throws Exception {
+        // given — по одному месту на чтение и на запись
+        StaticMessageSource messageSource = new StaticMessageSource();
+        messageSource.addMessage("errors.503.busy", Locale.ENGLISH, "The server is busy, please retry later");
+        ConcurrencyLimitFilter filter = new ConcurrencyLimitFilter(true, 1, 1, 10, 1, 10, messageSource);
+        MockHttpServletResponse secondRead = new MockHttpServletResponse();
+        MockHttpServletResponse write = new MockHttpServletResponse();
+
+        // when — пока первое чтение выполняется, приходят второе чтение и запись
+        filter.doFilter(request("GET"), new MockHttpServletResponse(), (request, response) -> {
+            filter.doFilter(request("GET"), secondRead, (nestedRequest, nestedResponse) -> {
+            });
+            filter.doFilter(request("POST"), write, (nestedRequest, nestedResponse) -> {
+            });
+        });
+
+        // then
+        assertThat(secondRead.getStatus(), equalTo(HttpStatus.SERVICE_UNAVAILABLE.value()));
+        assertThat(secondRead.getHeader(HttpHeaders.RETRY_AFTER), equalTo("1"));
+        assertThat(secondRead.getContentType(), equalTo(MediaType.APPLICATION_PROBLEM_JSON_VALUE));
+        assertThat(secondRead.getContentAsString(), containsString("The server is busy, please retry later"));
+        assertThat(write.getStatus(), equalTo(HttpStatus.OK.value()));
+        assertThat(filter.getMetrics(ConcurrencyLimitFilter.Budget.READ).rejected(), equalTo(1L));
+        assertThat(filter.getMetrics(ConcurrencyLimitFilter.Budget.READ).inFlight(), equalTo(0));
+    }
+
+    @Test
+    void doFilter_shouldHoldPermitUntilAsyncCompletion_andBackOffOnServerError() throws Exception {
+        // given
+        ConcurrencyLimitFilter filter = new ConcurrencyLimitFilter(true, 1, 10, 20, 1, 10, new StaticMessageSource());
+        MockHttpServletRequest request = request("POST");
+        request.setAsyncSupported(true);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        // when — обработчик отпускает поток фильтра и завершает запрос позже, с ответом 500
+        filter.doFilter(request, response, (chainRequest, chainResponse) -> chainRequest.startAsync());
+
+        // then
+        assertThat(filter.getMetrics(ConcurrencyLimitFilter.Budget.WRITE).inFlight(), equalTo(1));
+
+        // when
+        response.setStatus(HttpStatus.INTERNAL_SERVER_ERROR.value());
+        ((MockAsyncContext) request.getAsyncContext()).complete();
+
+        // then
+        ConcurrencyLimitFilter.Metrics metrics = filter.getMetrics(ConcurrencyLimitFilter.Budget.WRITE);
+        assertThat(metrics.inFlight(), equalTo(0));
+        assertThat(metrics.dropped(), equalTo(1L));
+        assertThat(metrics.limit(), lessThan(10));
+    }
+
+    private static MockHttpServletRequest request(String method) {
+        MockHttpServletRequest request = new MockHttpServletRequest(method, "/items");
+        request.addPreferredLocale(Locale.ENGLISH);
+        return request;
+    }
+}
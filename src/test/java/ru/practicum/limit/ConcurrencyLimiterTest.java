@@ -0,0 +1,99 @@
+package ru.practicum.limit;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.lessThan;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.nullValue;
+
+class ConcurrencyLimiterTest {
+    private static final long RTT = TimeUnit.MILLISECONDS.toNanos(10);
+
+    @Test
+    void tryAcquire_shouldReject_whenLimitReached() {
+        // given
+        ConcurrencyLimiter limiter = new ConcurrencyLimiter(2, 1, 10);
+
+        // when
+        ConcurrencyLimiter.Permit first = limiter.tryAcquire();
+        ConcurrencyLimiter.Permit second = limiter.tryAcquire();
+        ConcurrencyLimiter.Permit third = limiter.tryAcquire();
+
+        // then
+        assertThat(first, notNullValue());
+        assertThat(second, notNullValue());
+        assertThat(third, nullValue());
+        assertThat(limiter.getRejected(), equalTo(1L));
+
+        // when
+        limiter.release(first, false);
+
+        // then
+        assertThat(limiter.tryAcquire(), notNullValue());
+    }
+
+    @Test
+    void onSample_shouldRaiseLimit_whileLatencyStaysAtBaseline() {
+        // given
+        ConcurrencyLimiter limiter = new ConcurrencyLimiter(10, 1, 100);
+
+        // when
+        for (int i = 0; i < 50; i++) {
+            limiter.onSample(RTT, limiter.getLimit(), false);
+        }
+
+        // then
+        assertThat(limiter.getLimit(), greaterThan(10));
+    }
+
+    @Test
+    void onSample_shouldLowerLimit_whenLatencyGrows() {
+        // given
+        ConcurrencyLimiter limiter = new ConcurrencyLimiter(50, 1, 100);
+        for (int i = 0; i < 100; i++) {
+            limiter.onSample(RTT, 50, false);
+        }
+        int stableLimit = limiter.getLimit();
+
+        // when — БД замедлилась в десять раз
+        for (int i = 0; i < 20; i++) {
+            limiter.onSample(10 * RTT, limiter.getLimit(), false);
+        }
+
+        // then
+        assertThat(limiter.getLimit(), lessThan(stableLimit / 2));
+    }
+
+    @Test
+    void onSample_shouldNotRaiseLimit_whenMostPermitsAreUnused() {
+        // given
+        ConcurrencyLimiter limiter = new ConcurrencyLimiter(20, 1, 100);
+
+        // when
+        for (int i = 0; i < 50; i++) {
+            limiter.onSample(RTT, 1, false);
+        }
+
+        // then
+        assertThat(limiter.getLimit(), equalTo(20));
+    }
+
+    @Test
+    void release_shouldBackOff_whenRequestFailed() {
+        // given
+        ConcurrencyLimiter limiter = new ConcurrencyLimiter(20, 1, 100);
+
+        // when
+        limiter.release(limiter.tryAcquire(), true);
+
+        // then
+        assertThat(limiter.getLimit(), equalTo(18));
+        assertThat(limiter.getDropped(), equalTo(1L));
+        assertThat(limiter.getInFlight(), equalTo(0));
+    }
+}
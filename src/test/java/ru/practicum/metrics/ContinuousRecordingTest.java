@@ -0,0 +1,83 @@
+package ru.practicum.metrics;
+
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.hasItem;
+import static org.hamcrest.Matchers.hasSize;
+
+class ContinuousRecordingTest {
+    @TempDir
+    Path dumpDirectory;
+
+    private ThreadPoolTaskScheduler taskScheduler;
+    private ContinuousRecording recording;
+
+    @BeforeEach
+    void setUp() {
+        taskScheduler = new ThreadPoolTaskScheduler();
+        taskScheduler.setWaitForTasksToCompleteOnShutdown(true);
+        taskScheduler.initialize();
+        recording = new ContinuousRecording(true, "default", 10, 100, 100, 300, 10,
+                dumpDirectory.toString(), taskScheduler);
+        recording.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        taskScheduler.shutdown();
+        recording.stop();
+    }
+
+    @Test
+    void onRequestCompleted_shouldDumpOnce_whenSloBreachedWithinCooldown() throws Exception {
+        // given
+        MappingEvent.start("ItemMapper", "entity").end(3);
+
+        // when
+        recording.onRequestCompleted("/items", TimeUnit.MILLISECONDS.toNanos(50));
+        recording.onRequestCompleted("/items", TimeUnit.MILLISECONDS.toNanos(150));
+        recording.onRequestCompleted("/items", TimeUnit.MILLISECONDS.toNanos(500));
+        taskScheduler.getScheduledExecutor().shutdown();
+        taskScheduler.getScheduledExecutor().awaitTermination(10, TimeUnit.SECONDS);
+
+        // then
+        List<Path> dumps = dumps();
+        assertThat(dumps, hasSize(1));
+        List<String> mappings = RecordingFile.readAllEvents(dumps.get(0)).stream()
+                .filter(event -> event.getEventType().getName().equals("ru.practicum.Mapping"))
+                .map(event -> event.getString("mapper") + ":" + event.getInt("count"))
+                .toList();
+        assertThat(mappings, hasItem("ItemMapper:3"));
+    }
+
+    @Test
+    void onRequestCompleted_shouldNotDump_whenWithinSlo() throws Exception {
+        // when
+        recording.onRequestCompleted("/items", TimeUnit.MILLISECONDS.toNanos(100));
+        taskScheduler.getScheduledExecutor().shutdown();
+        taskScheduler.getScheduledExecutor().awaitTermination(10, TimeUnit.SECONDS);
+
+        // then
+        assertThat(dumps().isEmpty(), equalTo(true));
+    }
+
+    private List<Path> dumps() throws IOException {
+        try (Stream<Path> files = Files.list(dumpDirectory)) {
+            return files.toList();
+        }
+    }
+}
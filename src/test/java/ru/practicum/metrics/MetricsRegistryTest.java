@@ -0,0 +1,66 @@
+package ru.practicum.metrics;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class MetricsRegistryTest {
+
+    @Test
+    void writeTo_shouldExposeCumulativeHistogramBuckets() throws IOException {
+        // given
+        MetricsRegistry registry = new MetricsRegistry();
+        LatencyHistogram histogram = registry.histogram("http_seconds", "latency", "route", "/items", "status", "200");
+
+        // when
+        histogram.record(TimeUnit.MICROSECONDS.toNanos(500));
+        histogram.record(TimeUnit.MILLISECONDS.toNanos(20));
+        histogram.record(TimeUnit.SECONDS.toNanos(30));
+        String text = write(registry);
+
+        // then
+        assertThat(text, containsString("# TYPE http_seconds histogram\n"));
+        assertThat(text, containsString("http_seconds_bucket{route=\"/items\",status=\"200\",le=\"0.001\"} 1\n"));
+        assertThat(text, containsString("http_seconds_bucket{route=\"/items\",status=\"200\",le=\"0.025\"} 2\n"));
+        assertThat(text, containsString("http_seconds_bucket{route=\"/items\",status=\"200\",le=\"10.0\"} 2\n"));
+        assertThat(text, containsString("http_seconds_bucket{route=\"/items\",status=\"200\",le=\"+Inf\"} 3\n"));
+        assertThat(text, containsString("http_seconds_sum{route=\"/items\",status=\"200\"} 30.0205\n"));
+        assertThat(text, containsString("http_seconds_count{route=\"/items\",status=\"200\"} 3\n"));
+    }
+
+    @Test
+    void writeTo_shouldEscapeLabelValues_andReadGaugesOnScrape() throws IOException {
+        // given
+        MetricsRegistry registry = new MetricsRegistry();
+        long[] value = {1};
+        registry.gauge("queue_size", "queued", () -> value[0], "pool", "a\"b\\c");
+
+        // when
+        value[0] = 5;
+        String text = write(registry);
+
+        // then
+        assertThat(text, containsString("# TYPE queue_size gauge\n"));
+        assertThat(text, containsString("queue_size{pool=\"a\\\"b\\\\c\"} 5\n"));
+    }
+
+    @Test
+    void histogram_shouldRejectNameRegisteredWithOtherType() {
+        MetricsRegistry registry = new MetricsRegistry();
+        registry.counter("calls_total", "calls", () -> 1);
+
+        assertThrows(IllegalArgumentException.class, () -> registry.histogram("calls_total", "calls"));
+    }
+
+    private static String write(MetricsRegistry registry) throws IOException {
+        StringWriter writer = new StringWriter();
+        registry.writeTo(writer);
+        return writer.toString();
+    }
+}
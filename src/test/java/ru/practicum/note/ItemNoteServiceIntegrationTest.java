@@ -0,0 +1,118 @@
+package ru.practicum.note;
+
+import jakarta.persistence.EntityManager;
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit.jupiter.SpringJUnitConfig;
+import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.config.AppConfig;
+import ru.practicum.config.PersistenceConfig;
+import ru.practicum.item.Item;
+import ru.practicum.item.ItemServiceTest;
+import ru.practicum.note.dto.ItemNoteDto;
+import ru.practicum.note.dto.ItemNoteField;
+import ru.practicum.user.User;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.everyItem;
+import static org.hamcrest.Matchers.hasProperty;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.nullValue;
+
+@Transactional
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+@SpringJUnitConfig({AppConfig.class, PersistenceConfig.class, ItemNoteServiceImpl.class})
+@TestPropertySource(properties = {
+        "jdbc.url=jdbc:postgresql://localhost:5432/test",
+        "hibernate.hbm2ddl.auto=update"
+})
+class ItemNoteServiceIntegrationTest extends ItemServiceTest {
+
+    private final EntityManager em;
+    private final ItemNoteService itemNoteService;
+
+    private User defaultUser;
+    private Item javaItem;
+    private Item sqlItem;
+
+    @BeforeEach
+    void setUp() {
+        defaultUser = makeDefaultUser();
+        em.persist(defaultUser);
+        User otherUser = makeDefaultUser();
+        em.persist(otherUser);
+        javaItem = persistItem(em, makeItem(defaultUser, "https://java.com", "https://java.com/", "text/html",
+                "java", false, false, daysFromNow(-1), true, new HashSet<>(Set.of("java"))));
+        sqlItem = persistItem(em, makeItem(defaultUser, "https://sql.com", "https://sql.com/", "text/html",
+                "sql", false, false, daysFromNow(-1), true, new HashSet<>(Set.of("sql"))));
+        Item otherItem = persistItem(em, makeItem(otherUser, "https://java.com", "https://java.com/", "text/html",
+                "java", false, false, daysFromNow(-1), true, new HashSet<>(Set.of("java"))));
+        em.persist(ItemNote.of(null, "java note", javaItem));
+        em.persist(ItemNote.of(null, "sql note", sqlItem));
+        em.persist(ItemNote.of(null, "other note", otherItem));
+        em.flush();
+    }
+
+    @Test
+    void searchNotesByUrl_shouldFillOnlyRequestedFields_whenFieldsAreSet() {
+        // when
+        List<ItemNoteDto> notes = itemNoteService.searchNotesByUrl("java", defaultUser.getId(),
+                Set.of(ItemNoteField.TEXT, ItemNoteField.ITEM_URL));
+
+        // then
+        assertThat(notes.size(), equalTo(1));
+        assertThat(notes.getFirst().getText(), equalTo("java note"));
+        assertThat(notes.getFirst().getItemUrl(), equalTo("https://java.com"));
+        assertThat(notes.getFirst().getId(), nullValue());
+        assertThat(notes.getFirst().getItemId(), nullValue());
+    }
+
+    @Test
+    void searchNotesByTag_shouldFillOnlyRequestedFields_whenFieldsAreSet() {
+        // when
+        List<ItemNoteDto> notes = itemNoteService.searchNotesByTag(defaultUser.getId(), "sql",
+                Set.of(ItemNoteField.ID, ItemNoteField.ITEM_ID));
+
+        // then
+        assertThat(notes.size(), equalTo(1));
+        assertThat(notes.getFirst().getId(), notNullValue());
+        assertThat(notes.getFirst().getItemId(), equalTo(sqlItem.getId()));
+        assertThat(notes.getFirst().getText(), nullValue());
+        assertThat(notes.getFirst().getItemUrl(), nullValue());
+    }
+
+    @Test
+    void listAllItemsWithNotes_shouldReturnOnlyUsersNotes_whenFieldsAreSet() {
+        // when
+        List<ItemNoteDto> notes = itemNoteService.listAllItemsWithNotes(defaultUser.getId(), 0, 10,
+                Set.of(ItemNoteField.TEXT));
+        List<ItemNoteDto> firstPage = itemNoteService.listAllItemsWithNotes(defaultUser.getId(), 0, 1,
+                Set.of(ItemNoteField.TEXT));
+
+        // then
+        assertThat(notes.stream().map(ItemNoteDto::getText).toList(), containsInAnyOrder("java note", "sql note"));
+        assertThat(notes, everyItem(hasProperty("itemUrl", nullValue())));
+        assertThat(firstPage.size(), equalTo(1));
+    }
+
+    @Test
+    void listAllItemsWithNotes_shouldReturnRowPerNote_whenOnlyFieldsWithoutColumnsAreSet() {
+        // when
+        List<ItemNoteDto> notes = itemNoteService.listAllItemsWithNotes(defaultUser.getId(), 0, 10,
+                Set.of(ItemNoteField.DATE_OF_NOTE));
+
+        // then
+        assertThat(notes.size(), equalTo(2));
+        assertThat(notes.stream().map(ItemNoteDto::getText).toList(), contains(nullValue(), nullValue()));
+    }
+}
@@ -0,0 +1,218 @@
+package ru.practicum.resolution;
+
+import jakarta.persistence.EntityManager;
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Bean;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit.jupiter.SpringJUnitConfig;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.config.AppConfig;
+import ru.practicum.config.PersistenceConfig;
+import ru.practicum.item.ItemService;
+import ru.practicum.item.ItemServiceTest;
+import ru.practicum.item.UrlCanonicalizer;
+import ru.practicum.item.UrlMetaDataRetriever;
+import ru.practicum.item.dto.AddItemRequest;
+import ru.practicum.item.dto.ItemDto;
+import ru.practicum.user.User;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.nullValue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anySet;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+// Два «узла» — два воркера с разными id на одной базе. Тест не транзакционный:
+// каждое получение заданий должно идти в своей транзакции, как у настоящих воркеров.
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+@SpringJUnitConfig({AppConfig.class, PersistenceConfig.class,
+        ResolutionJobServiceImpl.class, UrlCanonicalizer.class, ResolutionJobQueueIntegrationTest.ItemServiceStubConfig.class})
+@TestPropertySource(properties = {
+        "jdbc.url=jdbc:postgresql://localhost:5432/test",
+        "hibernate.hbm2ddl.auto=update",
+        "resolution.max-attempts=" + ResolutionJobQueueIntegrationTest.MAX_ATTEMPTS,
+        "resolution.backoff-base-ms=0"
+})
+class ResolutionJobQueueIntegrationTest extends ItemServiceTest {
+    private static final int JOBS = 40;
+    static final int MAX_ATTEMPTS = 2;
+
+    private final EntityManager em;
+    private final ResolutionJobService resolutionJobService;
+    private final ResolutionJobRepository resolutionJobRepository;
+    private final ItemService itemService;
+    private final PlatformTransactionManager transactionManager;
+
+    private TransactionTemplate transactionTemplate;
+    private User defaultUser;
+
+    @BeforeEach
+    void setUp() {
+        Mockito.reset(itemService);
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        defaultUser = transactionTemplate.execute(status -> {
+            User user = makeDefaultUser();
+            em.persist(user);
+            return user;
+        });
+    }
+
+    @AfterEach
+    void tearDown() {
+        transactionTemplate.executeWithoutResult(status -> {
+            em.createQuery("delete from ResolutionJob j where j.userId = :userId")
+                    .setParameter("userId", defaultUser.getId())
+                    .executeUpdate();
+            em.remove(em.find(User.class, defaultUser.getId()));
+        });
+    }
+
+    @Test
+    void claim_shouldNeverHandOutSameJobTwice_whenTwoNodesPollConcurrently() throws Exception {
+        // given
+        Set<Long> enqueued = new HashSet<>();
+        for (int i = 0; i < JOBS; i++) {
+            enqueued.add(resolutionJobService.enqueue(defaultUser.getId(), makeItemRequest("https://url-" + i, Set.of())).getId());
+        }
+
+        // when
+        ExecutorService nodes = Executors.newFixedThreadPool(2);
+        try {
+            Future<List<Long>> first = nodes.submit(drain("node-a"));
+            Future<List<Long>> second = nodes.submit(drain("node-b"));
+            List<Long> claimedByFirst = first.get();
+            List<Long> claimedBySecond = second.get();
+
+            // then
+            Set<Long> claimed = new HashSet<>(claimedByFirst);
+            claimed.retainAll(claimedBySecond);
+            assertThat(claimed, empty());
+            claimed.addAll(claimedByFirst);
+            claimed.addAll(claimedBySecond);
+            claimed.retainAll(enqueued);
+            assertThat(claimed, hasSize(JOBS));
+        } finally {
+            nodes.shutdownNow();
+        }
+    }
+
+    @Test
+    void fail_shouldRetryAndThenDeadLetter_whenAttemptsAreExhausted() {
+        // given
+        long jobId = resolutionJobService.enqueue(defaultUser.getId(), makeItemRequest("https://url", Set.of())).getId();
+
+        // when
+        ResolutionJob firstAttempt = claimOwn("node-a", Duration.ofMinutes(1));
+        resolutionJobService.fail(firstAttempt, "node-a", new IllegalStateException("timeout"));
+        ResolutionJob afterRetry = resolutionJobRepository.findById(jobId).orElseThrow();
+        ResolutionJob secondAttempt = claimOwn("node-a", Duration.ofMinutes(1));
+        resolutionJobService.fail(secondAttempt, "node-a", new IllegalStateException("timeout"));
+
+        // then
+        assertThat(afterRetry.getState(), equalTo(ResolutionJob.State.PENDING));
+        assertThat(afterRetry.getLastError(), equalTo("timeout"));
+        ResolutionJob dead = resolutionJobRepository.findById(jobId).orElseThrow();
+        assertThat(dead.getState(), equalTo(ResolutionJob.State.DEAD));
+        assertThat(dead.getAttempts(), equalTo(2));
+    }
+
+    @Test
+    void complete_shouldDropResult_whenLeaseExpiredAndJobWasReclaimed() throws Exception {
+        // given
+        long jobId = resolutionJobService.enqueue(defaultUser.getId(), makeItemRequest("https://url", Set.of("tag"))).getId();
+        when(itemService.addResolvedItem(anyLong(), any(), anySet())).thenReturn(ItemDto.builder().id(42L).build());
+        UrlMetaDataRetriever.UrlMetadata urlMetadata = makeUrlMetaData("https://url", "https://resolved-url.com",
+                "text", "title", false, false, Instant.now());
+
+        // when
+        ResolutionJob stale = claimOwn("node-a", Duration.ofMillis(1));
+        Thread.sleep(50);
+        ResolutionJob reclaimed = claimOwn("node-b", Duration.ofMinutes(1));
+        resolutionJobService.complete(stale, "node-a", urlMetadata);
+        resolutionJobService.complete(reclaimed, "node-b", urlMetadata);
+
+        // then
+        assertThat(reclaimed.getAttempts(), equalTo(2));
+        verify(itemService, times(1)).addResolvedItem(defaultUser.getId(), urlMetadata, Set.of("tag"));
+        ResolutionJob done = resolutionJobRepository.findById(jobId).orElseThrow();
+        assertThat(done.getState(), equalTo(ResolutionJob.State.DONE));
+        assertThat(done.getItemId(), equalTo(42L));
+    }
+
+    @Test
+    void claim_shouldDeadLetterJob_whenLeaseExpiresOnEveryAttempt() throws Exception {
+        // given — воркер забирает задание и пропадает, не вызывая ни complete, ни fail
+        long jobId = resolutionJobService.enqueue(defaultUser.getId(), makeItemRequest("https://url", Set.of())).getId();
+        for (int attempt = 1; attempt <= MAX_ATTEMPTS; attempt++) {
+            assertThat(claimOwn("node-" + attempt, Duration.ofMillis(1)).getAttempts(), equalTo(attempt));
+            Thread.sleep(50);
+        }
+
+        // when
+        Optional<ResolutionJob> claimedAgain = claimOwnIfAny("node-a", Duration.ofMinutes(1));
+
+        // then
+        assertThat(claimedAgain.isPresent(), equalTo(false));
+        ResolutionJob dead = resolutionJobRepository.findById(jobId).orElseThrow();
+        assertThat(dead.getState(), equalTo(ResolutionJob.State.DEAD));
+        assertThat(dead.getAttempts(), equalTo(MAX_ATTEMPTS));
+        assertThat(dead.getLockedBy(), nullValue());
+        assertThat(dead.getLastError(), equalTo("Lease expired after 2 attempts"));
+    }
+
+    private Callable<List<Long>> drain(String workerId) {
+        return () -> {
+            List<Long> claimed = new ArrayList<>();
+            List<ResolutionJob> batch;
+            do {
+                batch = transactionTemplate.execute(status -> resolutionJobRepository.claim(workerId, 3, Duration.ofMinutes(1), MAX_ATTEMPTS));
+                batch.stream().map(ResolutionJob::getId).forEach(claimed::add);
+            } while (!batch.isEmpty());
+            return claimed;
+        };
+    }
+
+    private ResolutionJob claimOwn(String workerId, Duration visibilityTimeout) {
+        return claimOwnIfAny(workerId, visibilityTimeout).orElseThrow();
+    }
+
+    private Optional<ResolutionJob> claimOwnIfAny(String workerId, Duration visibilityTimeout) {
+        List<ResolutionJob> claimed = transactionTemplate.execute(status ->
+                resolutionJobRepository.claim(workerId, JOBS, visibilityTimeout, MAX_ATTEMPTS));
+        return claimed.stream()
+                .filter(job -> job.getUserId().equals(defaultUser.getId()))
+                .findFirst();
+    }
+
+    // без @Configuration, как ItemControllerTestConfig: сканирование приложения заглушку не подхватывает
+    static class ItemServiceStubConfig {
+        @Bean
+        ItemService itemService() {
+            return Mockito.mock(ItemService.class);
+        }
+    }
+}
@@ -1,11 +1,11 @@
 package ru.practicum.user;
 
 import org.springframework.context.annotation.Bean;
-import org.springframework.context.annotation.Configuration;
 
 import static org.mockito.Mockito.mock;
 
-@Configuration
+// без @Configuration: классы подключаются тестами явно и не попадают в сканирование ru.practicum,
+// которое поднимает всё приложение в LaterApplicationLoadTest
 public class UserControllerTestConfig {
     @Bean
     public UserService userService() {
@@ -0,0 +1,5 @@
+INSERT INTO resources (resolved_url, has_image, has_video, date_resolved, mime_type, title)
+VALUES ('https://practicum.yandex.ru/java-developer/', true, true, '2020-01-01', 'text',
+        'Курс «Java-разработчик» с нуля: онлайн-обучение Java-программированию для начинающих — Яндекс Практикум'),
+       ('https://some-resolved-url-video.com', false, true, '2022-01-01', 'video', 'some title'),
+       ('https://some-resolved-url-image.com', true, false, '2023-01-01', 'image', 'some title');